@@ -1,5 +1,6 @@
 package com.microservicesbank.accounts;
 
+import com.microservicesbank.accounts.config.AccountNumberProperties;
 import com.microservicesbank.accounts.dto.AccountsContactInfoDTO;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -9,13 +10,17 @@ import io.swagger.v3.oas.annotations.info.License;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.openfeign.EnableFeignClients;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
-@EnableConfigurationProperties(value = AccountsContactInfoDTO.class)
+@EnableConfigurationProperties(value = {AccountsContactInfoDTO.class, AccountNumberProperties.class})
 @EnableFeignClients
+@EnableCaching
+@EnableScheduling
 @OpenAPIDefinition(info = @Info(title = "Accounts microservice REST API documentation", version = "1.0",
         description = "Documentation Account REST API",
         contact = @Contact(name = "Andrii Kuchera", email = "ak47.10.07.06@gmail.com", url = "https://github.com/andriik7"),
@@ -0,0 +1,15 @@
+package com.microservicesbank.accounts.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "accounts.account-number")
+@Getter @Setter
+public class AccountNumberProperties {
+
+    /**
+     * How many account numbers one instance reserves from account_number_sequence in a single round trip
+     */
+    private int blockSize = 100;
+}
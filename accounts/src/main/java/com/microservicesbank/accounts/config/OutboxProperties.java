@@ -0,0 +1,29 @@
+package com.microservicesbank.accounts.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Component("outboxProperties") //named so OutboxRelay can read the poll interval in its @Scheduled expression
+@ConfigurationProperties(prefix = "accounts.outbox")
+@Getter @Setter
+public class OutboxProperties {
+
+    /**
+     * Maximum number of outbox messages published before waiting for their publisher confirms
+     */
+    private int batchSize = 100;
+
+    /**
+     * How long the relay waits for the broker to confirm a batch, unconfirmed messages are retried on the next run
+     */
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+
+    /**
+     * How long the relay waits after a run before polling the outbox again
+     */
+    private Duration pollInterval = Duration.ofMillis(500);
+}
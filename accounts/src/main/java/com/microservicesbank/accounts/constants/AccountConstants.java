@@ -10,9 +10,12 @@ public final class AccountConstants {
     public static final String  MESSAGE_201 = "Account created successfully";
     public static final String  STATUS_200 = "200";
     public static final String  MESSAGE_200 = "Request processed successfully";
+    public static final String  STATUS_404 = "404";
+    public static final String  MESSAGE_404 = "Customer or account not found";
     public static final String  STATUS_417 = "417";
     public static final String  MESSAGE_417_UPDATE= "Update operation failed. Please try again or contact Dev team";
     public static final String  MESSAGE_417_DELETE= "Delete operation failed. Please try again or contact Dev team";
+    public static final int  MAX_BATCH_SIZE = 100;
     // public static final String  STATUS_500 = "500";
     // public static final String  MESSAGE_500 = "An error occurred. Please try again or contact Dev team";
 }
@@ -1,5 +1,7 @@
 package com.microservicesbank.accounts.controller;
 
+import com.microservicesbank.accounts.constants.AccountConstants;
+import com.microservicesbank.accounts.dto.CustomerDetailsBatchItemDTO;
 import com.microservicesbank.accounts.dto.CustomerDetailsDTO;
 import com.microservicesbank.accounts.dto.ErrorResponseDTO;
 import com.microservicesbank.accounts.service.ICustomerService;
@@ -10,7 +12,9 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -19,6 +23,10 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
 
 @Tag(
         name = "REST APIs for Accounts Microservice's Customer",
@@ -71,6 +79,68 @@ public class CustomerController {
                 .body(customerDetailsDTO);
     }
 
+    @Operation(summary = "Fetch customer details non-blocking REST API",
+            description = "Fetch customer details based on mobile number, the request thread is released while cards and loans are fetched")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "HTTP Status 200 OK"),
+            @ApiResponse(
+                    responseCode = "404",
+                    description = "HTTP Status 404 NOT FOUND",
+                    content = @Content(
+                            schema = @Schema(implementation = ErrorResponseDTO.class)))
+            ,
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "HTTP Status 500 INTERNAL SERVER ERROR",
+                    content = @Content(
+                            schema = @Schema(implementation = ErrorResponseDTO.class))
+            )
+    })
+    @RateLimiter(name = "fetchCustomerDetailsReactiveRateLimiter", fallbackMethod = "fetchCustomerDetailsReactiveRateLimiterFallback")
+    @GetMapping("/fetchCustomerDetailsReactive")
+    public Mono<ResponseEntity<CustomerDetailsDTO>> fetchCustomerDetailsReactive(@RequestHeader("microbank-correlation-id") String correlationId,
+                                                                                 @RequestParam @Pattern(regexp = "^\\d{10}$",
+                                                                                         message = "Mobile number must be 10 digits") String mobileNumber) {
+
+        logger.debug("fetchCustomerDetailsReactive() method started");
+        return customerService.fetchCustomerDetailsReactive(mobileNumber, correlationId)
+                              .map(customerDetailsDTO -> ResponseEntity
+                                      .status(HttpStatus.OK)
+                                      .body(customerDetailsDTO))
+                              .doOnSuccess(response -> logger.debug("fetchCustomerDetailsReactive() method ended"));
+    }
+
+    @Operation(summary = "Fetch customer details in batch REST API",
+            description = "Fetch customer details for a list of mobile numbers, results are keyed by mobile number")
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "HTTP Status 200 OK"),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "HTTP Status 500 INTERNAL SERVER ERROR",
+                    content = @Content(
+                            schema = @Schema(implementation = ErrorResponseDTO.class))
+            )
+    })
+    @RateLimiter(name = "fetchCustomerDetailsBatchRateLimiter", fallbackMethod = "fetchCustomerDetailsBatchRateLimiterFallback")
+    @PostMapping("/fetchCustomerDetailsBatch")
+    public ResponseEntity<Map<String, CustomerDetailsBatchItemDTO>> fetchCustomerDetailsBatch(
+            @RequestHeader("microbank-correlation-id") String correlationId,
+            @RequestBody @NotEmpty(message = "Mobile numbers cannot be empty")
+            @Size(max = AccountConstants.MAX_BATCH_SIZE, message = "Too many mobile numbers in one batch")
+            List<@Pattern(regexp = "^\\d{10}$", message = "Mobile number must be 10 digits") String> mobileNumbers) {
+
+        logger.debug("fetchCustomerDetailsBatch() method started for {} mobile numbers", mobileNumbers.size());
+        Map<String, CustomerDetailsBatchItemDTO> customerDetails = customerService.fetchCustomerDetailsBatch(mobileNumbers, correlationId);
+        logger.debug("fetchCustomerDetailsBatch() method ended");
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(customerDetails);
+    }
+
 //    public ResponseEntity<CustomerDetailsDTO> fetchCustomerDetailsAfterRetryFallback(@RequestHeader("microbank-correlation-id") String correlationId,
 //                                                                                     @RequestParam @Pattern(regexp = "^\\d{10}$",
 //                                                                                             message = "Mobile number must be 10 digits") String mobileNumber,
@@ -93,4 +163,24 @@ public class CustomerController {
                 .body("Cool down. You are trying to access the resource too frequently. Please wait some time and try again later.");
     }
 
+    public Mono<ResponseEntity<String>> fetchCustomerDetailsReactiveRateLimiterFallback(String correlationId,
+                                                                                        String mobileNumber,
+                                                                                        Throwable throwable) {
+
+        logger.debug("fetchCustomerDetailsReactiveRateLimiterFallback() method invoked");
+        return Mono.just(ResponseEntity
+                .status(HttpStatus.OK)
+                .body("Cool down. You are trying to access the resource too frequently. Please wait some time and try again later."));
+    }
+
+    public ResponseEntity<String> fetchCustomerDetailsBatchRateLimiterFallback(String correlationId,
+                                                                                List<String> mobileNumbers,
+                                                                                Throwable throwable) {
+
+        logger.debug("fetchCustomerDetailsBatchRateLimiterFallback() method invoked");
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body("Cool down. You are trying to access the resource too frequently. Please wait some time and try again later.");
+    }
+
 }
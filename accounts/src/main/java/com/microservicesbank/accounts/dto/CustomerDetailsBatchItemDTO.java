@@ -0,0 +1,31 @@
+package com.microservicesbank.accounts.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Schema(
+        name = "CustomerDetailsBatchItem",
+        description = "Schema to store the result of one mobile number in a batch customer details request"
+)
+@Data
+@AllArgsConstructor @NoArgsConstructor
+public class CustomerDetailsBatchItemDTO {
+
+    @Schema(
+            description = "Status code of the item, 200 if found or 404 if customer or account does not exist",
+            example = "200"
+    )
+    private String statusCode;
+
+    @Schema(
+            description = "Status message of the item"
+    )
+    private String statusMessage;
+
+    @Schema(
+            description = "Customer, Account, Cards and Loans details, empty if not found"
+    )
+    private CustomerDetailsDTO customerDetails;
+}
@@ -1,11 +1,17 @@
 package com.microservicesbank.accounts.functions;
 
 import com.microservicesbank.accounts.service.IAccountService;
+import com.microservicesbank.accounts.service.client.CardsCachingClient;
+import com.microservicesbank.accounts.service.client.LoansCachingClient;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.List;
 import java.util.function.Consumer;
 
 @Configuration
@@ -13,12 +19,45 @@ public class AccountsFunctions {
 
     private static final Logger log = LoggerFactory.getLogger(AccountsFunctions.class);
 
+    /**
+     * Batch consumer, the binder hands over up to batch-size account numbers collected within receive-timeout
+     */
     @Bean
-    public Consumer<Long> updateCommunication(IAccountService accountService) {
+    public Consumer<List<Long>> updateCommunication(IAccountService accountService, MeterRegistry meterRegistry) {
 
-        return accountNumber -> {
-          log.info("Updating communication status for account number: {}", accountNumber);
-          accountService.updateCommunicationStatus(accountNumber);
+        DistributionSummary batchSize = DistributionSummary.builder("accounts.communication.batch.size")
+                                                           .description("Account numbers received in one updateCommunication batch")
+                                                           .register(meterRegistry);
+        Timer batchDuration = Timer.builder("accounts.communication.batch.duration")
+                                   .description("Time to apply one updateCommunication batch")
+                                   .register(meterRegistry);
+        DistributionSummary accountsUpdated = DistributionSummary.builder("accounts.communication.batch.updated")
+                                                                 .description("Accounts updated by one updateCommunication batch")
+                                                                 .register(meterRegistry);
+
+        return accountNumbers -> {
+          log.info("Updating communication status for {} account numbers", accountNumbers.size());
+          batchSize.record(accountNumbers.size());
+          int updated = batchDuration.record(() -> accountService.updateCommunicationStatuses(accountNumbers));
+          accountsUpdated.record(updated);
+        };
+    }
+
+    @Bean
+    public Consumer<String> invalidateCard(CardsCachingClient cardsCachingClient) {
+
+        return mobileNumber -> {
+            log.debug("Evicting cached card details for mobile number: {}", mobileNumber);
+            cardsCachingClient.evict(mobileNumber);
+        };
+    }
+
+    @Bean
+    public Consumer<String> invalidateLoan(LoansCachingClient loansCachingClient) {
+
+        return mobileNumber -> {
+            log.debug("Evicting cached loan details for mobile number: {}", mobileNumber);
+            loansCachingClient.evict(mobileNumber);
         };
     }
 
@@ -2,6 +2,7 @@ package com.microservicesbank.accounts.mapper;
 
 import com.microservicesbank.accounts.dto.AccountDTO;
 import com.microservicesbank.accounts.model.Account;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
 
 public class AccountMapper {
 
@@ -14,6 +15,15 @@ public class AccountMapper {
         return accountDTO;
     }
 
+    public static AccountDTO mapToAccountDTO(CustomerAccountView customerAccountView, AccountDTO accountDTO) {
+
+        accountDTO.setAccountNumber(customerAccountView.accountNumber());
+        accountDTO.setAccountType(customerAccountView.accountType());
+        accountDTO.setBranchAddress(customerAccountView.branchAddress());
+
+        return accountDTO;
+    }
+
     public static Account mapToAccount(AccountDTO accountDTO, Account account) {
 
         account.setAccountNumber(accountDTO.getAccountNumber());
@@ -4,6 +4,7 @@ package com.microservicesbank.accounts.mapper;
 import com.microservicesbank.accounts.dto.CustomerDTO;
 import com.microservicesbank.accounts.dto.CustomerDetailsDTO;
 import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
 
 public class CustomerMapper {
 
@@ -16,6 +17,15 @@ public class CustomerMapper {
         return customerDTO;
     }
 
+    public static CustomerDTO mapToCustomerDTO(CustomerAccountView customerAccountView, CustomerDTO customerDTO) {
+
+        customerDTO.setName(customerAccountView.name());
+        customerDTO.setEmail(customerAccountView.email());
+        customerDTO.setMobileNumber(customerAccountView.mobileNumber());
+
+        return customerDTO;
+    }
+
     public static Customer mapToCustomer(CustomerDTO customerDTO, Customer customer) {
 
         customer.setName(customerDTO.getName());
@@ -33,4 +43,14 @@ public class CustomerMapper {
 
         return customerDetailsDTO;
     }
+
+    public static CustomerDetailsDTO mapToCustomerDetailsDTO(CustomerAccountView customerAccountView,
+                                                             CustomerDetailsDTO customerDetailsDTO) {
+
+        customerDetailsDTO.setName(customerAccountView.name());
+        customerDetailsDTO.setEmail(customerAccountView.email());
+        customerDetailsDTO.setMobileNumber(customerAccountView.mobileNumber());
+
+        return customerDetailsDTO;
+    }
 }
@@ -4,9 +4,12 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Account.CUSTOMER_ID_KEY, columnNames = "customer_id"))
 @Getter @Setter @ToString @AllArgsConstructor @NoArgsConstructor
 public class Account extends SuperEntity{
 
+    public static final String CUSTOMER_ID_KEY = "uk_account_customer_id";
+
     @Column(name = "customer_id", nullable = false)
     private Long customerId;
 
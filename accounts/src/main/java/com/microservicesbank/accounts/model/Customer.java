@@ -4,9 +4,12 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = Customer.MOBILE_NUMBER_KEY, columnNames = "mobile_number"))
 @Getter @Setter @ToString @AllArgsConstructor @NoArgsConstructor
 public class Customer extends SuperEntity {
 
+    public static final String MOBILE_NUMBER_KEY = "uk_customer_mobile_number";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
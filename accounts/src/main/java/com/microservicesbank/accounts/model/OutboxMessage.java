@@ -0,0 +1,34 @@
+package com.microservicesbank.accounts.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Message written in the same transaction as the business change and published later by the outbox relay
+ */
+@Entity
+@Table(name = "outbox_message")
+@Getter @Setter @ToString @NoArgsConstructor
+public class OutboxMessage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String destination;
+
+    @Column(nullable = false, length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxMessage(String destination, String payload) {
+        this.destination = destination;
+        this.payload = payload;
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -3,9 +3,13 @@ package com.microservicesbank.accounts.repository;
 import com.microservicesbank.accounts.model.Account;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,7 +17,14 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
 
     Optional<Account> findByCustomerId(Long customerId);
 
+    List<Account> findAllByCustomerIdIn(Collection<Long> customerIds);
+
     @Transactional
     @Modifying
     void deleteByCustomerId(Long customerId);
+
+    @Transactional
+    @Modifying
+    @Query("update Account a set a.communicationSw = true where a.accountNumber in :accountNumbers")
+    int updateCommunicationSwByAccountNumberIn(@Param("accountNumbers") Collection<Long> accountNumbers);
 }
@@ -0,0 +1,15 @@
+package com.microservicesbank.accounts.repository;
+
+/**
+ * Read-only projection of a customer joined with its account. Built by a JPQL constructor expression,
+ * so it never enters the persistence context and is not dirty-checked.
+ * Account fields are null when the customer has no account.
+ */
+public record CustomerAccountView(Long customerId,
+                                  String name,
+                                  String email,
+                                  String mobileNumber,
+                                  Long accountNumber,
+                                  String accountType,
+                                  String branchAddress) {
+}
@@ -2,12 +2,24 @@ package com.microservicesbank.accounts.repository;
 
 import com.microservicesbank.accounts.model.Customer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CustomerRepository extends JpaRepository<Customer, Long> {
 
     Optional<Customer> findByMobileNumber(String mobileNumber);
+
+    List<Customer> findAllByMobileNumberIn(Collection<String> mobileNumbers);
+
+    @Query("select new com.microservicesbank.accounts.repository.CustomerAccountView(" +
+           "c.id, c.name, c.email, c.mobileNumber, a.accountNumber, a.accountType, a.branchAddress) " +
+           "from Customer c left join Account a on a.customerId = c.id " +
+           "where c.mobileNumber = :mobileNumber")
+    Optional<CustomerAccountView> findCustomerAccountByMobileNumber(@Param("mobileNumber") String mobileNumber);
 }
@@ -0,0 +1,14 @@
+package com.microservicesbank.accounts.repository;
+
+import com.microservicesbank.accounts.model.OutboxMessage;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OutboxMessageRepository extends JpaRepository<OutboxMessage, Long> {
+
+    List<OutboxMessage> findAllByOrderByIdAsc(Pageable pageable);
+}
@@ -0,0 +1,78 @@
+package com.microservicesbank.accounts.service;
+
+import com.microservicesbank.accounts.config.AccountNumberProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out account numbers from blocks reserved in account_number_sequence.
+ * A block is reserved by bumping the shared counter in its own transaction, so blocks of different instances
+ * never overlap. Numbers inside a block are handed out with a single atomic increment, the lock is only taken
+ * by the thread that finds the current block exhausted. Unused numbers of a block are skipped on restart.
+ */
+@Component
+public class AccountNumberAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int blockSize;
+
+    private final Object refillLock = new Object();
+
+    private volatile Block block = new Block(0, 0);
+
+    public AccountNumberAllocator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                  AccountNumberProperties accountNumberProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = accountNumberProperties.getBlockSize();
+    }
+
+    public long nextAccountNumber() {
+
+        while (true) {
+            Block current = block;
+            long accountNumber = current.next.getAndIncrement();
+            if (accountNumber < current.end) {
+                return accountNumber;
+            }
+            synchronized (refillLock) {
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+
+        // the UPDATE row lock is held until commit, so the SELECT sees this instance's increment only
+        Long end = transactionTemplate.execute(status -> {
+            if (jdbcTemplate.update("UPDATE account_number_sequence SET next_val = next_val + ? WHERE id = 1", blockSize) != 1) {
+                throw new IllegalStateException("account_number_sequence is not seeded, see schema.sql");
+            }
+            return jdbcTemplate.queryForObject("SELECT next_val FROM account_number_sequence WHERE id = 1", Long.class);
+        });
+        return new Block(end - blockSize, end);
+    }
+
+    private static final class Block {
+
+        private final AtomicLong next;
+
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.microservicesbank.accounts.service;
 
 import com.microservicesbank.accounts.dto.CustomerDTO;
 
+import java.util.Collection;
+
 public interface IAccountService {
 
     /**
@@ -30,4 +32,12 @@ public interface IAccountService {
     boolean deleteAccount(String mobileNumber);
 
     boolean updateCommunicationStatus(Long accountNumber);
+
+    /**
+     * Marks communication as sent for several accounts with a single update statement
+     *
+     * @param accountNumbers Account numbers the communication was sent for
+     * @return number of accounts updated
+     */
+    int updateCommunicationStatuses(Collection<Long> accountNumbers);
 }
@@ -1,7 +1,13 @@
 package com.microservicesbank.accounts.service;
 
+import com.microservicesbank.accounts.dto.CustomerDetailsBatchItemDTO;
 import com.microservicesbank.accounts.dto.CustomerDetailsDTO;
 
+import java.util.List;
+import java.util.Map;
+
+import reactor.core.publisher.Mono;
+
 public interface ICustomerService {
 
     /**
@@ -13,4 +19,22 @@ public interface ICustomerService {
      */
     CustomerDetailsDTO fetchCustomerDetails(String mobileNumber, String correlationId);
 
+    /**
+     * Fetch customer details based on mobile number without blocking the calling thread
+     *
+     * @param mobileNumber
+     * @param correlationId
+     * @return Mono of CustomerDetailsDTO, errors with ResourceNotFoundException if customer or account does not exist
+     */
+    Mono<CustomerDetailsDTO> fetchCustomerDetailsReactive(String mobileNumber, String correlationId);
+
+    /**
+     * Fetch customer details for several mobile numbers at once
+     *
+     * @param mobileNumbers
+     * @param correlationId
+     * @return CustomerDetailsBatchItemDTO for every requested mobile number, keyed by mobile number
+     */
+    Map<String, CustomerDetailsBatchItemDTO> fetchCustomerDetailsBatch(List<String> mobileNumbers, String correlationId);
+
 }
@@ -0,0 +1,120 @@
+package com.microservicesbank.accounts.service;
+
+import com.microservicesbank.accounts.config.OutboxProperties;
+import com.microservicesbank.accounts.model.OutboxMessage;
+import com.microservicesbank.accounts.repository.OutboxMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Publishes outbox messages in batches. All messages of a batch are sent before any publisher confirm is awaited,
+ * and only confirmed messages are deleted, so delivery is at-least-once: a crash between confirm and delete,
+ * or two instances relaying the same rows, can publish a message twice. Every copy carries the outbox id
+ * as its AMQP message id so consumers can recognise the duplicate.
+ */
+@Component
+public class OutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxMessageRepository outboxMessageRepository;
+
+    private final StreamBridge streamBridge;
+
+    private final OutboxProperties outboxProperties;
+
+    public OutboxRelay(OutboxMessageRepository outboxMessageRepository, StreamBridge streamBridge,
+                       OutboxProperties outboxProperties) {
+        this.outboxMessageRepository = outboxMessageRepository;
+        this.streamBridge = streamBridge;
+        this.outboxProperties = outboxProperties;
+    }
+
+    @Scheduled(fixedDelayString = "#{@outboxProperties.pollInterval.toMillis()}")
+    public void relay() {
+
+        int published;
+        do {
+            published = relayBatch();
+        } while (published == outboxProperties.getBatchSize());
+    }
+
+    /**
+     * @return number of messages confirmed by the broker and removed from the outbox
+     */
+    public int relayBatch() {
+
+        List<OutboxMessage> batch = outboxMessageRepository.findAllByOrderByIdAsc(
+                PageRequest.of(0, outboxProperties.getBatchSize()));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        Map<Long, CorrelationData> pendingConfirms = new LinkedHashMap<>();
+        for (OutboxMessage outboxMessage : batch) {
+            CorrelationData correlationData = new CorrelationData(outboxMessage.getId().toString());
+            Message<byte[]> message = MessageBuilder.withPayload(outboxMessage.getPayload().getBytes(StandardCharsets.UTF_8))
+                                                    .setHeader(MessageHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                                    .setHeader(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION, correlationData)
+                                                    .setHeader(AmqpHeaders.MESSAGE_ID, "outbox-" + outboxMessage.getId())
+                                                    .build();
+            try {
+                if (streamBridge.send(outboxMessage.getDestination(), message)) {
+                    pendingConfirms.put(outboxMessage.getId(), correlationData);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not publish outbox message {}, will retry: {}", outboxMessage.getId(), e.getMessage());
+                break;
+            }
+        }
+
+        List<Long> confirmed = awaitConfirms(pendingConfirms);
+        if (!confirmed.isEmpty()) {
+            outboxMessageRepository.deleteAllByIdInBatch(confirmed);
+        }
+        log.debug("Relayed {} of {} outbox messages", confirmed.size(), batch.size());
+        return confirmed.size();
+    }
+
+    private List<Long> awaitConfirms(Map<Long, CorrelationData> pendingConfirms) {
+
+        long deadline = System.nanoTime() + outboxProperties.getConfirmTimeout().toNanos();
+        List<Long> confirmed = new ArrayList<>(pendingConfirms.size());
+        for (Map.Entry<Long, CorrelationData> pending : pendingConfirms.entrySet()) {
+            try {
+                CorrelationData.Confirm confirm = pending.getValue().getFuture()
+                                                         .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (confirm.isAck()) {
+                    confirmed.add(pending.getKey());
+                } else {
+                    log.warn("Outbox message {} was nacked by the broker: {}", pending.getKey(), confirm.getReason());
+                }
+            } catch (TimeoutException | ExecutionException e) {
+                log.warn("No publisher confirm for outbox message {}, will retry", pending.getKey());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return confirmed;
+    }
+}
@@ -0,0 +1,38 @@
+package com.microservicesbank.accounts.service.client;
+
+import com.microservicesbank.accounts.dto.CardDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+/**
+ * Near-cache in front of {@link CardsFeignClient}. Entries are bounded and expire by TTL (spring.cache.caffeine.spec),
+ * and are evicted as soon as the cards microservice publishes a card-changed event for the mobile number.
+ * Fallback (null) responses are never cached.
+ */
+@Component
+@AllArgsConstructor
+public class CardsCachingClient {
+
+    public static final String CACHE_NAME = "cards";
+
+    private CardsFeignClient cardsFeignClient;
+
+    private MeterRegistry meterRegistry;
+
+    @Cacheable(cacheNames = CACHE_NAME, key = "#mobileNumber", unless = "#result == null")
+    public CardDTO fetchCardDetails(String correlationId, String mobileNumber) {
+
+        ResponseEntity<CardDTO> response = cardsFeignClient.fetchCardDetails(correlationId, mobileNumber);
+        return response != null ? response.getBody() : null;
+    }
+
+    @CacheEvict(cacheNames = CACHE_NAME, key = "#mobileNumber")
+    public void evict(String mobileNumber) {
+        meterRegistry.counter("accounts.nearcache.invalidations", "cache", CACHE_NAME).increment();
+    }
+
+}
@@ -4,6 +4,9 @@ import com.microservicesbank.accounts.dto.CardDTO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class CardsFallback implements CardsFeignClient {
 
@@ -12,4 +15,9 @@ public class CardsFallback implements CardsFeignClient {
         return null;
     }
 
+    @Override
+    public ResponseEntity<Map<String, CardDTO>> fetchCardDetailsBatch(String correlationId, List<String> mobileNumbers) {
+        return null;
+    }
+
 }
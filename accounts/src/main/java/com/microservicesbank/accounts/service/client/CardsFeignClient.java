@@ -4,9 +4,14 @@ import com.microservicesbank.accounts.dto.CardDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "cards", fallback = CardsFallback.class)
 public interface CardsFeignClient {
 
@@ -14,4 +19,8 @@ public interface CardsFeignClient {
     public ResponseEntity<CardDTO> fetchCardDetails(@RequestHeader("microbank-correlation-id") String correlationId,
                                                     @RequestParam String mobileNumber);
 
+    @PostMapping(value = "/api/fetchCardsBatch", consumes = "application/json")
+    public ResponseEntity<Map<String, CardDTO>> fetchCardDetailsBatch(@RequestHeader("microbank-correlation-id") String correlationId,
+                                                                      @RequestBody List<String> mobileNumbers);
+
 }
@@ -0,0 +1,41 @@
+package com.microservicesbank.accounts.service.client;
+
+import com.microservicesbank.accounts.dto.CardDTO;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link CardsFeignClient}. Any failure or open circuit completes empty,
+ * which is what {@link CardsFallback} does for the Feign client (customer details are returned without cards).
+ */
+@Component
+public class CardsReactiveClient {
+
+    private static final String CIRCUIT_BREAKER_NAME = "cardsReactiveClient";
+
+    private final WebClient webClient;
+
+    private final ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory;
+
+    public CardsReactiveClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory) {
+        this.webClient = webClientBuilder.baseUrl("http://cards").build();
+        this.circuitBreakerFactory = circuitBreakerFactory;
+    }
+
+    public Mono<CardDTO> fetchCardDetails(String correlationId, String mobileNumber) {
+
+        Mono<CardDTO> call = webClient.get()
+                                      .uri(uriBuilder -> uriBuilder.path("/api/fetchCard")
+                                                                   .queryParam("mobileNumber", mobileNumber)
+                                                                   .build())
+                                      .header("microbank-correlation-id", correlationId)
+                                      .accept(MediaType.APPLICATION_JSON)
+                                      .retrieve()
+                                      .bodyToMono(CardDTO.class);
+        return circuitBreakerFactory.create(CIRCUIT_BREAKER_NAME).run(call, throwable -> Mono.empty());
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.microservicesbank.accounts.service.client;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.MDC;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs blocking downstream calls (Feign clients) on virtual threads so that several of them
+ * can be in flight at the same time without tying up Tomcat worker threads.
+ * The MDC of the calling thread is copied onto the virtual thread, trace context is carried over
+ * by the OpenTelemetry agent's executor instrumentation.
+ */
+@Component
+public class DownstreamCallExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public <T> CompletableFuture<T> supplyAsync(Supplier<T> call) {
+
+        Map<String, String> callerContext = MDC.getCopyOfContextMap();
+        return CompletableFuture.supplyAsync(() -> {
+            if (callerContext != null) {
+                MDC.setContextMap(callerContext);
+            }
+            try {
+                return call.get();
+            } finally {
+                MDC.clear();
+            }
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.close();
+    }
+}
@@ -4,6 +4,9 @@ import com.microservicesbank.accounts.dto.LoanDTO;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+import java.util.Map;
+
 @Component
 public class LoansFallback implements LoansFeignClient {
 
@@ -12,4 +15,9 @@ public class LoansFallback implements LoansFeignClient {
         return null;
     }
 
+    @Override
+    public ResponseEntity<Map<String, LoanDTO>> fetchLoanDetailsBatch(String correlationId, List<String> mobileNumbers) {
+        return null;
+    }
+
 }
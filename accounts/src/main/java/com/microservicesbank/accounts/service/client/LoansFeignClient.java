@@ -4,9 +4,14 @@ import com.microservicesbank.accounts.dto.LoanDTO;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+import java.util.Map;
+
 @FeignClient(name = "loans", fallback = LoansFallback.class)
 public interface LoansFeignClient {
 
@@ -14,4 +19,8 @@ public interface LoansFeignClient {
     public ResponseEntity<LoanDTO> fetchLoanDetails(@RequestHeader("microbank-correlation-id") String correlationId,
                                                     @RequestParam String mobileNumber);
 
+    @PostMapping(value = "/api/fetchLoansBatch", consumes = "application/json")
+    public ResponseEntity<Map<String, LoanDTO>> fetchLoanDetailsBatch(@RequestHeader("microbank-correlation-id") String correlationId,
+                                                                      @RequestBody List<String> mobileNumbers);
+
 }
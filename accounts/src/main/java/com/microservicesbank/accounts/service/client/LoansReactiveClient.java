@@ -0,0 +1,41 @@
+package com.microservicesbank.accounts.service.client;
+
+import com.microservicesbank.accounts.dto.LoanDTO;
+import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link LoansFeignClient}. Any failure or open circuit completes empty,
+ * which is what {@link LoansFallback} does for the Feign client (customer details are returned without loans).
+ */
+@Component
+public class LoansReactiveClient {
+
+    private static final String CIRCUIT_BREAKER_NAME = "loansReactiveClient";
+
+    private final WebClient webClient;
+
+    private final ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory;
+
+    public LoansReactiveClient(WebClient.Builder webClientBuilder, ReactiveCircuitBreakerFactory<?, ?> circuitBreakerFactory) {
+        this.webClient = webClientBuilder.baseUrl("http://loans").build();
+        this.circuitBreakerFactory = circuitBreakerFactory;
+    }
+
+    public Mono<LoanDTO> fetchLoanDetails(String correlationId, String mobileNumber) {
+
+        Mono<LoanDTO> call = webClient.get()
+                                      .uri(uriBuilder -> uriBuilder.path("/api/fetchLoan")
+                                                                   .queryParam("mobileNumber", mobileNumber)
+                                                                   .build())
+                                      .header("microbank-correlation-id", correlationId)
+                                      .accept(MediaType.APPLICATION_JSON)
+                                      .retrieve()
+                                      .bodyToMono(LoanDTO.class);
+        return circuitBreakerFactory.create(CIRCUIT_BREAKER_NAME).run(call, throwable -> Mono.empty());
+    }
+
+}
@@ -1,5 +1,7 @@
 package com.microservicesbank.accounts.service.impl;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microservicesbank.accounts.constants.AccountConstants;
 import com.microservicesbank.accounts.dto.AccountDTO;
 import com.microservicesbank.accounts.dto.AccountsMessageDTO;
@@ -10,16 +12,26 @@ import com.microservicesbank.accounts.mapper.AccountMapper;
 import com.microservicesbank.accounts.mapper.CustomerMapper;
 import com.microservicesbank.accounts.model.Account;
 import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.model.OutboxMessage;
 import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
 import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.repository.OutboxMessageRepository;
+import com.microservicesbank.accounts.service.AccountNumberAllocator;
 import com.microservicesbank.accounts.service.IAccountService;
 import lombok.AllArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Random;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -29,42 +41,70 @@ public class AccountServiceImpl implements IAccountService {
 
     private AccountRepository accountRepository;
     private CustomerRepository customerRepository;
-    private StreamBridge streamBridge;
+    private OutboxMessageRepository outboxMessageRepository;
+    private ObjectMapper objectMapper;
+    private AccountNumberAllocator accountNumberAllocator;
 
     @Override
+    @Transactional
     public void createAccount(CustomerDTO customerDTO) {
 
         Customer customer = CustomerMapper.mapToCustomer(customerDTO, new Customer());
-        if (customerRepository.findByMobileNumber(customer.getMobileNumber()).isPresent()) {
+        // insert first, the unique index on mobile_number detects duplicates even under concurrent creates
+        Customer savedCustomer;
+        try {
+            savedCustomer = customerRepository.saveAndFlush(customer);
+        } catch (DataIntegrityViolationException e) {
+            if (!violates(e, Customer.MOBILE_NUMBER_KEY)) {
+                throw e;
+            }
             throw new CustomerAlreadyExistsException(
                     "Customer already exists with mobile number " + customer.getMobileNumber());
         }
-        Customer savedCustomer = customerRepository.save(customer);
 
         Account savedAccount = accountRepository.save(createNewAccount(savedCustomer));
         sendCommunication(savedAccount, savedCustomer);
     }
 
+    /**
+     * Tells which unique constraint an insert violated, other integrity violations match none.
+     * The database may qualify or suffix the name, e.g. PUBLIC.UK_CUSTOMER_MOBILE_NUMBER_INDEX_5 on H2.
+     */
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint);
+    }
+
+    /**
+     * Writes the communication request to the outbox in the caller's transaction, OutboxRelay publishes it
+     */
     private void sendCommunication(Account account, Customer customer) {
 
         AccountsMessageDTO accountsMessageDTO = new AccountsMessageDTO(account.getAccountNumber(), customer.getName(),
                                                                        customer.getEmail(), customer.getMobileNumber());
-        log.info("Sending connection request with data: {}", accountsMessageDTO);
-        boolean result = streamBridge.send("sendCommunication-out-0", accountsMessageDTO);
-        log.info("Result of communication is {}", result ? "positive" : "negative");
+        log.info("Queueing connection request with data: {}", accountsMessageDTO);
+        try {
+            outboxMessageRepository.save(new OutboxMessage("sendCommunication-out-0",
+                                                           objectMapper.writeValueAsString(accountsMessageDTO)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize communication request " + accountsMessageDTO, e);
+        }
     }
 
     @Override
     public CustomerDTO fetchAccount(String mobileNumber) {
 
-        Customer customer = customerRepository.findByMobileNumber(mobileNumber).orElseThrow(
+        // one joined statement instead of customer + account lookups, the projection is not a managed entity
+        CustomerAccountView customerAccountView = customerRepository.findCustomerAccountByMobileNumber(mobileNumber).orElseThrow(
                 () -> new ResourceNotFoundException("Customer", "mobileNumber", mobileNumber));
+        if (customerAccountView.accountNumber() == null) {
+            throw new ResourceNotFoundException("Account", "customerId", customerAccountView.customerId().toString());
+        }
 
-        Account account = accountRepository.findByCustomerId(customer.getId()).orElseThrow(
-                () -> new ResourceNotFoundException("Account", "customerId", customer.getId().toString()));
-
-        CustomerDTO customerDTO = CustomerMapper.mapToCustomerDTO(customer, new CustomerDTO());
-        customerDTO.setAccountDto(AccountMapper.mapToAccountDTO(account, new AccountDTO()));
+        CustomerDTO customerDTO = CustomerMapper.mapToCustomerDTO(customerAccountView, new CustomerDTO());
+        customerDTO.setAccountDto(AccountMapper.mapToAccountDTO(customerAccountView, new AccountDTO()));
         return customerDTO;
     }
 
@@ -117,12 +157,23 @@ public class AccountServiceImpl implements IAccountService {
         return isUpdated;
     }
 
+    @Override
+    public int updateCommunicationStatuses(Collection<Long> accountNumbers) {
+
+        Set<Long> distinctAccountNumbers = accountNumbers.stream()
+                                                         .filter(Objects::nonNull)
+                                                         .collect(Collectors.toSet());
+        if (distinctAccountNumbers.isEmpty()) {
+            return 0;
+        }
+        return accountRepository.updateCommunicationSwByAccountNumberIn(distinctAccountNumbers);
+    }
+
     private Account createNewAccount(Customer customer) {
 
         Account account = new Account();
         account.setCustomerId(customer.getId());
-        long randomAccNumber = 1000000000L + new Random().nextInt(900000000);
-        account.setAccountNumber(randomAccNumber);
+        account.setAccountNumber(accountNumberAllocator.nextAccountNumber());
         account.setAccountType(AccountConstants.SAVINGS);
         account.setBranchAddress(AccountConstants.ADDRESS);
         return account;
@@ -1,5 +1,6 @@
 package com.microservicesbank.accounts.service.impl;
 
+import com.microservicesbank.accounts.constants.AccountConstants;
 import com.microservicesbank.accounts.dto.*;
 import com.microservicesbank.accounts.exception.ResourceNotFoundException;
 import com.microservicesbank.accounts.mapper.AccountMapper;
@@ -7,13 +8,26 @@ import com.microservicesbank.accounts.mapper.CustomerMapper;
 import com.microservicesbank.accounts.model.Account;
 import com.microservicesbank.accounts.model.Customer;
 import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
 import com.microservicesbank.accounts.repository.CustomerRepository;
 import com.microservicesbank.accounts.service.ICustomerService;
+import com.microservicesbank.accounts.service.client.CardsCachingClient;
 import com.microservicesbank.accounts.service.client.CardsFeignClient;
+import com.microservicesbank.accounts.service.client.CardsReactiveClient;
+import com.microservicesbank.accounts.service.client.DownstreamCallExecutor;
+import com.microservicesbank.accounts.service.client.LoansCachingClient;
 import com.microservicesbank.accounts.service.client.LoansFeignClient;
+import com.microservicesbank.accounts.service.client.LoansReactiveClient;
 import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @AllArgsConstructor
@@ -27,28 +41,134 @@ public class CustomerServiceImpl implements ICustomerService {
 
     private LoansFeignClient loansFeignClient;
 
+    private CardsCachingClient cardsCachingClient;
+
+    private LoansCachingClient loansCachingClient;
+
+    private CardsReactiveClient cardsReactiveClient;
+
+    private LoansReactiveClient loansReactiveClient;
+
+    private DownstreamCallExecutor downstreamCallExecutor;
+
     @Override
     public CustomerDetailsDTO fetchCustomerDetails(String mobileNumber, String correlationId) {
 
-        Customer customer = customerRepository.findByMobileNumber(mobileNumber)
-                                              .orElseThrow(() -> new ResourceNotFoundException("Customer", "mobileNumber", mobileNumber));
-        CustomerDetailsDTO customerDetailsDTO = CustomerMapper.mapToCustomerDetailsDTO(customer, new CustomerDetailsDTO());
+        // cards and loans are requested up front so they run while the local lookup is in progress
+        CompletableFuture<CardDTO> cardFuture = downstreamCallExecutor.supplyAsync(
+                () -> cardsCachingClient.fetchCardDetails(correlationId, mobileNumber));
+        CompletableFuture<LoanDTO> loanFuture = downstreamCallExecutor.supplyAsync(
+                () -> loansCachingClient.fetchLoanDetails(correlationId, mobileNumber));
 
-        Account account = accountRepository.findByCustomerId(customer.getId())
-                                           .orElseThrow(() -> new ResourceNotFoundException("Account", "customerId", customer.getId().toString()));
-        AccountDTO accountDTO = AccountMapper.mapToAccountDTO(account, new AccountDTO());
-        customerDetailsDTO.setAccountDto(accountDTO);
+        CustomerDetailsDTO customerDetailsDTO;
+        try {
+            customerDetailsDTO = fetchLocalDetails(mobileNumber);
+        } catch (RuntimeException e) {
+            cardFuture.cancel(true);
+            loanFuture.cancel(true);
+            throw e;
+        }
+
+        customerDetailsDTO.setCardDto(join(cardFuture));
+        customerDetailsDTO.setLoanDto(join(loanFuture));
 
-        ResponseEntity<CardDTO> cardResponse = cardsFeignClient.fetchCardDetails(correlationId, mobileNumber);
-        if (cardResponse != null) {
-            customerDetailsDTO.setCardDto(cardResponse.getBody());
+        return customerDetailsDTO;
+    }
+
+    @Override
+    public Mono<CustomerDetailsDTO> fetchCustomerDetailsReactive(String mobileNumber, String correlationId) {
+
+        // JPA is blocking, so the local lookup runs on a virtual thread; cards and loans hold no thread while waiting
+        Mono<CustomerDetailsDTO> localDetails = Mono.fromFuture(
+                () -> downstreamCallExecutor.supplyAsync(() -> fetchLocalDetails(mobileNumber)));
+        Mono<Optional<CardDTO>> card = cardsReactiveClient.fetchCardDetails(correlationId, mobileNumber)
+                                                          .map(Optional::of)
+                                                          .defaultIfEmpty(Optional.empty());
+        Mono<Optional<LoanDTO>> loan = loansReactiveClient.fetchLoanDetails(correlationId, mobileNumber)
+                                                          .map(Optional::of)
+                                                          .defaultIfEmpty(Optional.empty());
+
+        return Mono.zip(localDetails, card, loan)
+                   .map(details -> {
+                       CustomerDetailsDTO customerDetailsDTO = details.getT1();
+                       customerDetailsDTO.setCardDto(details.getT2().orElse(null));
+                       customerDetailsDTO.setLoanDto(details.getT3().orElse(null));
+                       return customerDetailsDTO;
+                   });
+    }
+
+    @Override
+    public Map<String, CustomerDetailsBatchItemDTO> fetchCustomerDetailsBatch(List<String> mobileNumbers, String correlationId) {
+
+        List<String> distinctMobileNumbers = List.copyOf(new LinkedHashSet<>(mobileNumbers));
+
+        CompletableFuture<ResponseEntity<Map<String, CardDTO>>> cardsFuture = downstreamCallExecutor.supplyAsync(
+                () -> cardsFeignClient.fetchCardDetailsBatch(correlationId, distinctMobileNumbers));
+        CompletableFuture<ResponseEntity<Map<String, LoanDTO>>> loansFuture = downstreamCallExecutor.supplyAsync(
+                () -> loansFeignClient.fetchLoanDetailsBatch(correlationId, distinctMobileNumbers));
+
+        List<Customer> customers = customerRepository.findAllByMobileNumberIn(distinctMobileNumbers);
+        Map<Long, Account> accountsByCustomerId = customers.isEmpty() ? Map.of() :
+                accountRepository.findAllByCustomerIdIn(customers.stream().map(Customer::getId).toList())
+                                 .stream()
+                                 .collect(Collectors.toMap(Account::getCustomerId, Function.identity(), (first, second) -> first));
+        Map<String, Customer> customersByMobileNumber = customers.stream()
+                .collect(Collectors.toMap(Customer::getMobileNumber, Function.identity(), (first, second) -> first));
+
+        Map<String, CardDTO> cards = bodyOrEmpty(join(cardsFuture));
+        Map<String, LoanDTO> loans = bodyOrEmpty(join(loansFuture));
+
+        Map<String, CustomerDetailsBatchItemDTO> result = new LinkedHashMap<>();
+        for (String mobileNumber : distinctMobileNumbers) {
+            Customer customer = customersByMobileNumber.get(mobileNumber);
+            Account account = customer == null ? null : accountsByCustomerId.get(customer.getId());
+            if (account == null) {
+                result.put(mobileNumber, new CustomerDetailsBatchItemDTO(AccountConstants.STATUS_404,
+                                                                         AccountConstants.MESSAGE_404, null));
+                continue;
+            }
+            CustomerDetailsDTO customerDetailsDTO = CustomerMapper.mapToCustomerDetailsDTO(customer, new CustomerDetailsDTO());
+            customerDetailsDTO.setAccountDto(AccountMapper.mapToAccountDTO(account, new AccountDTO()));
+            customerDetailsDTO.setCardDto(cards.get(mobileNumber));
+            customerDetailsDTO.setLoanDto(loans.get(mobileNumber));
+            result.put(mobileNumber, new CustomerDetailsBatchItemDTO(AccountConstants.STATUS_200,
+                                                                     AccountConstants.MESSAGE_200, customerDetailsDTO));
         }
+        return result;
+    }
+
+    private CustomerDetailsDTO fetchLocalDetails(String mobileNumber) {
 
-        ResponseEntity<LoanDTO> loanResponse = loansFeignClient.fetchLoanDetails(correlationId, mobileNumber);
-        if (loanResponse != null) {
-            customerDetailsDTO.setLoanDto(loanResponse.getBody());
+        CustomerAccountView customerAccountView = customerRepository.findCustomerAccountByMobileNumber(mobileNumber)
+                                                                    .orElseThrow(() -> new ResourceNotFoundException("Customer", "mobileNumber", mobileNumber));
+        if (customerAccountView.accountNumber() == null) {
+            throw new ResourceNotFoundException("Account", "customerId", customerAccountView.customerId().toString());
         }
 
+        CustomerDetailsDTO customerDetailsDTO = CustomerMapper.mapToCustomerDetailsDTO(customerAccountView, new CustomerDetailsDTO());
+        AccountDTO accountDTO = AccountMapper.mapToAccountDTO(customerAccountView, new AccountDTO());
+        customerDetailsDTO.setAccountDto(accountDTO);
+
         return customerDetailsDTO;
     }
+
+    private static <T> Map<String, T> bodyOrEmpty(ResponseEntity<Map<String, T>> response) {
+
+        if (response == null || response.getBody() == null) {
+            return Map.of();
+        }
+        return response.getBody();
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
 }
@@ -6,17 +6,41 @@ CREATE TABLE IF NOT EXISTS `customer` (
   `created_at` date NOT NULL,
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
-  `updated_by` varchar(20) DEFAULT NULL
+  `updated_by` varchar(20) DEFAULT NULL,
+  CONSTRAINT `uk_customer_mobile_number` UNIQUE (`mobile_number`)
 );
 
 CREATE TABLE IF NOT EXISTS `account` (
   `customer_id` int NOT NULL,
-  `account_number` int AUTO_INCREMENT  PRIMARY KEY,
+  `account_number` bigint AUTO_INCREMENT  PRIMARY KEY,
   `account_type` varchar(100) NOT NULL,
   `branch_address` varchar(200) NOT NULL,
   `communication_sw` BOOLEAN DEFAULT FALSE,
   `created_at` date NOT NULL,
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
-  `updated_by` varchar(20) DEFAULT NULL
-);
\ No newline at end of file
+  `updated_by` varchar(20) DEFAULT NULL,
+  CONSTRAINT `uk_account_customer_id` UNIQUE (`customer_id`)
+);
+
+-- a single row, the fixed key keeps instances starting together from seeding it twice
+CREATE TABLE IF NOT EXISTS `account_number_sequence` (
+  `id` tinyint NOT NULL PRIMARY KEY CHECK (`id` = 1),
+  `next_val` bigint NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS `outbox_message` (
+  `id` bigint AUTO_INCREMENT  PRIMARY KEY,
+  `destination` varchar(255) NOT NULL,
+  `payload` varchar(2000) NOT NULL,
+  `created_at` datetime NOT NULL
+);
+
+-- accounts created before the sequence got random numbers from 1000000000 to 1899999999, allocation starts above them
+INSERT IGNORE INTO `account_number_sequence` (`id`, `next_val`)
+SELECT 1, GREATEST(COALESCE(MAX(`account_number`) + 1, 1000000000), 1000000000) FROM `account`;
+
+-- a sequence seeded before the existing accounts were taken into account is moved past them
+UPDATE `account_number_sequence`
+SET `next_val` = (SELECT MAX(`account_number`) + 1 FROM `account`)
+WHERE `id` = 1 AND `next_val` <= (SELECT MAX(`account_number`) FROM `account`);
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.dto.CustomerDTO;
+import com.microservicesbank.accounts.exception.CustomerAlreadyExistsException;
+import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.repository.OutboxMessageRepository;
+import com.microservicesbank.accounts.service.IAccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class AccountConcurrentCreateTest {
+
+    private static final int MOBILE_NUMBERS = 20;
+
+    private static final int ATTEMPTS_PER_MOBILE_NUMBER = 8;
+
+    @Autowired
+    private IAccountService accountService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @MockBean
+    private StreamBridge streamBridge;
+
+    @AfterEach
+    public void tearDown() {
+        outboxMessageRepository.deleteAll();
+        accountRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentCreatesForSameMobileNumberCreateExactlyOneCustomer() throws Exception {
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // one platform thread per attempt and fewer threads than pooled connections, so every attempt holds a
+        // connection while it races and none waits for one; the attempts for a mobile number are released together
+        try (ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS_PER_MOBILE_NUMBER)) {
+            for (int i = 0; i < MOBILE_NUMBERS; i++) {
+                String mobileNumber = String.format("05%08d", i);
+                CountDownLatch startGate = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_MOBILE_NUMBER; attempt++) {
+                    futures.add(executor.submit(() -> {
+                        startGate.await();
+                        try {
+                            CustomerDTO customerDTO = new CustomerDTO();
+                            customerDTO.setName("John Doe");
+                            customerDTO.setEmail("john@doe.com");
+                            customerDTO.setMobileNumber(mobileNumber);
+                            accountService.createAccount(customerDTO);
+                            created.incrementAndGet();
+                        } catch (CustomerAlreadyExistsException e) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                startGate.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+        }
+
+        List<Customer> customers = customerRepository.findAll();
+        long duplicates = customers.size() - customers.stream().map(Customer::getMobileNumber).distinct().count();
+
+        assertEquals(MOBILE_NUMBERS, created.get());
+        assertEquals(MOBILE_NUMBERS * (ATTEMPTS_PER_MOBILE_NUMBER - 1), rejected.get());
+        assertEquals(0, duplicates);
+        assertEquals(MOBILE_NUMBERS, accountRepository.count());
+        assertEquals(MOBILE_NUMBERS, outboxMessageRepository.count());
+    }
+}
@@ -0,0 +1,155 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.config.AccountNumberProperties;
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.service.AccountNumberAllocator;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Two allocators play two accounts instances sharing one database, both are hammered by onboarding threads
+ */
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+public class AccountNumberAllocatorTest {
+
+    private static final int THREADS = 16;
+
+    private static final int ALLOCATIONS_PER_THREAD = 5_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void allocatorsSharingSequenceNeverCollide() throws Exception {
+        AllocationResult perNumber = allocate(1, ALLOCATIONS_PER_THREAD / 10);
+        AllocationResult perBlock = allocate(100, ALLOCATIONS_PER_THREAD);
+
+        System.out.printf("account numbers block-size=1:   allocations=%d elapsed=%dms throughput=%d/s db round trips=%d%n",
+                          perNumber.allocations, perNumber.elapsedMs, perNumber.throughput(), perNumber.roundTrips);
+        System.out.printf("account numbers block-size=100: allocations=%d elapsed=%dms throughput=%d/s db round trips=%d%n",
+                          perBlock.allocations, perBlock.elapsedMs, perBlock.throughput(), perBlock.roundTrips);
+
+        assertEquals(perNumber.allocations, perNumber.distinct);
+        assertEquals(perBlock.allocations, perBlock.distinct);
+        // each of the two instances may leave at most one partially used block behind
+        assertTrue(perBlock.roundTrips <= perBlock.allocations / 100 + 2);
+        assertTrue(perBlock.throughput() > perNumber.throughput());
+    }
+
+    @Test
+    public void accountNumbersHaveTenDigits() {
+        AccountNumberAllocator allocator = newAllocator(100);
+
+        long accountNumber = allocator.nextAccountNumber();
+
+        assertEquals(10, Long.toString(accountNumber).length());
+    }
+
+    @Test
+    public void sequenceStartsAboveAccountsNumberedBeforeIt() {
+        long existingAccountNumber = 1_500_000_000L;
+        jdbcTemplate.update("INSERT INTO account (customer_id, account_number, account_type, branch_address, created_at, created_by) "
+                                    + "VALUES (?, ?, 'Savings', '123 Main Street, New York', CURRENT_DATE, 'ACCOUNTS_MS')",
+                            Integer.MAX_VALUE, existingAccountNumber);
+        try {
+            // first start after the upgrade, the sequence table is still empty
+            jdbcTemplate.update("DELETE FROM account_number_sequence");
+            runSchemaScript();
+            assertEquals(existingAccountNumber + 1, currentSequence());
+
+            // sequence seeded at the bottom of the range before the existing accounts were considered
+            jdbcTemplate.update("UPDATE account_number_sequence SET next_val = 1000000000");
+            runSchemaScript();
+            assertEquals(existingAccountNumber + 1, currentSequence());
+
+            assertTrue(newAllocator(100).nextAccountNumber() > existingAccountNumber);
+        } finally {
+            jdbcTemplate.update("DELETE FROM account WHERE account_number = ?", existingAccountNumber);
+        }
+    }
+
+    @Test
+    public void sequenceKeepsASingleRowWhenSeededAgain() {
+        runSchemaScript();
+        runSchemaScript();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM account_number_sequence", Integer.class));
+        assertThrows(DataIntegrityViolationException.class,
+                     () -> jdbcTemplate.update("INSERT INTO account_number_sequence (id, next_val) VALUES (2, 1000000000)"));
+    }
+
+    private void runSchemaScript() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(jdbcTemplate.getDataSource());
+    }
+
+    private AllocationResult allocate(int blockSize, int allocationsPerThread) throws Exception {
+        List<AccountNumberAllocator> instances = List.of(newAllocator(blockSize), newAllocator(blockSize));
+        Set<Long> accountNumbers = ConcurrentHashMap.newKeySet();
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        long sequenceBefore = currentSequence();
+
+        long start;
+        try (ExecutorService executor = Executors.newFixedThreadPool(THREADS)) {
+            for (int thread = 0; thread < THREADS; thread++) {
+                AccountNumberAllocator allocator = instances.get(thread % instances.size());
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    for (int i = 0; i < allocationsPerThread; i++) {
+                        accountNumbers.add(allocator.nextAccountNumber());
+                    }
+                    return null;
+                }));
+            }
+            start = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        long roundTrips = (currentSequence() - sequenceBefore) / blockSize;
+        return new AllocationResult(THREADS * allocationsPerThread, accountNumbers.size(), elapsedMs, roundTrips);
+    }
+
+    private AccountNumberAllocator newAllocator(int blockSize) {
+        AccountNumberProperties accountNumberProperties = new AccountNumberProperties();
+        accountNumberProperties.setBlockSize(blockSize);
+        return new AccountNumberAllocator(jdbcTemplate, transactionManager, accountNumberProperties);
+    }
+
+    private long currentSequence() {
+        return jdbcTemplate.queryForObject("SELECT next_val FROM account_number_sequence WHERE id = 1", Long.class);
+    }
+
+    private record AllocationResult(int allocations, int distinct, long elapsedMs, long roundTrips) {
+
+        long throughput() {
+            return allocations * 1000L / elapsedMs;
+        }
+    }
+}
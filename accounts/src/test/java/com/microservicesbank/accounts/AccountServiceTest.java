@@ -1,5 +1,6 @@
 package com.microservicesbank.accounts;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.microservicesbank.accounts.display.CamelCaseDisplay;
 import com.microservicesbank.accounts.dto.AccountDTO;
 import com.microservicesbank.accounts.dto.CustomerDTO;
@@ -7,21 +8,32 @@ import com.microservicesbank.accounts.exception.CustomerAlreadyExistsException;
 import com.microservicesbank.accounts.exception.ResourceNotFoundException;
 import com.microservicesbank.accounts.model.Account;
 import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.model.OutboxMessage;
 import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
 import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.repository.OutboxMessageRepository;
+import com.microservicesbank.accounts.service.AccountNumberAllocator;
 import com.microservicesbank.accounts.service.impl.AccountServiceImpl;
 import jakarta.transaction.Transactional;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -40,6 +52,15 @@ public class AccountServiceTest {
     @Mock
     private CustomerRepository customerRepository;
 
+    @Mock
+    private AccountNumberAllocator accountNumberAllocator;
+
+    @Mock
+    private OutboxMessageRepository outboxMessageRepository;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private AccountServiceImpl accountService;
 
@@ -48,16 +69,36 @@ public class AccountServiceTest {
         CustomerDTO customerDTO = new CustomerDTO();
         customerDTO.setMobileNumber("1234567890");
 
-        when(customerRepository.findByMobileNumber(anyString())).thenReturn(Optional.of(new Customer()));
+        when(customerRepository.saveAndFlush(any(Customer.class)))
+                .thenThrow(violationOf("PUBLIC.UK_CUSTOMER_MOBILE_NUMBER_INDEX_5"));
 
         assertThrows(CustomerAlreadyExistsException.class, () -> {
             accountService.createAccount(customerDTO);
         });
 
-        verify(customerRepository, times(1)).findByMobileNumber(anyString());
+        verify(customerRepository, never()).findByMobileNumber(anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
+    @Test
+    public void testCreateAccountRethrowsOtherIntegrityViolations() {
+        CustomerDTO customerDTO = new CustomerDTO();
+        customerDTO.setMobileNumber("1234567890");
+        DataIntegrityViolationException notNull = violationOf(null);
+
+        when(customerRepository.saveAndFlush(any(Customer.class))).thenThrow(notNull);
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class, () -> {
+            accountService.createAccount(customerDTO);
+        }));
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+
     @Test
     public void testCreateAccountSuccess() {
         CustomerDTO customerDTO = new CustomerDTO();
@@ -66,12 +107,16 @@ public class AccountServiceTest {
         Customer customer = new Customer();
         customer.setId(1L);
 
-        when(customerRepository.findByMobileNumber(anyString())).thenReturn(Optional.empty());
-        when(customerRepository.save(any(Customer.class))).thenReturn(customer);
+        when(customerRepository.saveAndFlush(any(Customer.class))).thenReturn(customer);
+        when(accountNumberAllocator.nextAccountNumber()).thenReturn(1000000000L);
+        when(accountRepository.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         accountService.createAccount(customerDTO);
 
-        verify(customerRepository, times(1)).findByMobileNumber(anyString());
+        verify(customerRepository, times(1)).saveAndFlush(any(Customer.class));
+        verify(outboxMessageRepository, times(1)).save(argThat((OutboxMessage outboxMessage) ->
+                "sendCommunication-out-0".equals(outboxMessage.getDestination())
+                && outboxMessage.getPayload().contains("1000000000")));
         verify(accountRepository, times(1)).save(any(Account.class));
     }
 
@@ -81,35 +126,50 @@ public class AccountServiceTest {
             "0987654321"
     })
     public void testFetchAccountSuccess(String mobileNumber) {
-        Customer customer = new Customer();
-        customer.setId(1L);
-        Account account = new Account();
-        account.setCustomerId(1L);
+        CustomerAccountView customerAccountView = new CustomerAccountView(1L, "John Doe", "john@doe.com", mobileNumber,
+                                                                          1234567890L, "Savings", "Main Street");
 
-        when(customerRepository.findByMobileNumber(mobileNumber)).thenReturn(Optional.of(customer));
-        when(accountRepository.findByCustomerId(anyLong())).thenReturn(Optional.of(account));
+        when(customerRepository.findCustomerAccountByMobileNumber(mobileNumber)).thenReturn(Optional.of(customerAccountView));
 
         CustomerDTO result = accountService.fetchAccount(mobileNumber);
 
         assertNotNull(result);
-        verify(customerRepository, times(1)).findByMobileNumber(mobileNumber);
-        verify(accountRepository, times(1)).findByCustomerId(anyLong());
+        assertEquals(mobileNumber, result.getMobileNumber());
+        assertEquals(1234567890L, result.getAccountDto().getAccountNumber());
+        verify(customerRepository, times(1)).findCustomerAccountByMobileNumber(mobileNumber);
+        verify(customerRepository, never()).findByMobileNumber(anyString());
+        verify(accountRepository, never()).findByCustomerId(anyLong());
     }
 
     @Test
     public void testFetchAccountCustomerNotFoundThrowsException() {
         String mobileNumber = "1234567890";
 
-        when(customerRepository.findByMobileNumber(anyString())).thenReturn(Optional.empty());
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.empty());
 
         assertThrows(ResourceNotFoundException.class, () -> {
             accountService.fetchAccount(mobileNumber);
         });
 
-        verify(customerRepository, times(1)).findByMobileNumber(anyString());
+        verify(customerRepository, times(1)).findCustomerAccountByMobileNumber(anyString());
         verify(accountRepository, never()).findByCustomerId(anyLong());
     }
 
+    @Test
+    public void testFetchAccountAccountNotFoundThrowsException() {
+        String mobileNumber = "1234567890";
+        CustomerAccountView customerWithoutAccount = new CustomerAccountView(1L, "John Doe", "john@doe.com", mobileNumber,
+                                                                             null, null, null);
+
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.of(customerWithoutAccount));
+
+        ResourceNotFoundException exception = assertThrows(ResourceNotFoundException.class, () -> {
+            accountService.fetchAccount(mobileNumber);
+        });
+
+        assertTrue(exception.getMessage().startsWith("Account"));
+    }
+
     @Test
     public void testUpdateAccountSuccess() {
         AccountDTO accountDTO = new AccountDTO();
@@ -182,4 +242,24 @@ public class AccountServiceTest {
         verify(customerRepository, times(1)).findByMobileNumber(anyString());
         verify(accountRepository, never()).deleteByCustomerId(anyLong());
     }
+
+    @Test
+    public void testUpdateCommunicationStatusesUsesSingleUpdate() {
+        when(accountRepository.updateCommunicationSwByAccountNumberIn(anyCollection())).thenReturn(2);
+
+        int updated = accountService.updateCommunicationStatuses(Arrays.asList(1000000001L, null, 1000000002L, 1000000001L));
+
+        assertEquals(2, updated);
+        verify(accountRepository, times(1)).updateCommunicationSwByAccountNumberIn(Set.of(1000000001L, 1000000002L));
+        verify(accountRepository, never()).findById(anyLong());
+        verify(accountRepository, never()).save(any(Account.class));
+    }
+
+    @Test
+    public void testUpdateCommunicationStatusesEmptyBatchSkipsUpdate() {
+        int updated = accountService.updateCommunicationStatuses(List.of());
+
+        assertEquals(0, updated);
+        verify(accountRepository, never()).updateCommunicationSwByAccountNumberIn(anyCollection());
+    }
 }
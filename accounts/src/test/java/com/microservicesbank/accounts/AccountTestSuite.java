@@ -6,7 +6,14 @@ import org.junit.platform.suite.api.Suite;
 @Suite
 @SelectClasses({
     AccountServiceTest.class,
-    AccountControllerTest.class
+    AccountControllerTest.class,
+    CustomerServiceTest.class,
+    CustomerAccountReadPathTest.class,
+    AccountConcurrentCreateTest.class,
+    AccountNumberAllocatorTest.class,
+    OutboxRelayTest.class,
+    CachingClientTest.class,
+    CustomerDetailsReactiveEndpointTest.class
 })
 public class AccountTestSuite {
 }
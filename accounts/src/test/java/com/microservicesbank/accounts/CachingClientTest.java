@@ -0,0 +1,167 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.dto.CardDTO;
+import com.microservicesbank.accounts.dto.LoanDTO;
+import com.microservicesbank.accounts.functions.AccountsFunctions;
+import com.microservicesbank.accounts.service.IAccountService;
+import com.microservicesbank.accounts.service.client.CardsCachingClient;
+import com.microservicesbank.accounts.service.client.CardsFeignClient;
+import com.microservicesbank.accounts.service.client.LoansCachingClient;
+import com.microservicesbank.accounts.service.client.LoansFeignClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the near-caches in a Spring context, so the {@code @Cacheable}/{@code @CacheEvict} proxies are in place
+ */
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringJUnitConfig(CachingClientTest.CachingConfig.class)
+public class CachingClientTest {
+
+    private static final String MOBILE_NUMBER = "0666992283";
+
+    @Autowired
+    private CardsCachingClient cardsCachingClient;
+
+    @Autowired
+    private LoansCachingClient loansCachingClient;
+
+    @Autowired
+    private CardsFeignClient cardsFeignClient;
+
+    @Autowired
+    private LoansFeignClient loansFeignClient;
+
+    @Autowired
+    private Consumer<String> invalidateCard;
+
+    @Autowired
+    private Consumer<String> invalidateLoan;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @BeforeEach
+    public void setUp() {
+        reset(cardsFeignClient, loansFeignClient);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    public void repeatedLookupIsServedFromTheCache() {
+        when(cardsFeignClient.fetchCardDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(ResponseEntity.ok(card()));
+        when(loansFeignClient.fetchLoanDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(ResponseEntity.ok(loan()));
+
+        CardDTO first = cardsCachingClient.fetchCardDetails("correlation-1", MOBILE_NUMBER);
+        CardDTO second = cardsCachingClient.fetchCardDetails("correlation-2", MOBILE_NUMBER);
+        loansCachingClient.fetchLoanDetails("correlation-1", MOBILE_NUMBER);
+        loansCachingClient.fetchLoanDetails("correlation-2", MOBILE_NUMBER);
+
+        assertSame(first, second);
+        verify(cardsFeignClient, times(1)).fetchCardDetails(anyString(), eq(MOBILE_NUMBER));
+        verify(loansFeignClient, times(1)).fetchLoanDetails(anyString(), eq(MOBILE_NUMBER));
+    }
+
+    @Test
+    public void cardChangedAndLoanChangedEventsEvictTheEntries() {
+        when(cardsFeignClient.fetchCardDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(ResponseEntity.ok(card()));
+        when(loansFeignClient.fetchLoanDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(ResponseEntity.ok(loan()));
+        cardsCachingClient.fetchCardDetails("correlation-1", MOBILE_NUMBER);
+        loansCachingClient.fetchLoanDetails("correlation-1", MOBILE_NUMBER);
+
+        invalidateCard.accept(MOBILE_NUMBER);
+        invalidateLoan.accept(MOBILE_NUMBER);
+        cardsCachingClient.fetchCardDetails("correlation-2", MOBILE_NUMBER);
+        loansCachingClient.fetchLoanDetails("correlation-2", MOBILE_NUMBER);
+
+        verify(cardsFeignClient, times(2)).fetchCardDetails(anyString(), eq(MOBILE_NUMBER));
+        verify(loansFeignClient, times(2)).fetchLoanDetails(anyString(), eq(MOBILE_NUMBER));
+    }
+
+    @Test
+    public void fallbackResponsesAreNotCached() {
+        when(cardsFeignClient.fetchCardDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(null, ResponseEntity.ok(card()));
+        when(loansFeignClient.fetchLoanDetails(anyString(), eq(MOBILE_NUMBER))).thenReturn(ResponseEntity.ok().build(),
+                                                                                        ResponseEntity.ok(loan()));
+
+        assertNull(cardsCachingClient.fetchCardDetails("correlation-1", MOBILE_NUMBER));
+        assertNull(loansCachingClient.fetchLoanDetails("correlation-1", MOBILE_NUMBER));
+
+        assertNotNull(cardsCachingClient.fetchCardDetails("correlation-2", MOBILE_NUMBER));
+        assertNotNull(loansCachingClient.fetchLoanDetails("correlation-2", MOBILE_NUMBER));
+    }
+
+    @Test
+    public void failedLookupIsNotCached() {
+        when(cardsFeignClient.fetchCardDetails(anyString(), eq(MOBILE_NUMBER)))
+                .thenThrow(new IllegalStateException("cards unavailable"))
+                .thenReturn(ResponseEntity.ok(card()));
+
+        assertThrows(IllegalStateException.class, () -> cardsCachingClient.fetchCardDetails("correlation-1", MOBILE_NUMBER));
+
+        assertNotNull(cardsCachingClient.fetchCardDetails("correlation-2", MOBILE_NUMBER));
+        verify(cardsFeignClient, times(2)).fetchCardDetails(anyString(), eq(MOBILE_NUMBER));
+    }
+
+    private static CardDTO card() {
+        CardDTO cardDTO = new CardDTO();
+        cardDTO.setMobileNumber(MOBILE_NUMBER);
+        return cardDTO;
+    }
+
+    private static LoanDTO loan() {
+        LoanDTO loanDTO = new LoanDTO();
+        loanDTO.setMobileNumber(MOBILE_NUMBER);
+        return loanDTO;
+    }
+
+    @Configuration
+    @EnableCaching
+    @Import({CardsCachingClient.class, LoansCachingClient.class, AccountsFunctions.class})
+    static class CachingConfig {
+
+        @Bean
+        public CacheManager cacheManager() {
+            return new CaffeineCacheManager(CardsCachingClient.CACHE_NAME, LoansCachingClient.CACHE_NAME);
+        }
+
+        @Bean
+        public CardsFeignClient cardsFeignClient() {
+            return mock(CardsFeignClient.class);
+        }
+
+        @Bean
+        public LoansFeignClient loansFeignClient() {
+            return mock(LoansFeignClient.class);
+        }
+
+        @Bean
+        public IAccountService accountService() {
+            return mock(IAccountService.class);
+        }
+
+        @Bean
+        public MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.dto.AccountDTO;
+import com.microservicesbank.accounts.dto.CustomerDTO;
+import com.microservicesbank.accounts.mapper.AccountMapper;
+import com.microservicesbank.accounts.mapper.CustomerMapper;
+import com.microservicesbank.accounts.model.Account;
+import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.service.IAccountService;
+import com.microservicesbank.accounts.service.OutboxRelay;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the joined projection read path of fetchAccount with the previous customer + account lookups
+ * by SQL statements, entities loaded into a persistence context and latency per request
+ */
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true", "spring.jpa.show-sql=false"})
+public class CustomerAccountReadPathTest {
+
+    private static final String MOBILE_NUMBER = "0666992283";
+    private static final int WARMUP_ITERATIONS = 200;
+    private static final int ITERATIONS = 1000;
+
+    @Autowired
+    private IAccountService accountService;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    // keeps the scheduled outbox polling out of the statement counts
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    public void setUp() {
+        Customer customer = new Customer();
+        customer.setName("John Doe");
+        customer.setEmail("john@doe.com");
+        customer.setMobileNumber(MOBILE_NUMBER);
+        Customer savedCustomer = customerRepository.save(customer);
+
+        Account account = new Account();
+        account.setAccountNumber(1234567890L);
+        account.setCustomerId(savedCustomer.getId());
+        account.setAccountType("Savings");
+        account.setBranchAddress("123 Main Street, New York");
+        accountRepository.save(account);
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountRepository.deleteAll();
+        customerRepository.deleteAll();
+    }
+
+    @Test
+    public void fetchAccountUsesOneStatementAndNoManagedEntities() {
+        ReadPathResult twoLookups = measure(this::fetchAccountWithTwoLookups);
+        ReadPathResult joinedProjection = measure(() -> accountService.fetchAccount(MOBILE_NUMBER));
+
+        System.out.printf("fetchAccount two lookups:       statements/request=%.2f entities/request=%.2f p50=%dus p99=%dus%n",
+                          twoLookups.statementsPerRequest, twoLookups.entitiesPerRequest, twoLookups.p50Micros, twoLookups.p99Micros);
+        System.out.printf("fetchAccount joined projection: statements/request=%.2f entities/request=%.2f p50=%dus p99=%dus%n",
+                          joinedProjection.statementsPerRequest, joinedProjection.entitiesPerRequest,
+                          joinedProjection.p50Micros, joinedProjection.p99Micros);
+
+        assertEquals(2.0, twoLookups.statementsPerRequest);
+        assertEquals(2.0, twoLookups.entitiesPerRequest);
+        assertEquals(1.0, joinedProjection.statementsPerRequest);
+        assertEquals(0.0, joinedProjection.entitiesPerRequest);
+    }
+
+    @Test
+    public void fetchAccountReturnsSameResultAsTwoLookups() {
+        CustomerDTO expected = fetchAccountWithTwoLookups();
+        CustomerDTO actual = accountService.fetchAccount(MOBILE_NUMBER);
+
+        assertEquals(expected, actual);
+    }
+
+    private CustomerDTO fetchAccountWithTwoLookups() {
+        Customer customer = customerRepository.findByMobileNumber(MOBILE_NUMBER).orElseThrow();
+        Account account = accountRepository.findByCustomerId(customer.getId()).orElseThrow();
+
+        CustomerDTO customerDTO = CustomerMapper.mapToCustomerDTO(customer, new CustomerDTO());
+        customerDTO.setAccountDto(AccountMapper.mapToAccountDTO(account, new AccountDTO()));
+        return customerDTO;
+    }
+
+    private ReadPathResult measure(Supplier<CustomerDTO> readPath) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            assertNotNull(readPath.get());
+        }
+
+        statistics.clear();
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            assertNotNull(readPath.get());
+            latencies[i] = (System.nanoTime() - start) / 1_000;
+        }
+        Arrays.sort(latencies);
+        return new ReadPathResult((double) statistics.getPrepareStatementCount() / ITERATIONS,
+                                  (double) statistics.getEntityLoadCount() / ITERATIONS,
+                                  latencies[ITERATIONS / 2],
+                                  latencies[ITERATIONS * 99 / 100]);
+    }
+
+    private record ReadPathResult(double statementsPerRequest, double entitiesPerRequest, long p50Micros, long p99Micros) {
+    }
+}
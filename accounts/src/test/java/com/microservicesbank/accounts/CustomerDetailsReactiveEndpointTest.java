@@ -0,0 +1,189 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.dto.CardDTO;
+import com.microservicesbank.accounts.dto.CustomerDetailsDTO;
+import com.microservicesbank.accounts.dto.LoanDTO;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
+import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.service.OutboxRelay;
+import com.microservicesbank.accounts.service.client.CardsReactiveClient;
+import com.microservicesbank.accounts.service.client.LoansReactiveClient;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Drives /api/fetchCustomerDetailsReactive through the running server with slow cards and loans.
+ * Request threads are counted by a servlet filter, so virtual threads count as well: a request holds its thread
+ * only until the controller returned the Mono, the wait for the downstreams must not hold one.
+ */
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.com.microservicesbank.accounts=INFO",
+        "resilience4j.ratelimiter.instances.fetchCustomerDetailsReactiveRateLimiter.limitForPeriod=100000"})
+public class CustomerDetailsReactiveEndpointTest {
+
+    private static final String MOBILE_NUMBER = "0666992283";
+    private static final int CONCURRENT_REQUESTS = 300;
+    private static final long[] DOWNSTREAM_DELAYS_MS = {100, 400};
+
+    private static final AtomicInteger requestThreadsInUse = new AtomicInteger();
+    private static final AtomicInteger peakRequestThreads = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private CustomerRepository customerRepository;
+
+    @MockBean
+    private CardsReactiveClient cardsReactiveClient;
+
+    @MockBean
+    private LoansReactiveClient loansReactiveClient;
+
+    @MockBean
+    private OutboxRelay outboxRelay;
+
+    private volatile long downstreamDelayMs;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    public void setUp() {
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.of(
+                new CustomerAccountView(1L, "John Doe", "john@doe.com", MOBILE_NUMBER, 1234567890L, "Savings",
+                                        "123 Main Street, New York")));
+        // answered on a timer, like a non-blocking client waiting for a slow service
+        when(cardsReactiveClient.fetchCardDetails(anyString(), anyString())).thenAnswer(invocation -> delayed(() -> {
+            CardDTO cardDTO = new CardDTO();
+            cardDTO.setMobileNumber(invocation.getArgument(1));
+            return cardDTO;
+        }));
+        when(loansReactiveClient.fetchLoanDetails(anyString(), anyString())).thenAnswer(invocation -> delayed(() -> {
+            LoanDTO loanDTO = new LoanDTO();
+            loanDTO.setMobileNumber(invocation.getArgument(1));
+            return loanDTO;
+        }));
+
+        // one connection per concurrent request, the default pool would queue them on the client side
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("fetchCustomerDetailsReactive")
+                                                                  .maxConnections(CONCURRENT_REQUESTS)
+                                                                  .pendingAcquireMaxCount(-1)
+                                                                  .build();
+        webTestClient = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                                     .baseUrl("http://localhost:" + port)
+                                     .responseTimeout(Duration.ofSeconds(30))
+                                     .build();
+    }
+
+    @Test
+    public void requestThreadsStayFlatWhileDownstreamLatencyRises() {
+        downstreamDelayMs = DOWNSTREAM_DELAYS_MS[0];
+        runConcurrently(CONCURRENT_REQUESTS);
+
+        int[] peakThreads = new int[DOWNSTREAM_DELAYS_MS.length];
+        long[] throughput = new long[DOWNSTREAM_DELAYS_MS.length];
+        long[] elapsedMs = new long[DOWNSTREAM_DELAYS_MS.length];
+        for (int i = 0; i < DOWNSTREAM_DELAYS_MS.length; i++) {
+            downstreamDelayMs = DOWNSTREAM_DELAYS_MS[i];
+            peakRequestThreads.set(0);
+
+            long start = System.nanoTime();
+            runConcurrently(CONCURRENT_REQUESTS);
+            elapsedMs[i] = (System.nanoTime() - start) / 1_000_000;
+
+            peakThreads[i] = peakRequestThreads.get();
+            throughput[i] = CONCURRENT_REQUESTS * 1000L / elapsedMs[i];
+            // a thread-per-request model would need CONCURRENT_REQUESTS threads
+            assertTrue(peakThreads[i] < CONCURRENT_REQUESTS / 10,
+                       peakThreads[i] + " request threads in use at once, downstream " + downstreamDelayMs + "ms");
+        }
+        String measured = "downstream " + DOWNSTREAM_DELAYS_MS[0] + "ms: " + elapsedMs[0] + "ms, " + throughput[0]
+                + " req/s; downstream " + DOWNSTREAM_DELAYS_MS[1] + "ms: " + elapsedMs[1] + "ms, " + throughput[1] + " req/s";
+        assertTrue(Math.abs(peakThreads[1] - peakThreads[0]) < CONCURRENT_REQUESTS / 10);
+        // all requests wait for the slower downstream at the same time, so the extra delay is paid about once
+        assertTrue(elapsedMs[1] - elapsedMs[0] < 2 * (DOWNSTREAM_DELAYS_MS[1] - DOWNSTREAM_DELAYS_MS[0]), measured);
+        assertTrue(throughput[1] > throughput[0] / 2, measured);
+    }
+
+    /**
+     * WebTestClient blocks until the response arrives, each request waits on a virtual thread of its own
+     */
+    private void runConcurrently(int requests) {
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            Scheduler scheduler = Schedulers.fromExecutor(clients);
+            Flux.range(0, requests)
+                .flatMap(i -> Mono.fromCallable(() -> webTestClient.get()
+                                                                   .uri("/api/fetchCustomerDetailsReactive?mobileNumber={mobileNumber}",
+                                                                        MOBILE_NUMBER)
+                                                                   .header("microbank-correlation-id", "load-" + i)
+                                                                   .exchange()
+                                                                   .expectStatus().isOk()
+                                                                   .expectBody(CustomerDetailsDTO.class)
+                                                                   .returnResult()
+                                                                   .getResponseBody())
+                                  .subscribeOn(scheduler), requests)
+                .doOnNext(customerDetailsDTO -> {
+                    assertNotNull(customerDetailsDTO.getCardDto());
+                    assertNotNull(customerDetailsDTO.getLoanDto());
+                })
+                .blockLast();
+        }
+    }
+
+    private <T> Mono<T> delayed(Supplier<T> body) {
+        return Mono.delay(Duration.ofMillis(downstreamDelayMs)).map(tick -> body.get());
+    }
+
+    @TestConfiguration
+    static class RequestThreadCounting {
+
+        /**
+         * The servlet container thread is in the filter chain until the controller handed the Mono to the async dispatch
+         */
+        @Bean
+        public FilterRegistrationBean<Filter> requestThreadCountingFilter() {
+            Filter filter = (request, response, chain) -> {
+                peakRequestThreads.accumulateAndGet(requestThreadsInUse.incrementAndGet(), Math::max);
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    requestThreadsInUse.decrementAndGet();
+                }
+            };
+            return new FilterRegistrationBean<>(filter);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.constants.AccountConstants;
+import com.microservicesbank.accounts.dto.CardDTO;
+import com.microservicesbank.accounts.dto.CustomerDetailsBatchItemDTO;
+import com.microservicesbank.accounts.dto.CustomerDetailsDTO;
+import com.microservicesbank.accounts.dto.LoanDTO;
+import com.microservicesbank.accounts.exception.ResourceNotFoundException;
+import com.microservicesbank.accounts.model.Account;
+import com.microservicesbank.accounts.model.Customer;
+import com.microservicesbank.accounts.repository.AccountRepository;
+import com.microservicesbank.accounts.repository.CustomerAccountView;
+import com.microservicesbank.accounts.repository.CustomerRepository;
+import com.microservicesbank.accounts.service.client.CardsCachingClient;
+import com.microservicesbank.accounts.service.client.CardsFeignClient;
+import com.microservicesbank.accounts.service.client.CardsReactiveClient;
+import com.microservicesbank.accounts.service.client.DownstreamCallExecutor;
+import com.microservicesbank.accounts.service.client.LoansCachingClient;
+import com.microservicesbank.accounts.service.client.LoansFeignClient;
+import com.microservicesbank.accounts.service.client.LoansReactiveClient;
+import com.microservicesbank.accounts.service.impl.CustomerServiceImpl;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
+import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(CamelCaseDisplay.class)
+public class CustomerServiceTest {
+
+    private static final String MOBILE_NUMBER = "0666992283";
+    private static final long CARDS_DELAY_MS = 150;
+    private static final long LOANS_DELAY_MS = 200;
+    private static final int WARMUP_ITERATIONS = 3;
+    private static final int ITERATIONS = 20;
+
+    private AccountRepository accountRepository;
+    private CustomerRepository customerRepository;
+    private CardsFeignClient cardsFeignClient;
+    private LoansFeignClient loansFeignClient;
+    private DownstreamCallExecutor downstreamCallExecutor;
+    private CustomerServiceImpl customerService;
+
+    @BeforeEach
+    public void setUp() {
+        accountRepository = mock(AccountRepository.class);
+        customerRepository = mock(CustomerRepository.class);
+        cardsFeignClient = mock(CardsFeignClient.class);
+        loansFeignClient = mock(LoansFeignClient.class);
+        downstreamCallExecutor = new DownstreamCallExecutor();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        when(cardsFeignClient.fetchCardDetails(anyString(), anyString())).thenAnswer(invocation -> {
+            sleep(CARDS_DELAY_MS);
+            CardDTO cardDTO = new CardDTO();
+            cardDTO.setMobileNumber(invocation.getArgument(1));
+            return ResponseEntity.ok(cardDTO);
+        });
+        when(loansFeignClient.fetchLoanDetails(anyString(), anyString())).thenAnswer(invocation -> {
+            sleep(LOANS_DELAY_MS);
+            LoanDTO loanDTO = new LoanDTO();
+            loanDTO.setMobileNumber(invocation.getArgument(1));
+            return ResponseEntity.ok(loanDTO);
+        });
+
+        customerService = new CustomerServiceImpl(accountRepository, customerRepository, cardsFeignClient,
+                                                  loansFeignClient,
+                                                  new CardsCachingClient(cardsFeignClient, meterRegistry),
+                                                  new LoansCachingClient(loansFeignClient, meterRegistry),
+                                                  new CardsReactiveClient(delayedWebClient(), circuitBreakerFactory()),
+                                                  new LoansReactiveClient(delayedWebClient(), circuitBreakerFactory()),
+                                                  downstreamCallExecutor);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        downstreamCallExecutor.shutdown();
+    }
+
+    @Test
+    public void fetchCustomerDetailsLatencyIsBoundBySlowestDownstream() {
+        stubExistingCustomer();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            customerService.fetchCustomerDetails(MOBILE_NUMBER, "warmup");
+        }
+
+        long[] latencies = new long[ITERATIONS];
+        for (int i = 0; i < ITERATIONS; i++) {
+            long start = System.nanoTime();
+            CustomerDetailsDTO customerDetailsDTO = customerService.fetchCustomerDetails(MOBILE_NUMBER, "benchmark");
+            latencies[i] = (System.nanoTime() - start) / 1_000_000;
+
+            assertNotNull(customerDetailsDTO.getAccountDto());
+            assertNotNull(customerDetailsDTO.getCardDto());
+            assertNotNull(customerDetailsDTO.getLoanDto());
+        }
+        Arrays.sort(latencies);
+        long p50 = latencies[ITERATIONS / 2];
+        long p99 = latencies[ITERATIONS - 1];
+        System.out.printf("fetchCustomerDetails: cards=%dms loans=%dms -> p50=%dms p99=%dms (sequential would be >= %dms)%n",
+                          CARDS_DELAY_MS, LOANS_DELAY_MS, p50, p99, CARDS_DELAY_MS + LOANS_DELAY_MS);
+
+        assertTrue(p50 >= LOANS_DELAY_MS);
+        assertTrue(p99 < CARDS_DELAY_MS + LOANS_DELAY_MS);
+    }
+
+    @Test
+    public void fetchCustomerDetailsReactiveFallsBackToEmptyCardsAndLoans() {
+        stubExistingCustomer();
+        WebClient.Builder failingWebClientBuilder = WebClient.builder()
+                                                      .exchangeFunction(request -> Mono.error(new IllegalStateException("downstream is down")));
+        CustomerServiceImpl failingDownstreamService = new CustomerServiceImpl(
+                accountRepository, customerRepository, cardsFeignClient, loansFeignClient,
+                new CardsCachingClient(cardsFeignClient, new SimpleMeterRegistry()),
+                new LoansCachingClient(loansFeignClient, new SimpleMeterRegistry()),
+                new CardsReactiveClient(failingWebClientBuilder, circuitBreakerFactory()),
+                new LoansReactiveClient(failingWebClientBuilder, circuitBreakerFactory()),
+                downstreamCallExecutor);
+
+        CustomerDetailsDTO customerDetailsDTO = failingDownstreamService.fetchCustomerDetailsReactive(MOBILE_NUMBER, "fallback")
+                                                                        .block();
+
+        assertNotNull(customerDetailsDTO);
+        assertNotNull(customerDetailsDTO.getAccountDto());
+        assertNull(customerDetailsDTO.getCardDto());
+        assertNull(customerDetailsDTO.getLoanDto());
+    }
+
+    @Test
+    public void fetchCustomerDetailsReactiveCustomerNotFoundSignalsException() {
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                     () -> customerService.fetchCustomerDetailsReactive(MOBILE_NUMBER, "reactive").block());
+    }
+
+    @Test
+    public void fetchCustomerDetailsCustomerNotFoundThrowsException() {
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class,
+                     () -> customerService.fetchCustomerDetails(MOBILE_NUMBER, "benchmark"));
+    }
+
+    @Test
+    public void fetchCustomerDetailsBatchUsesOneQueryAndOneDownstreamCallPerBatch() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setMobileNumber(MOBILE_NUMBER);
+        Account account = new Account();
+        account.setAccountNumber(1234567890L);
+        account.setCustomerId(1L);
+        CardDTO cardDTO = new CardDTO();
+        cardDTO.setMobileNumber(MOBILE_NUMBER);
+
+        when(customerRepository.findAllByMobileNumberIn(anyCollection())).thenReturn(List.of(customer));
+        when(accountRepository.findAllByCustomerIdIn(anyCollection())).thenReturn(List.of(account));
+        when(cardsFeignClient.fetchCardDetailsBatch(anyString(), anyList()))
+                .thenReturn(ResponseEntity.ok(Map.of(MOBILE_NUMBER, cardDTO)));
+        when(loansFeignClient.fetchLoanDetailsBatch(anyString(), anyList())).thenReturn(null);
+
+        Map<String, CustomerDetailsBatchItemDTO> result = customerService.fetchCustomerDetailsBatch(
+                List.of(MOBILE_NUMBER, "0111111111", MOBILE_NUMBER), "batch");
+
+        assertEquals(List.of(MOBILE_NUMBER, "0111111111"), List.copyOf(result.keySet()));
+        assertEquals(AccountConstants.STATUS_200, result.get(MOBILE_NUMBER).getStatusCode());
+        assertEquals(cardDTO, result.get(MOBILE_NUMBER).getCustomerDetails().getCardDto());
+        assertNull(result.get(MOBILE_NUMBER).getCustomerDetails().getLoanDto());
+        assertEquals(AccountConstants.STATUS_404, result.get("0111111111").getStatusCode());
+        assertNull(result.get("0111111111").getCustomerDetails());
+
+        verify(customerRepository, times(1)).findAllByMobileNumberIn(anyCollection());
+        verify(accountRepository, times(1)).findAllByCustomerIdIn(anyCollection());
+        verify(cardsFeignClient, times(1)).fetchCardDetailsBatch(anyString(), anyList());
+        verify(loansFeignClient, times(1)).fetchLoanDetailsBatch(anyString(), anyList());
+        verify(cardsFeignClient, never()).fetchCardDetails(anyString(), anyString());
+    }
+
+    private void stubExistingCustomer() {
+        Customer customer = new Customer();
+        customer.setId(1L);
+        customer.setMobileNumber(MOBILE_NUMBER);
+        Account account = new Account();
+        account.setAccountNumber(1234567890L);
+        account.setCustomerId(1L);
+
+        when(customerRepository.findCustomerAccountByMobileNumber(anyString())).thenReturn(Optional.of(
+                new CustomerAccountView(customer.getId(), customer.getName(), customer.getEmail(), customer.getMobileNumber(),
+                                        account.getAccountNumber(), account.getAccountType(), account.getBranchAddress())));
+    }
+
+    /**
+     * WebClient whose responses arrive after CARDS_DELAY_MS on a timer, without holding a thread in between
+     */
+    private WebClient.Builder delayedWebClient() {
+        ExchangeFunction exchangeFunction = request -> Mono.delay(Duration.ofMillis(CARDS_DELAY_MS))
+                .map(tick -> ClientResponse.create(HttpStatus.OK)
+                                           .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                                           .body("{\"mobileNumber\":\"" + MOBILE_NUMBER + "\"}")
+                                           .build());
+        return WebClient.builder().exchangeFunction(exchangeFunction);
+    }
+
+    private static ReactiveResilience4JCircuitBreakerFactory circuitBreakerFactory() {
+        ReactiveResilience4JCircuitBreakerFactory factory = new ReactiveResilience4JCircuitBreakerFactory(
+                CircuitBreakerRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults());
+        factory.configureDefault(id -> new Resilience4JConfigBuilder(id)
+                .circuitBreakerConfig(CircuitBreakerConfig.ofDefaults())
+                .timeLimiterConfig(TimeLimiterConfig.custom().timeoutDuration(Duration.ofSeconds(5)).build())
+                .build());
+        return factory;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.microservicesbank.accounts;
+
+import com.microservicesbank.accounts.config.OutboxProperties;
+import com.microservicesbank.accounts.display.CamelCaseDisplay;
+import com.microservicesbank.accounts.model.OutboxMessage;
+import com.microservicesbank.accounts.repository.OutboxMessageRepository;
+import com.microservicesbank.accounts.service.OutboxRelay;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.Message;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@DisplayNameGeneration(CamelCaseDisplay.class)
+public class OutboxRelayTest {
+
+    private OutboxMessageRepository outboxMessageRepository;
+    private StreamBridge streamBridge;
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    public void setUp() {
+        outboxMessageRepository = mock(OutboxMessageRepository.class);
+        streamBridge = mock(StreamBridge.class);
+        OutboxProperties outboxProperties = new OutboxProperties();
+        outboxProperties.setConfirmTimeout(Duration.ofMillis(200));
+        outboxRelay = new OutboxRelay(outboxMessageRepository, streamBridge, outboxProperties);
+
+        when(outboxMessageRepository.findAllByOrderByIdAsc(any(Pageable.class)))
+                .thenReturn(List.of(outboxMessage(1L), outboxMessage(2L), outboxMessage(3L)));
+    }
+
+    @Test
+    public void relayBatchDeletesOnlyConfirmedMessages() {
+        when(streamBridge.send(anyString(), any(Message.class))).thenAnswer(invocation -> {
+            CorrelationData correlationData = correlationData(invocation.getArgument(1));
+            correlationData.getFuture().complete(new CorrelationData.Confirm(!"2".equals(correlationData.getId()), "nack"));
+            return true;
+        });
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(2, relayed);
+        verify(streamBridge, times(3)).send(eq("sendCommunication-out-0"), any(Message.class));
+        verify(outboxMessageRepository).deleteAllByIdInBatch(List.of(1L, 3L));
+    }
+
+    @Test
+    public void relayBatchKeepsMessagesWithoutConfirm() {
+        when(streamBridge.send(anyString(), any(Message.class))).thenReturn(true);
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(0, relayed);
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(anyIterable());
+    }
+
+    @Test
+    public void relayBatchStopsWhenBrokerIsDown() {
+        when(streamBridge.send(anyString(), any(Message.class))).thenThrow(new IllegalStateException("broker down"));
+
+        int relayed = outboxRelay.relayBatch();
+
+        assertEquals(0, relayed);
+        verify(streamBridge, times(1)).send(anyString(), any(Message.class));
+        verify(outboxMessageRepository, never()).deleteAllByIdInBatch(anyIterable());
+    }
+
+    private static OutboxMessage outboxMessage(Long id) {
+        OutboxMessage outboxMessage = new OutboxMessage("sendCommunication-out-0", "{\"accountNumber\":" + id + "}");
+        outboxMessage.setId(id);
+        return outboxMessage;
+    }
+
+    private static CorrelationData correlationData(Message<?> message) {
+        return (CorrelationData) message.getHeaders().get(AmqpHeaders.PUBLISH_CONFIRM_CORRELATION);
+    }
+}
@@ -1,5 +1,6 @@
 package com.microservicesbank.cards;
 
+import com.microservicesbank.cards.config.CardsBatchProperties;
 import com.microservicesbank.cards.dto.CardsContactInfoDTO;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -13,7 +14,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
-@EnableConfigurationProperties(value =  CardsContactInfoDTO.class)
+@EnableConfigurationProperties(value = {CardsContactInfoDTO.class, CardsBatchProperties.class})
 @OpenAPIDefinition(info = @Info(title = "Cards microservice REST API documentation", version = "1.0",
 		description = "Documentation Card REST API",
 		contact = @Contact(name = "Andrii Kuchera", email = "ak47.10.07.06@gmail.com", url = "https://github.com/andriik7"),
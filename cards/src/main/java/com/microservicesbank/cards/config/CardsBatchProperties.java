@@ -0,0 +1,15 @@
+package com.microservicesbank.cards.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "cards.batch")
+@Getter @Setter
+public class CardsBatchProperties {
+
+    /**
+     * Maximum number of mobile numbers accepted by one bulk lookup request
+     */
+    private int maxSize = 100;
+}
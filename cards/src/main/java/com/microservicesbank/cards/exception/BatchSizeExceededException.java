@@ -0,0 +1,12 @@
+package com.microservicesbank.cards.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class BatchSizeExceededException extends RuntimeException {
+
+    public BatchSizeExceededException(int batchSize, int maxSize) {
+        super(String.format("Batch of %d mobile numbers exceeds the limit of %d", batchSize, maxSize));
+    }
+}
@@ -1,22 +1,35 @@
 package com.microservicesbank.cards.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.*;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = Card.MOBILE_NUMBER_KEY, columnNames = "mobile_number"),
+        @UniqueConstraint(name = Card.CARD_NUMBER_KEY, columnNames = "card_number")
+})
 @Getter @Setter @ToString
 @AllArgsConstructor @NoArgsConstructor
 public class Card extends SuperEntity {
 
+    public static final String MOBILE_NUMBER_KEY = "uk_card_mobile_number";
+
+    public static final String CARD_NUMBER_KEY = "uk_card_card_number";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long cardId;
 
+    @Column(name = "mobile_number")
     private String mobileNumber;
 
+    @Column(name = "card_number")
     private String cardNumber;
 
     private String cardType;
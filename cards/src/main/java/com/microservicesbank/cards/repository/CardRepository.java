@@ -4,6 +4,8 @@ import com.microservicesbank.cards.model.Card;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +15,6 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
     Optional<Card> findByCardNumber(String cardNumber);
 
+    List<Card> findAllByMobileNumberIn(Collection<String> mobileNumbers);
+
 }
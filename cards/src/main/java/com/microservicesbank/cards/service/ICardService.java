@@ -2,12 +2,17 @@ package com.microservicesbank.cards.service;
 
 import com.microservicesbank.cards.dto.CardDTO;
 
+import java.util.List;
+import java.util.Map;
+
 public interface ICardService {
 
     void createCard(String mobileNumber);
 
     CardDTO fetchCard(String mobileNumber);
 
+    Map<String, CardDTO> fetchCards(List<String> mobileNumbers);
+
     boolean updateCard(CardDTO updatedCard);
 
     boolean deleteCard(String mobileNumber);
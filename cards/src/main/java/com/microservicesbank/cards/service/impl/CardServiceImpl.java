@@ -1,7 +1,9 @@
 package com.microservicesbank.cards.service.impl;
 
 
+import com.microservicesbank.cards.config.CardsBatchProperties;
 import com.microservicesbank.cards.constants.CardConstants;
+import com.microservicesbank.cards.exception.BatchSizeExceededException;
 import com.microservicesbank.cards.exception.CardAlreadyExistsException;
 import com.microservicesbank.cards.exception.ResourceNotFoundException;
 import com.microservicesbank.cards.mapper.CardMapper;
@@ -9,33 +11,93 @@ import com.microservicesbank.cards.model.Card;
 import com.microservicesbank.cards.repository.CardRepository;
 import com.microservicesbank.cards.service.ICardService;
 import com.microservicesbank.cards.dto.CardDTO;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
 public class CardServiceImpl implements ICardService {
 
+    private final Logger log = LoggerFactory.getLogger(CardServiceImpl.class);
+
+    /**
+     * Attempts to find a free random card number before giving up
+     */
+    private static final int CARD_NUMBER_ATTEMPTS = 3;
+
     private CardRepository cardRepository;
 
+    private CardsBatchProperties cardsBatchProperties;
+
+    private StreamBridge streamBridge;
+
+    private DistributionSummary batchSize;
+
+    private Counter batchRejected;
+
+    public CardServiceImpl(CardRepository cardRepository, CardsBatchProperties cardsBatchProperties,
+                           MeterRegistry meterRegistry, StreamBridge streamBridge) {
+        this.cardRepository = cardRepository;
+        this.cardsBatchProperties = cardsBatchProperties;
+        this.streamBridge = streamBridge;
+        Gauge.builder("cards.fetch.batch.max.size", cardsBatchProperties, CardsBatchProperties::getMaxSize)
+             .description("Maximum number of mobile numbers accepted by one bulk lookup")
+             .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("cards.fetch.batch.size")
+                                            .description("Number of distinct mobile numbers per bulk lookup")
+                                            .register(meterRegistry);
+        this.batchRejected = meterRegistry.counter("cards.fetch.batch.rejected");
+    }
+
     /**
      * Service method to create a new card.
+     * The insert is attempted first and the unique index on mobile_number detects duplicates,
+     * so concurrent creates for the same mobile number cannot both succeed.
+     * A card number that is already taken is replaced by a new random one.
      * If the card already exists, throws a CardAlreadyExistsException.
      * @param mobileNumber the mobile number of the card owner.
      */
     @Override
     public void createCard(String mobileNumber) {
 
-        Optional<Card> card = cardRepository.findByMobileNumber(mobileNumber);
-
-        if (card.isPresent()) {
-            throw new CardAlreadyExistsException("Card already exists with mobile number " + mobileNumber);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                cardRepository.saveAndFlush(createNewCard(mobileNumber));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (violates(e, Card.MOBILE_NUMBER_KEY)) {
+                    throw new CardAlreadyExistsException("Card already exists with mobile number " + mobileNumber);
+                }
+                if (!violates(e, Card.CARD_NUMBER_KEY) || attempt == CARD_NUMBER_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Card number collision for mobile number {}, retrying with a new number", mobileNumber);
+            }
         }
+    }
+
+    /**
+     * Private method to tell which unique constraint an insert violated, other integrity violations match none.
+     * @param e the exception of the failed insert.
+     * @param constraint the name of the unique constraint.
+     * @return true if the insert violated the given constraint.
+     */
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
 
-        cardRepository.save(createNewCard(mobileNumber));
+        // the database may qualify or suffix the name, e.g. PUBLIC.UK_CARD_MOBILE_NUMBER_INDEX_2 on H2
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint);
     }
 
     /**
@@ -54,6 +116,32 @@ public class CardServiceImpl implements ICardService {
         return CardMapper.mapToCardDTO(card, new CardDTO());
     }
 
+    /**
+     * Service method to fetch cards of several customers with a single query.
+     * Mobile numbers without a card are left out of the result.
+     * If more distinct mobile numbers than allowed are requested, throws a BatchSizeExceededException.
+     * @param mobileNumbers the mobile numbers of the card owners.
+     * @return the card details keyed by mobile number.
+     */
+    @Override
+    public Map<String, CardDTO> fetchCards(List<String> mobileNumbers) {
+
+        Set<String> distinctMobileNumbers = new LinkedHashSet<>(mobileNumbers);
+        int maxSize = cardsBatchProperties.getMaxSize();
+        batchSize.record(distinctMobileNumbers.size());
+
+        if (distinctMobileNumbers.size() > maxSize) {
+            batchRejected.increment();
+            throw new BatchSizeExceededException(distinctMobileNumbers.size(), maxSize);
+        }
+
+        List<Card> cards = cardRepository.findAllByMobileNumberIn(distinctMobileNumbers);
+
+        return cards.stream()
+                    .collect(Collectors.toMap(Card::getMobileNumber, card -> CardMapper.mapToCardDTO(card, new CardDTO()),
+                                              (first, second) -> first, LinkedHashMap::new));
+    }
+
     /**
      * Service method to update a card.
      * If the card does not exist, throws a ResourceNotFoundException.
@@ -68,8 +156,14 @@ public class CardServiceImpl implements ICardService {
                 () -> new ResourceNotFoundException("Card", "cardNumber", updatedCard.getCardNumber())
         );
 
+        String previousMobileNumber = card.getMobileNumber();
         CardMapper.mapToCard(updatedCard, card);
         cardRepository.save(card);
+
+        publishCardChanged(previousMobileNumber);
+        if (!Objects.equals(previousMobileNumber, card.getMobileNumber())) {
+            publishCardChanged(card.getMobileNumber());
+        }
         return true;
     }
 
@@ -87,10 +181,26 @@ public class CardServiceImpl implements ICardService {
         );
 
         cardRepository.delete(card);
+        publishCardChanged(mobileNumber);
 
         return true;
     }
 
+    /**
+     * Private method to notify other microservices (accounts near-cache) that the card of a customer has changed.
+     * A broker failure is only logged because the card is already stored and cached copies expire on their own.
+     * @param mobileNumber the mobile number of the card owner.
+     */
+    private void publishCardChanged(String mobileNumber) {
+
+        try {
+            boolean result = streamBridge.send("cardChanged-out-0", mobileNumber);
+            log.debug("Card changed event for mobile number {} sent: {}", mobileNumber, result);
+        } catch (RuntimeException e) {
+            log.warn("Card changed event for mobile number {} could not be sent: {}", mobileNumber, e.getMessage());
+        }
+    }
+
     /**
      * Private method to create a new card object, used in the createCard service.
      * @param mobileNumber the mobile number of the card owner.
@@ -10,5 +10,7 @@ CREATE TABLE IF NOT EXISTS `card` (
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
   `updated_by` varchar(20) DEFAULT NULL,
-  PRIMARY KEY (`card_id`)
+  PRIMARY KEY (`card_id`),
+  CONSTRAINT `uk_card_mobile_number` UNIQUE (`mobile_number`),
+  CONSTRAINT `uk_card_card_number` UNIQUE (`card_number`)
 );
\ No newline at end of file
@@ -0,0 +1,86 @@
+package microsevicesbank.card;
+
+import com.microservicesbank.cards.CardsApplication;
+import com.microservicesbank.cards.exception.CardAlreadyExistsException;
+import com.microservicesbank.cards.model.Card;
+import com.microservicesbank.cards.repository.CardRepository;
+import com.microservicesbank.cards.service.ICardService;
+import microsevicesbank.card.display.CamelCaseDisplay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(classes = CardsApplication.class, properties = "spring.jpa.show-sql=false")
+public class CardConcurrentCreateTest {
+
+    private static final int MOBILE_NUMBERS = 20;
+
+    private static final int ATTEMPTS_PER_MOBILE_NUMBER = 8;
+
+    @Autowired
+    private ICardService cardService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @AfterEach
+    public void tearDown() {
+        cardRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentCreatesForSameMobileNumberCreateExactlyOneCard() throws Exception {
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // one platform thread per attempt and fewer threads than pooled connections, so every attempt holds a
+        // connection while it races and none waits for one; the attempts for a mobile number are released together
+        try (ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS_PER_MOBILE_NUMBER)) {
+            for (int i = 0; i < MOBILE_NUMBERS; i++) {
+                String mobileNumber = String.format("05%08d", i);
+                CountDownLatch startGate = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_MOBILE_NUMBER; attempt++) {
+                    futures.add(executor.submit(() -> {
+                        startGate.await();
+                        try {
+                            cardService.createCard(mobileNumber);
+                            created.incrementAndGet();
+                        } catch (CardAlreadyExistsException e) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                startGate.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+        }
+
+        List<Card> cards = cardRepository.findAll();
+        long duplicates = cards.size() - cards.stream().map(Card::getMobileNumber).distinct().count();
+
+        assertEquals(MOBILE_NUMBERS, created.get());
+        assertEquals(MOBILE_NUMBERS * (ATTEMPTS_PER_MOBILE_NUMBER - 1), rejected.get());
+        assertEquals(0, duplicates);
+    }
+}
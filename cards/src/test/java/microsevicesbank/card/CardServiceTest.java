@@ -1,27 +1,38 @@
 package microsevicesbank.card;
 
 import com.microservicesbank.cards.CardsApplication;
+import com.microservicesbank.cards.config.CardsBatchProperties;
 import com.microservicesbank.cards.dto.CardDTO;
+import com.microservicesbank.cards.exception.BatchSizeExceededException;
 import com.microservicesbank.cards.exception.CardAlreadyExistsException;
 import com.microservicesbank.cards.exception.ResourceNotFoundException;
 import com.microservicesbank.cards.mapper.CardMapper;
 import com.microservicesbank.cards.model.Card;
 import com.microservicesbank.cards.repository.CardRepository;
 import com.microservicesbank.cards.service.impl.CardServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.transaction.Transactional;
 import microsevicesbank.card.display.CamelCaseDisplay;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 @TestPropertySource("/application-test.yml")
@@ -34,6 +45,15 @@ public class CardServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Spy
+    private CardsBatchProperties cardsBatchProperties = new CardsBatchProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private StreamBridge streamBridge;
+
     @InjectMocks
     private CardServiceImpl cardService;
 
@@ -48,17 +68,48 @@ public class CardServiceTest {
     @Test
     public void testCreateCardTest() {
 
-        when(cardRepository.findByMobileNumber(TEST_MOBILE_NUMBER)).thenReturn(Optional.empty());
-
         cardService.createCard(TEST_MOBILE_NUMBER);
 
-        verify(cardRepository, times(1)).save(any());
+        verify(cardRepository, times(1)).saveAndFlush(any());
+        verify(cardRepository, never()).findByMobileNumber(TEST_MOBILE_NUMBER);
 
-        when(cardRepository.findByMobileNumber(TEST_MOBILE_NUMBER)).thenReturn(Optional.of(new Card()));
+        when(cardRepository.saveAndFlush(any())).thenThrow(violationOf("PUBLIC.UK_CARD_MOBILE_NUMBER_INDEX_2"));
 
         assertThrows(CardAlreadyExistsException.class, () -> cardService.createCard(TEST_MOBILE_NUMBER));
     }
 
+    @Test
+    public void createCardRetriesTakenCardNumberTest() {
+
+        when(cardRepository.saveAndFlush(any()))
+                .thenThrow(violationOf("card.uk_card_card_number"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        cardService.createCard(TEST_MOBILE_NUMBER);
+
+        verify(cardRepository, times(2)).saveAndFlush(any());
+    }
+
+    @Test
+    public void createCardRethrowsOtherIntegrityViolationsTest() {
+
+        DataIntegrityViolationException notNull = violationOf(null);
+        when(cardRepository.saveAndFlush(any())).thenThrow(notNull);
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class, () -> cardService.createCard(TEST_MOBILE_NUMBER)));
+
+        reset(cardRepository);
+        when(cardRepository.saveAndFlush(any())).thenThrow(violationOf("PUBLIC.UK_CARD_CARD_NUMBER_INDEX_2"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> cardService.createCard(TEST_MOBILE_NUMBER));
+        verify(cardRepository, times(3)).saveAndFlush(any());
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+
 
     @Test
     public void fetchCardTest() {
@@ -88,6 +139,7 @@ public class CardServiceTest {
         updatedCard.setAvailableAmount(700);
 
         assertTrue(cardService.updateCard(updatedCard));
+        verify(streamBridge, times(1)).send("cardChanged-out-0", TEST_MOBILE_NUMBER);
 
         when(cardRepository.findByCardNumber(NON_EXISTENT_CARD_NUMBER)).thenReturn(Optional.empty());
 
@@ -104,8 +156,37 @@ public class CardServiceTest {
 
         assertTrue(cardService.deleteCard(TEST_MOBILE_NUMBER));
         verify(cardRepository, times(1)).delete(any(Card.class));
+        verify(streamBridge, times(1)).send("cardChanged-out-0", TEST_MOBILE_NUMBER);
 
         when(cardRepository.findByMobileNumber(TEST_MOBILE_NUMBER)).thenReturn(Optional.empty());
         assertThrows(ResourceNotFoundException.class, () -> cardService.deleteCard(TEST_MOBILE_NUMBER));
     }
+
+    @Test
+    public void fetchCardBatchTest() {
+
+        Card card = new Card();
+        card.setMobileNumber(TEST_MOBILE_NUMBER);
+        when(cardRepository.findAllByMobileNumberIn(anyCollection())).thenReturn(List.of(card));
+
+        Map<String, CardDTO> fetched = cardService.fetchCards(List.of(TEST_MOBILE_NUMBER, TEST_MOBILE_NUMBER, "0111111111"));
+
+        assertEquals(1, fetched.size());
+        assertEquals(TEST_MOBILE_NUMBER, fetched.get(TEST_MOBILE_NUMBER).getMobileNumber());
+        verify(cardRepository, times(1)).findAllByMobileNumberIn(anyCollection());
+        assertEquals(2, meterRegistry.summary("cards.fetch.batch.size").max());
+        assertEquals(1, meterRegistry.summary("cards.fetch.batch.size").count());
+    }
+
+    @Test
+    public void fetchCardBatchSizeExceededTest() {
+
+        cardsBatchProperties.setMaxSize(1);
+
+        assertThrows(BatchSizeExceededException.class,
+                () -> cardService.fetchCards(List.of(TEST_MOBILE_NUMBER, "0111111111")));
+
+        verify(cardRepository, never()).findAllByMobileNumberIn(anyCollection());
+        assertEquals(1, meterRegistry.counter("cards.fetch.batch.rejected").count());
+    }
 }
@@ -6,7 +6,8 @@ import org.junit.platform.suite.api.Suite;
 @Suite
 @SelectClasses({
     CardServiceTest.class,
-    CardControllerTest.class
+    CardControllerTest.class,
+    CardConcurrentCreateTest.class
 })
 public class CardTestSuite {
 }
@@ -1,67 +1,50 @@
 package com.microservicesbank.gatewayserver;
 
+import com.microservicesbank.gatewayserver.config.BackendHttpClientFactory;
+import com.microservicesbank.gatewayserver.config.BackendHttpProperties;
+import com.microservicesbank.gatewayserver.config.ConcurrencyLimitProperties;
+import com.microservicesbank.gatewayserver.config.JwtCacheProperties;
+import com.microservicesbank.gatewayserver.config.LatencyProperties;
+import com.microservicesbank.gatewayserver.config.LoadBalancerProperties;
+import com.microservicesbank.gatewayserver.config.RateLimitProperties;
+import com.microservicesbank.gatewayserver.config.RetryBudgetProperties;
+import com.microservicesbank.gatewayserver.loadbalancer.PowerOfTwoChoicesLoadBalancerConfig;
+import com.microservicesbank.gatewayserver.ratelimit.LeasingRateLimiter;
+import com.microservicesbank.gatewayserver.ratelimit.RedisTokenLeaseSource;
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
 import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
-import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
-import org.springframework.cloud.gateway.route.RouteLocator;
-import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
 import org.springframework.context.annotation.Bean;
-import org.springframework.http.HttpMethod;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.util.List;
 
 @SpringBootApplication
+@EnableConfigurationProperties({LatencyProperties.class, RateLimitProperties.class, JwtCacheProperties.class,
+                                ConcurrencyLimitProperties.class, LoadBalancerProperties.class,
+                                RetryBudgetProperties.class, BackendHttpProperties.class})
+@LoadBalancerClients(defaultConfiguration = PowerOfTwoChoicesLoadBalancerConfig.class)
 public class GatewayserverApplication {
 
     public static void main(String[] args) {
         SpringApplication.run(GatewayserverApplication.class, args);
     }
 
-    @Bean
-    public RouteLocator microbankRouteConfig(RouteLocatorBuilder builder) {
-        return builder.routes()
-                      //to ignore global fallback
-                      .route(r -> r.path("/microbank/accounts/api/fetchCustomerDetails/**")
-                                   .filters(f -> f.rewritePath("/microbank/accounts/(?<segment>.*)", "/${segment}")
-                                                  .addResponseHeader("X-Response-Time", LocalDateTime.now().toString()))
-                                   .uri("lb://ACCOUNTS"))
-                      .route(r -> r.path("/microbank/accounts/**")
-                                   .filters(f -> f.rewritePath("/microbank/accounts/(?<segment>.*)", "/${segment}")
-                                                  .addResponseHeader("X-Response-Time", LocalDateTime.now().toString())
-                                                  .circuitBreaker(config -> config
-                                                          .setName("accountsCircuitBreaker")
-                                                          .setFallbackUri("forward:/fallback/contactSupport")))
-                                   .uri("lb://ACCOUNTS"))
-                      .route(r -> r.path("/microbank/cards/**")
-                                   .filters(f -> f.rewritePath("/microbank/cards/(?<segment>.*)", "/${segment}")
-                                                  .addResponseHeader("X-Response-Time", LocalDateTime.now().toString())
-                                                  .circuitBreaker(config -> config
-                                                          .setName("cardsCircuitBreaker")
-                                                          .setFallbackUri("forward:/fallback/contactSupport"))
-                                                  .retry(retryConfig -> retryConfig
-                                                          .setRetries(3)
-                                                          .setMethods(HttpMethod.GET)
-                                                          .setBackoff(Duration.ofMillis(400), Duration.ofMillis(2000), 2, true)))
-                                   .uri("lb://CARDS"))
-                      .route(r -> r.path("/microbank/loans/**")
-                                   .filters(f -> f.rewritePath("/microbank/loans/(?<segment>.*)", "/${segment}")
-                                                  .addResponseHeader("X-Response-Time", LocalDateTime.now().toString())
-                                                  .requestRateLimiter(config -> config.setRateLimiter(redisRateLimiter())
-                                                          .setKeyResolver(userKeyResolver())))
-//                                                  .circuitBreaker(config -> config.setName("loansCircuitBreaker")
-//                                                          .setFallbackUri("forward:/fallback/contactSupport"))
-                                   .uri("lb://LOANS"))
-                      .build();
-    }
-
     @Bean
     public Customizer<ReactiveResilience4JCircuitBreakerFactory> defaultCustomizer() {
         return factory -> factory.configureDefault(
@@ -72,8 +55,17 @@ public class GatewayserverApplication {
     }
 
     @Bean
-    public RedisRateLimiter redisRateLimiter() {
-        return new RedisRateLimiter(1, 1, 1);
+    @Primary
+    public LeasingRateLimiter leasingRateLimiter(RateLimitProperties rateLimitProperties,
+                                                 ReactiveStringRedisTemplate redisTemplate, MeterRegistry meterRegistry) {
+        return new LeasingRateLimiter(rateLimitProperties, new RedisTokenLeaseSource(redisTemplate), meterRegistry);
+    }
+
+    @Bean
+    public BackendHttpClientFactory gatewayHttpClientFactory(HttpClientProperties httpClientProperties, ServerProperties serverProperties,
+                                                             HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                                             BackendHttpProperties backendHttpProperties) {
+        return new BackendHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer, customizers, backendHttpProperties);
     }
 
     @Bean
@@ -0,0 +1,110 @@
+package com.microservicesbank.gatewayserver.concurrency;
+
+import com.microservicesbank.gatewayserver.config.ConcurrencyLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Holds one {@link VegasLimit} per route and publishes gateway.concurrency.limit, gateway.concurrency.inflight
+ * and gateway.concurrency.rejections for each of them.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RouteLimit> routeLimits = new ConcurrentHashMap<>();
+
+    public AdaptiveConcurrencyLimiter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return a permit that must be completed exactly once with one of its methods, or null if the route is at its limit
+     */
+    public Permit tryAcquire(String routeId) {
+
+        RouteLimit routeLimit = routeLimits.computeIfAbsent(routeId, this::register);
+        int inFlight = routeLimit.limit.tryAcquire();
+        if (inFlight == 0) {
+            routeLimit.rejections.increment();
+            return null;
+        }
+        return new Permit(routeLimit.limit, inFlight, System.nanoTime());
+    }
+
+    public int getLimit(String routeId) {
+        RouteLimit routeLimit = routeLimits.get(routeId);
+        return routeLimit == null ? properties.getInitialLimit() : routeLimit.limit.getLimit();
+    }
+
+    private RouteLimit register(String routeId) {
+
+        VegasLimit limit = new VegasLimit(properties);
+        Gauge.builder("gateway.concurrency.limit", limit, VegasLimit::getLimit)
+             .tag("route", routeId)
+             .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limit, VegasLimit::getInFlight)
+             .tag("route", routeId)
+             .register(meterRegistry);
+        return new RouteLimit(limit, meterRegistry.counter("gateway.concurrency.rejections", "route", routeId));
+    }
+
+    public static class Permit {
+
+        private final VegasLimit limit;
+
+        private final int inFlightAtStart;
+
+        private final long start;
+
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        private Permit(VegasLimit limit, int inFlightAtStart, long start) {
+            this.limit = limit;
+            this.inFlightAtStart = inFlightAtStart;
+            this.start = start;
+        }
+
+        /**
+         * The service answered, its round trip time is fed into the limit
+         */
+        public void onSuccess() {
+            if (completed.compareAndSet(false, true)) {
+                limit.release();
+                limit.onSample(System.nanoTime() - start, inFlightAtStart);
+            }
+        }
+
+        /**
+         * The request failed or timed out, the limit backs off
+         */
+        public void onDropped() {
+            if (completed.compareAndSet(false, true)) {
+                limit.release();
+                limit.onDropped();
+            }
+        }
+
+        /**
+         * The caller went away, the round trip time says nothing about the service
+         */
+        public void onIgnore() {
+            if (completed.compareAndSet(false, true)) {
+                limit.release();
+            }
+        }
+    }
+
+    private record RouteLimit(VegasLimit limit, Counter rejections) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.microservicesbank.gatewayserver.concurrency;
+
+import com.microservicesbank.gatewayserver.config.ConcurrencyLimitProperties;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit of one route in the style of TCP Vegas. The lowest round trip time seen stands for the service
+ * without queueing, limit * (1 - lowest / current) estimates how many requests are waiting in the service.
+ * The limit grows while that queue is short and shrinks once it gets longer, by log10(limit) per sample.
+ * The lowest round trip time is dropped every probe interval, so a service that got slower for good is re-measured.
+ * Samples taken while less than half the limit was in use say nothing about the capacity and are only used
+ * for the lowest round trip time.
+ */
+class VegasLimit {
+
+    private final ConcurrencyLimitProperties properties;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    private long rttNoLoad = Long.MAX_VALUE;
+
+    private long samples;
+
+    VegasLimit(ConcurrencyLimitProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * @return the number of requests in flight including this one, or 0 when the limit is reached
+     */
+    int tryAcquire() {
+
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    void release() {
+        inFlight.decrementAndGet();
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightAtStart) {
+
+        if (++samples % properties.getProbeInterval() == 0) {
+            rttNoLoad = rttNanos;
+            return;
+        }
+        rttNoLoad = Math.min(rttNoLoad, rttNanos);
+        if (inFlightAtStart < limit / 2) {
+            return;
+        }
+        double step = Math.max(1, Math.log10(limit));
+        double queueSize = Math.ceil(limit * (1 - (double) rttNoLoad / rttNanos));
+        if (queueSize <= step) {
+            update(limit + properties.getBeta() * step);
+        } else if (queueSize < properties.getAlpha() * step) {
+            update(limit + step);
+        } else if (queueSize > properties.getBeta() * step) {
+            update(limit - step);
+        }
+    }
+
+    synchronized void onDropped() {
+        update(limit * properties.getBackoffRatio());
+    }
+
+    private void update(double newLimit) {
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), newLimit));
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,53 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.List;
+
+/**
+ * The gateway's HTTP client to the services, configured from spring.cloud.gateway.httpclient as usual and switched to
+ * h2c when gateway.backend-http.h2c is set. The pool then keeps at most h2c-max-connections connections per instance,
+ * without the cap a burst of requests on a cold pool opens a connection each before the first one has been negotiated.
+ */
+public class BackendHttpClientFactory extends HttpClientFactory {
+
+    private final BackendHttpProperties backendHttpProperties;
+
+    public BackendHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                    HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                    BackendHttpProperties backendHttpProperties) {
+        super(properties, serverProperties, sslConfigurer, customizers);
+        this.backendHttpProperties = backendHttpProperties;
+    }
+
+    @Override
+    protected HttpClient createInstance() {
+
+        HttpClient httpClient = super.createInstance();
+        return backendHttpProperties.isH2c() ? httpClient.protocol(HttpProtocol.H2C) : httpClient;
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+
+        ConnectionProvider connectionProvider = super.buildConnectionProvider(properties);
+        // null when pooling is disabled
+        ConnectionProvider.Builder pool = backendHttpProperties.isH2c() ? connectionProvider.mutate() : null;
+        if (pool == null) {
+            return connectionProvider;
+        }
+        return pool.allocationStrategy(Http2AllocationStrategy.builder()
+                                                              .minConnections(1)
+                                                              .maxConnections(backendHttpProperties.getH2cMaxConnections())
+                                                              .build())
+                   .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "gateway.backend-http")
+public class BackendHttpProperties {
+
+    /**
+     * Talk to the backends over cleartext HTTP/2 (h2c with prior knowledge), many requests then share a few
+     * connections. Every service the gateway routes to must run with server.http2.enabled=true
+     */
+    private boolean h2c = false;
+
+    /**
+     * Most HTTP/2 connections to one service instance, a new one is only opened once the streams of the others are in use
+     */
+    private int h2cMaxConnections = 4;
+
+    public boolean isH2c() {
+        return h2c;
+    }
+
+    public void setH2c(boolean h2c) {
+        this.h2c = h2c;
+    }
+
+    public int getH2cMaxConnections() {
+        return h2cMaxConnections;
+    }
+
+    public void setH2cMaxConnections(int h2cMaxConnections) {
+        this.h2cMaxConnections = h2cMaxConnections;
+    }
+}
@@ -0,0 +1,59 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Verifies a token only the first time it is presented, later requests get the cached Jwt.
+ * The authorities are converted once as well and served by {@link #authoritiesConverter()}.
+ */
+public class CachingReactiveJwtDecoder implements ReactiveJwtDecoder {
+
+    private final ReactiveJwtDecoder delegate;
+
+    private final Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter;
+
+    private final JwtCache jwtCache;
+
+    public CachingReactiveJwtDecoder(ReactiveJwtDecoder delegate, Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter,
+                                     JwtCache jwtCache) {
+        this.delegate = delegate;
+        this.authoritiesConverter = authoritiesConverter;
+        this.jwtCache = jwtCache;
+    }
+
+    @Override
+    public Mono<Jwt> decode(String token) throws JwtException {
+
+        JwtCache.CachedJwt cached = jwtCache.get(token);
+        if (cached != null) {
+            return Mono.just(cached.jwt());
+        }
+        return delegate.decode(token)
+                       .doOnNext(jwt -> jwtCache.put(jwt, convert(jwt)));
+    }
+
+    /**
+     * Authorities of a token decoded by this decoder, converted again only if it was evicted in between
+     */
+    public Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter() {
+
+        return jwt -> {
+            JwtCache.CachedJwt cached = jwtCache.peek(jwt.getTokenValue());
+            return cached != null ? cached.authorities() : convert(jwt);
+        };
+    }
+
+    private Collection<GrantedAuthority> convert(Jwt jwt) {
+
+        Collection<GrantedAuthority> authorities = authoritiesConverter.convert(jwt);
+        return authorities == null ? List.of() : List.copyOf(authorities);
+    }
+}
@@ -0,0 +1,95 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    /**
+     * Requests a route may have in flight before any round trip was observed
+     */
+    private int initialLimit = 20;
+
+    /**
+     * The limit never drops below this, so a slow service still gets some traffic to recover with
+     */
+    private int minLimit = 2;
+
+    private int maxLimit = 200;
+
+    /**
+     * The limit grows while fewer than alpha * log10(limit) requests are estimated to queue in the service
+     */
+    private int alpha = 3;
+
+    /**
+     * The limit shrinks once more than beta * log10(limit) requests are estimated to queue in the service
+     */
+    private int beta = 6;
+
+    /**
+     * Samples after which the lowest round trip time is measured anew
+     */
+    private int probeInterval = 1000;
+
+    /**
+     * Factor applied to the limit when a request fails with an error or a 5xx
+     */
+    private double backoffRatio = 0.9;
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public void setInitialLimit(int initialLimit) {
+        this.initialLimit = initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public void setMinLimit(int minLimit) {
+        this.minLimit = minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public void setMaxLimit(int maxLimit) {
+        this.maxLimit = maxLimit;
+    }
+
+    public int getAlpha() {
+        return alpha;
+    }
+
+    public void setAlpha(int alpha) {
+        this.alpha = alpha;
+    }
+
+    public int getBeta() {
+        return beta;
+    }
+
+    public void setBeta(int beta) {
+        this.beta = beta;
+    }
+
+    public int getProbeInterval() {
+        return probeInterval;
+    }
+
+    public void setProbeInterval(int probeInterval) {
+        this.probeInterval = probeInterval;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public void setBackoffRatio(double backoffRatio) {
+        this.backoffRatio = backoffRatio;
+    }
+}
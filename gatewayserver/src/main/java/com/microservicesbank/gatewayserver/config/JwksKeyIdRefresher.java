@@ -0,0 +1,60 @@
+package com.microservicesbank.gatewayserver.config;
+
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Fetches the published signing keys periodically and drops cached tokens whose key (kid) was rotated out
+ */
+public class JwksKeyIdRefresher {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksKeyIdRefresher.class);
+
+    private final Disposable refresh;
+
+    public JwksKeyIdRefresher(WebClient webClient, String jwkSetUri, Duration interval, JwtCache jwtCache) {
+
+        this.refresh = Flux.interval(interval, interval)
+                           .concatMap(tick -> webClient.get().uri(jwkSetUri).retrieve().bodyToMono(String.class)
+                                                       .map(JwksKeyIdRefresher::keyIds)
+                                                       .onErrorResume(e -> {
+                                                           logger.warn("Could not refresh signing keys from {}: {}", jwkSetUri, e.toString());
+                                                           return Mono.empty();
+                                                       }))
+                           .filter(keyIds -> !keyIds.isEmpty())
+                           .subscribe(keyIds -> {
+                               long before = jwtCache.size();
+                               jwtCache.retainKeyIds(keyIds);
+                               logger.debug("Signing keys {}, cached tokens {} -> {}", keyIds, before, jwtCache.size());
+                           });
+    }
+
+    static Set<String> keyIds(String jwkSet) {
+
+        try {
+            return JWKSet.parse(jwkSet).getKeys().stream()
+                         .map(JWK::getKeyID)
+                         .filter(keyId -> keyId != null)
+                         .collect(Collectors.toSet());
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("Invalid JWK set", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresh.dispose();
+    }
+}
@@ -0,0 +1,118 @@
+package com.microservicesbank.gatewayserver.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Verified tokens with their converted authorities, keyed by the SHA-256 of the token so raw tokens are not kept.
+ * An entry lives until the token expires, at most max-time-to-live.
+ */
+public class JwtCache {
+
+    private final Cache<String, CachedJwt> cache;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    public JwtCache(JwtCacheProperties jwtCacheProperties, MeterRegistry meterRegistry) {
+        Duration maxTimeToLive = jwtCacheProperties.getMaxTimeToLive();
+        this.cache = Caffeine.newBuilder()
+                             .maximumSize(jwtCacheProperties.getMaximumSize())
+                             .expireAfter(new Expiry<String, CachedJwt>() {
+                                 @Override
+                                 public long expireAfterCreate(String hash, CachedJwt cached, long currentTime) {
+                                     return timeToLive(cached, maxTimeToLive).toNanos();
+                                 }
+
+                                 @Override
+                                 public long expireAfterUpdate(String hash, CachedJwt cached, long currentTime, long currentDuration) {
+                                     return timeToLive(cached, maxTimeToLive).toNanos();
+                                 }
+
+                                 @Override
+                                 public long expireAfterRead(String hash, CachedJwt cached, long currentTime, long currentDuration) {
+                                     return currentDuration;
+                                 }
+                             })
+                             .build();
+        this.hits = meterRegistry.counter("gateway.jwt.cache.requests", "result", "hit");
+        this.misses = meterRegistry.counter("gateway.jwt.cache.requests", "result", "miss");
+        Gauge.builder("gateway.jwt.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    private static Duration timeToLive(CachedJwt cached, Duration maxTimeToLive) {
+
+        Instant expiresAt = cached.jwt().getExpiresAt();
+        if (expiresAt == null) {
+            return maxTimeToLive;
+        }
+        Duration untilExpiry = Duration.between(Instant.now(), expiresAt);
+        if (untilExpiry.isNegative()) {
+            return Duration.ZERO;
+        }
+        return untilExpiry.compareTo(maxTimeToLive) < 0 ? untilExpiry : maxTimeToLive;
+    }
+
+    CachedJwt get(String token) {
+
+        CachedJwt cached = cache.getIfPresent(hash(token));
+        (cached == null ? misses : hits).increment();
+        return cached;
+    }
+
+    /**
+     * Lookup by a token already decoded in this request, not counted as a hit or miss
+     */
+    CachedJwt peek(String token) {
+        return cache.getIfPresent(hash(token));
+    }
+
+    void put(Jwt jwt, Collection<GrantedAuthority> authorities) {
+        cache.put(hash(jwt.getTokenValue()), new CachedJwt(jwt, authorities));
+    }
+
+    /**
+     * Drops the tokens signed with a key that is no longer published
+     */
+    public void retainKeyIds(Set<String> keyIds) {
+        cache.asMap().values().removeIf(cached -> !keyIds.contains(cached.keyId()));
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private static String hash(String token) {
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    record CachedJwt(Jwt jwt, Collection<GrantedAuthority> authorities) {
+
+        String keyId() {
+            Object kid = jwt.getHeaders().get("kid");
+            return kid == null ? null : kid.toString();
+        }
+    }
+}
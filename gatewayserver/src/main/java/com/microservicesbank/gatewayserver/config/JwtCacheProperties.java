@@ -0,0 +1,49 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "gateway.jwt-cache")
+public class JwtCacheProperties {
+
+    /**
+     * Verified tokens kept, the least recently used ones are evicted first
+     */
+    private long maximumSize = 10_000;
+
+    /**
+     * Longest time a token is trusted without verifying it again, even if it expires later.
+     * Bounds how long a token revoked at the auth server keeps working through the cache.
+     */
+    private Duration maxTimeToLive = Duration.ofMinutes(5);
+
+    /**
+     * How often the signing keys are fetched, tokens signed with a key that was removed are dropped from the cache
+     */
+    private Duration jwksRefreshInterval = Duration.ofMinutes(5);
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    public Duration getMaxTimeToLive() {
+        return maxTimeToLive;
+    }
+
+    public void setMaxTimeToLive(Duration maxTimeToLive) {
+        this.maxTimeToLive = maxTimeToLive;
+    }
+
+    public Duration getJwksRefreshInterval() {
+        return jwksRefreshInterval;
+    }
+
+    public void setJwksRefreshInterval(Duration jwksRefreshInterval) {
+        this.jwksRefreshInterval = jwksRefreshInterval;
+    }
+}
@@ -0,0 +1,25 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+@ConfigurationProperties(prefix = "gateway.latency")
+public class LatencyProperties {
+
+    /**
+     * Histogram buckets published for the total and upstream latency of every route
+     */
+    private List<Duration> slos = List.of(Duration.ofMillis(25), Duration.ofMillis(50), Duration.ofMillis(100),
+                                          Duration.ofMillis(250), Duration.ofMillis(500), Duration.ofSeconds(1),
+                                          Duration.ofSeconds(3));
+
+    public List<Duration> getSlos() {
+        return slos;
+    }
+
+    public void setSlos(List<Duration> slos) {
+        this.slos = slos;
+    }
+}
@@ -0,0 +1,35 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "gateway.load-balancer")
+public class LoadBalancerProperties {
+
+    /**
+     * How fast the latency average of an instance forgets old samples, a sample this old weighs about 37%
+     */
+    private Duration decayTime = Duration.ofSeconds(10);
+
+    /**
+     * Latency recorded for a request that failed or got a 5xx, so a fast failing instance does not look like a fast one
+     */
+    private Duration failurePenalty = Duration.ofSeconds(1);
+
+    public Duration getDecayTime() {
+        return decayTime;
+    }
+
+    public void setDecayTime(Duration decayTime) {
+        this.decayTime = decayTime;
+    }
+
+    public Duration getFailurePenalty() {
+        return failurePenalty;
+    }
+
+    public void setFailurePenalty(Duration failurePenalty) {
+        this.failurePenalty = failurePenalty;
+    }
+}
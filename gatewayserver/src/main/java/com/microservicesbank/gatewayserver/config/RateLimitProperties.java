@@ -0,0 +1,105 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "gateway.rate-limit")
+public class RateLimitProperties {
+
+    /**
+     * Tokens added to the shared bucket per second, across all gateway instances
+     */
+    private int replenishRate = 1;
+
+    /**
+     * Maximum tokens the shared bucket holds
+     */
+    private int burstCapacity = 1;
+
+    /**
+     * Share of the burst capacity that may sit leased but unused on the instances, bounds how far admissions can drift
+     * from the global limit. The lease size is burstCapacity * tolerance / expectedInstances, at least one token.
+     */
+    private double tolerance = 0.1;
+
+    /**
+     * Gateway instances sharing the limit, also used to split the limit when Redis is unreachable
+     */
+    private int expectedInstances = 1;
+
+    /**
+     * Leased tokens not used within this time are dropped, so an idle instance does not keep them
+     */
+    private Duration leaseTtl = Duration.ofSeconds(1);
+
+    /**
+     * How long a lease call to Redis may take before the instance falls back to local limiting
+     */
+    private Duration redisTimeout = Duration.ofMillis(100);
+
+    /**
+     * How long the instance limits locally after a failed lease call before it tries Redis again
+     */
+    private Duration redisRetryInterval = Duration.ofSeconds(5);
+
+    public int getLeaseSize() {
+        return Math.max(1, (int) (burstCapacity * tolerance / expectedInstances));
+    }
+
+    public int getReplenishRate() {
+        return replenishRate;
+    }
+
+    public void setReplenishRate(int replenishRate) {
+        this.replenishRate = replenishRate;
+    }
+
+    public int getBurstCapacity() {
+        return burstCapacity;
+    }
+
+    public void setBurstCapacity(int burstCapacity) {
+        this.burstCapacity = burstCapacity;
+    }
+
+    public double getTolerance() {
+        return tolerance;
+    }
+
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public int getExpectedInstances() {
+        return expectedInstances;
+    }
+
+    public void setExpectedInstances(int expectedInstances) {
+        this.expectedInstances = expectedInstances;
+    }
+
+    public Duration getLeaseTtl() {
+        return leaseTtl;
+    }
+
+    public void setLeaseTtl(Duration leaseTtl) {
+        this.leaseTtl = leaseTtl;
+    }
+
+    public Duration getRedisTimeout() {
+        return redisTimeout;
+    }
+
+    public void setRedisTimeout(Duration redisTimeout) {
+        this.redisTimeout = redisTimeout;
+    }
+
+    public Duration getRedisRetryInterval() {
+        return redisRetryInterval;
+    }
+
+    public void setRedisRetryInterval(Duration redisRetryInterval) {
+        this.redisRetryInterval = redisRetryInterval;
+    }
+}
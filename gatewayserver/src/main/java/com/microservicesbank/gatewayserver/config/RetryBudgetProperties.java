@@ -0,0 +1,46 @@
+package com.microservicesbank.gatewayserver.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "gateway.retry-budget")
+public class RetryBudgetProperties {
+
+    /**
+     * Retries allowed per successful upstream call on any route, spent by all routes that retry
+     */
+    private double ratio = 0.1;
+
+    /**
+     * Retries allowed per second on top of the ratio, so a quiet gateway can still retry a single failure
+     */
+    private double minRetriesPerSecond = 1;
+
+    /**
+     * Most retries that can be saved up in good times and spent at once when failures start
+     */
+    private int maxBalance = 10;
+
+    public double getRatio() {
+        return ratio;
+    }
+
+    public void setRatio(double ratio) {
+        this.ratio = ratio;
+    }
+
+    public double getMinRetriesPerSecond() {
+        return minRetriesPerSecond;
+    }
+
+    public void setMinRetriesPerSecond(double minRetriesPerSecond) {
+        this.minRetriesPerSecond = minRetriesPerSecond;
+    }
+
+    public int getMaxBalance() {
+        return maxBalance;
+    }
+
+    public void setMaxBalance(int maxBalance) {
+        this.maxBalance = maxBalance;
+    }
+}
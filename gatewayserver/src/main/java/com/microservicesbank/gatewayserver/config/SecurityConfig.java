@@ -1,5 +1,7 @@
 package com.microservicesbank.gatewayserver.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.convert.converter.Converter;
@@ -9,9 +11,11 @@ import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
 import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
 import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 @Configuration
@@ -19,7 +23,7 @@ import reactor.core.publisher.Mono;
 public class SecurityConfig {
 
     @Bean
-    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
+    public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http, CachingReactiveJwtDecoder jwtDecoder) {
 
         http.authorizeExchange(exchanges -> exchanges
                 .pathMatchers(HttpMethod.GET).permitAll()
@@ -27,7 +31,8 @@ public class SecurityConfig {
                 .pathMatchers("/microbank/cards/**").hasRole("CARDS")
                 .pathMatchers("/microbank/loans/**").hasRole("LOANS"))
                 .oauth2ResourceServer(oAuth2ResourceServerSpec -> oAuth2ResourceServerSpec
-                        .jwt(jwtSpec -> jwtSpec.jwtAuthenticationConverter(grantAuthoritiesExtractor())));
+                        .jwt(jwtSpec -> jwtSpec.jwtDecoder(jwtDecoder)
+                                .jwtAuthenticationConverter(grantAuthoritiesExtractor(jwtDecoder))));
 
         http.csrf(csrfSpec -> csrfSpec.disable());
 
@@ -35,13 +40,33 @@ public class SecurityConfig {
     }
 
 
+    // Verifies each token once and keeps it with its Keycloak roles until it expires
+    @Bean
+    public CachingReactiveJwtDecoder jwtDecoder(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                                                JwtCache jwtCache) {
+
+        return new CachingReactiveJwtDecoder(NimbusReactiveJwtDecoder.withJwkSetUri(jwkSetUri).build(),
+                                             new KeyCloakRoleConverter(), jwtCache);
+    }
+
+    @Bean
+    public JwtCache jwtCache(JwtCacheProperties jwtCacheProperties, MeterRegistry meterRegistry) {
+        return new JwtCache(jwtCacheProperties, meterRegistry);
+    }
+
+    @Bean
+    public JwksKeyIdRefresher jwksKeyIdRefresher(@Value("${spring.security.oauth2.resourceserver.jwt.jwk-set-uri}") String jwkSetUri,
+                                                 JwtCacheProperties jwtCacheProperties, JwtCache jwtCache) {
+        return new JwksKeyIdRefresher(WebClient.create(), jwkSetUri, jwtCacheProperties.getJwksRefreshInterval(), jwtCache);
+    }
+
     // Configures a JWT converter to extract GrantedAuthorities reactively
-    private Converter<Jwt, Mono<AbstractAuthenticationToken>> grantAuthoritiesExtractor() {
+    private Converter<Jwt, Mono<AbstractAuthenticationToken>> grantAuthoritiesExtractor(CachingReactiveJwtDecoder jwtDecoder) {
 
         JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
 
-        // Sets custom converter to translate Keycloak roles into Spring Security authorities
-        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(new KeyCloakRoleConverter());
+        // Keycloak roles were already translated into Spring Security authorities when the token was decoded
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(jwtDecoder.authoritiesConverter());
         return new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter);
     }
 }
@@ -0,0 +1,177 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import com.microservicesbank.gatewayserver.retry.RetryBudget;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Retries requests that failed with a connection error, a timeout or a 5xx, up to a number of times per request,
+ * but only while the gateway-wide {@link RetryBudget} allows it. Otherwise the failure is passed on as it is.
+ * The budget is filled by {@link RetryBudgetFilter} from the successful upstream calls of all routes, every route
+ * that retries uses this filter so they all draw on it. Every retry and every retry the budget denied is counted
+ * in gateway.retry.requests.
+ */
+@Component
+public class BudgetedRetryGatewayFilterFactory extends AbstractGatewayFilterFactory<BudgetedRetryGatewayFilterFactory.Config> {
+
+    private final RetryBudget retryBudget;
+
+    private final MeterRegistry meterRegistry;
+
+    public BudgetedRetryGatewayFilterFactory(RetryBudget retryBudget, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.retryBudget = retryBudget;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+
+        return (exchange, chain) -> {
+            if (!config.getMethods().contains(exchange.getRequest().getMethod())) {
+                return chain.filter(exchange);
+            }
+            return attempt(exchange, chain, config, 0);
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, Config config, int retry) {
+
+        return chain.filter(exchange)
+                    .then(Mono.defer(() -> {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        if (status == null || !status.is5xxServerError()) {
+                            return Mono.<Void>empty();
+                        }
+                        // the response is only written after this filter, unless a filter further down wrote it already
+                        if (retry >= config.getRetries() || exchange.getResponse().isCommitted()) {
+                            return Mono.<Void>empty();
+                        }
+                        return retry(exchange, chain, config, retry, Mono.empty());
+                    }))
+                    .onErrorResume(error -> error instanceof IOException || error instanceof TimeoutException,
+                                   error -> retry >= config.getRetries() || exchange.getResponse().isCommitted()
+                                           ? Mono.error(error) : retry(exchange, chain, config, retry, Mono.error(error)));
+    }
+
+    private Mono<Void> retry(ServerWebExchange exchange, GatewayFilterChain chain, Config config, int retry, Mono<Void> giveUp) {
+
+        String routeId = LatencyRecorder.routeId(exchange);
+        if (!retryBudget.tryRetry()) {
+            count(routeId, "budget_exhausted");
+            return giveUp;
+        }
+        count(routeId, "retried");
+        reset(exchange);
+        return Mono.delay(backoff(config, retry))
+                   .then(Mono.defer(() -> attempt(exchange, chain, config, retry + 1)));
+    }
+
+    /**
+     * Drops what the failed attempt left on the exchange, the way the gateway's own retry filter does
+     */
+    private static void reset(ServerWebExchange exchange) {
+
+        Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+            exchange.getAttributes().remove(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+        }
+        ServerWebExchangeUtils.reset(exchange);
+    }
+
+    private static Duration backoff(Config config, int retry) {
+        double millis = config.getFirstBackoff().toMillis() * Math.pow(config.getFactor(), retry);
+        return Duration.ofMillis((long) Math.min(millis, config.getMaxBackoff().toMillis()));
+    }
+
+    private void count(String routeId, String result) {
+        meterRegistry.counter("gateway.retry.requests", "route", routeId, "result", result).increment();
+    }
+
+    public static class Config {
+
+        /**
+         * Most retries of one request, each of them also needs the budget
+         */
+        private int retries = 3;
+
+        private List<HttpMethod> methods = List.of(HttpMethod.GET);
+
+        private Duration firstBackoff = Duration.ofMillis(100);
+
+        private Duration maxBackoff = Duration.ofMillis(1000);
+
+        private double factor = 2;
+
+        public int getRetries() {
+            return retries;
+        }
+
+        public Config setRetries(int retries) {
+            this.retries = retries;
+            return this;
+        }
+
+        public List<HttpMethod> getMethods() {
+            return methods;
+        }
+
+        public Config setMethods(List<HttpMethod> methods) {
+            this.methods = methods;
+            return this;
+        }
+
+        public Duration getFirstBackoff() {
+            return firstBackoff;
+        }
+
+        public Config setFirstBackoff(Duration firstBackoff) {
+            this.firstBackoff = firstBackoff;
+            return this;
+        }
+
+        public Duration getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        public Config setMaxBackoff(Duration maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public double getFactor() {
+            return factor;
+        }
+
+        public Config setFactor(double factor) {
+            this.factor = factor;
+            return this;
+        }
+
+        /**
+         * Backoff before the first retry, multiplied by factor for every further one up to maxBackoff
+         */
+        public Config setBackoff(Duration firstBackoff, Duration maxBackoff, double factor) {
+            this.firstBackoff = firstBackoff;
+            this.maxBackoff = maxBackoff;
+            this.factor = factor;
+            return this;
+        }
+    }
+}
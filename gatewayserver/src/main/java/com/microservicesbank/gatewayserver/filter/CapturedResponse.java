@@ -0,0 +1,97 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Status, headers and body of a response held in memory, so it can be written again to other exchanges
+ */
+record CapturedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    /**
+     * Body handed over by {@link #handOver}, written by {@link CapturedResponseWriteFilter}
+     */
+    static final String BODY_ATTR = CapturedResponse.class.getName() + ".body";
+
+    // per-request or per-connection headers that must not be replayed to another request
+    private static final Set<String> NOT_REPLAYED_HEADERS = Set.of(FilterUtility.CORRELATION_ID, ResponseTimeFilter.RESPONSE_TIME,
+                                                                   HttpHeaders.TRANSFER_ENCODING, HttpHeaders.CONNECTION,
+                                                                   HttpHeaders.SET_COOKIE);
+
+    /**
+     * Wraps the response so that its body is joined in memory, handed to the consumer and then written as usual.
+     * Responses the predicate rejects are written through without being captured.
+     */
+    static ServerHttpResponse capturing(ServerHttpResponse response, Predicate<ServerHttpResponse> capturable,
+                                        Set<String> skippedHeaders, Consumer<CapturedResponse> consumer) {
+
+        return new ServerHttpResponseDecorator(response) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+
+                if (!capturable.test(getDelegate())) {
+                    return super.writeWith(body);
+                }
+                return DataBufferUtils.join(body).flatMap(joined -> {
+                    byte[] bytes = new byte[joined.readableByteCount()];
+                    joined.read(bytes);
+                    DataBufferUtils.release(joined);
+                    consumer.accept(new CapturedResponse(getStatusCode(), replayable(getHeaders(), skippedHeaders), bytes));
+                    return super.writeWith(Mono.just(bufferFactory().wrap(bytes)));
+                });
+            }
+        };
+    }
+
+    /**
+     * A response read from the service outside of an exchange, without its per-connection headers
+     */
+    static CapturedResponse of(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+        return new CapturedResponse(status, replayable(headers, Set.of()), body);
+    }
+
+    private static HttpHeaders replayable(HttpHeaders headers, Set<String> skippedHeaders) {
+
+        HttpHeaders replayable = new HttpHeaders();
+        headers.forEach((name, values) -> {
+            if (!NOT_REPLAYED_HEADERS.contains(name) && !skippedHeaders.contains(name)) {
+                replayable.addAll(name, values);
+            }
+        });
+        return replayable;
+    }
+
+    /**
+     * Sets status and headers on the exchange's response like the routing filter does and leaves the body to be
+     * written once the route's filters are done, so filters before this one, a retry for example, still see an
+     * uncommitted response they can replace.
+     */
+    Mono<Void> handOver(ServerWebExchange exchange) {
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setContentLength(body.length);
+        exchange.getAttributes().put(BODY_ATTR, body);
+        return Mono.empty();
+    }
+
+    Mono<Void> writeTo(ServerHttpResponse response) {
+
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+}
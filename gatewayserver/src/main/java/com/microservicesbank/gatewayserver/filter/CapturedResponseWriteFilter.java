@@ -0,0 +1,37 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Writes the body a route filter handed over with {@link CapturedResponse#handOver} instead of proxying it, at the same
+ * point the gateway writes a proxied body: after all route filters, so the last attempt of a retried request wins.
+ */
+@Component
+public class CapturedResponseWriteFilter implements GlobalFilter, Ordered {
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+        return chain.filter(exchange).then(Mono.defer(() -> {
+            byte[] body = (byte[]) exchange.getAttributes().remove(CapturedResponse.BODY_ATTR);
+            ServerHttpResponse response = exchange.getResponse();
+            // e.g. a circuit breaker fallback answered after the handed over attempt
+            if (body == null || response.isCommitted()) {
+                return Mono.empty();
+            }
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+        }));
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER;
+    }
+}
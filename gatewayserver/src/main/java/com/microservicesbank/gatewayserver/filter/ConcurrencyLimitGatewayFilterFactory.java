@@ -0,0 +1,72 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.concurrency.AdaptiveConcurrencyLimiter;
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Admits a request to the route only while fewer requests are in flight than the route's adaptive limit,
+ * others are answered right away with 503 and Retry-After instead of queueing up in the service.
+ * Belongs in front of the circuit breaker, so rejected requests do not count as failures of the service.
+ * Only exchanges the service answered are round trip samples: a circuit breaker fallback counts as dropped when
+ * the call failed and is ignored when the circuit was open, other answers made up by the gateway are ignored too.
+ * 4xx answers are ignored as well, the service turned them down without doing the work the limit is measured on.
+ */
+@Component
+public class ConcurrencyLimitGatewayFilterFactory extends AbstractGatewayFilterFactory<Object> {
+
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    public ConcurrencyLimitGatewayFilterFactory(AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    public GatewayFilter apply() {
+        return apply(new Object());
+    }
+
+    @Override
+    public GatewayFilter apply(Object config) {
+
+        return (exchange, chain) -> {
+            AdaptiveConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire(LatencyRecorder.routeId(exchange));
+            if (permit == null) {
+                ServerHttpResponse response = exchange.getResponse();
+                response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+                response.getHeaders().set("Retry-After", "1");
+                return response.setComplete();
+            }
+            return chain.filter(exchange)
+                        .doOnSuccess(ignored -> complete(exchange, permit))
+                        .doOnError(error -> permit.onDropped())
+                        .doOnCancel(permit::onIgnore);
+        };
+    }
+
+    private static void complete(ServerWebExchange exchange, AdaptiveConcurrencyLimiter.Permit permit) {
+
+        Throwable fallbackCause = exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR);
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (fallbackCause instanceof CallNotPermittedException) {
+            permit.onIgnore();
+        } else if (fallbackCause != null) {
+            permit.onDropped();
+        } else if (exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR) == null) {
+            permit.onIgnore();
+        } else if (status != null && status.is5xxServerError()) {
+            permit.onDropped();
+        } else if (status != null && status.is4xxClientError()) {
+            permit.onIgnore();
+        } else {
+            permit.onSuccess();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reads microbank-correlation-id once, generates one when the caller sent none and adds it to the request
+ * forwarded to the services. The id is kept as an exchange attribute and written to the response before it is committed.
+ */
+@Component
+public class CorrelationIdFilter implements GlobalFilter, Ordered {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelationIdFilter.class);
+
+    public static final String CORRELATION_ID_ATTR = CorrelationIdFilter.class.getName() + ".correlationId";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+        String correlationId = exchange.getRequest().getHeaders().getFirst(FilterUtility.CORRELATION_ID);
+        if (correlationId == null) {
+            correlationId = CorrelationIdGenerator.next();
+            exchange = FilterUtility.setCorrelationId(exchange, correlationId);
+            logger.debug("microbank-correlation-id generated: {}", correlationId);
+        } else {
+            logger.debug("microbank-correlation-id found: {}", correlationId);
+        }
+        exchange.getAttributes().put(CORRELATION_ID_ATTR, correlationId);
+
+        String responseCorrelationId = correlationId;
+        ServerWebExchange correlatedExchange = exchange;
+        exchange.getResponse().beforeCommit(() -> {
+            HttpHeaders responseHeaders = correlatedExchange.getResponse().getHeaders();
+            if (!responseHeaders.containsKey(FilterUtility.CORRELATION_ID)) {
+                responseHeaders.set(FilterUtility.CORRELATION_ID, responseCorrelationId);
+            }
+            return Mono.empty();
+        });
+        return chain.filter(exchange);
+    }
+
+    /**
+     * Right after the response time filter, so every other filter can rely on the attribute
+     */
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 1;
+    }
+}
@@ -0,0 +1,42 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Time-ordered correlation ids in the UUID version 7 layout: 48 bits of epoch milliseconds followed by random bits.
+ * Uses ThreadLocalRandom instead of the SecureRandom behind UUID.randomUUID(), so it never blocks or contends;
+ * the ids only have to be unique, not unpredictable.
+ */
+public final class CorrelationIdGenerator {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private CorrelationIdGenerator() {
+    }
+
+    public static String next() {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long mostSignificant = (System.currentTimeMillis() << 16) | 0x7000L | (random.nextLong() & 0x0FFFL);
+        long leastSignificant = (random.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+        char[] id = new char[36];
+        hex(mostSignificant >>> 32, 8, id, 0);
+        id[8] = '-';
+        hex(mostSignificant >>> 16, 4, id, 9);
+        id[13] = '-';
+        hex(mostSignificant, 4, id, 14);
+        id[18] = '-';
+        hex(leastSignificant >>> 48, 4, id, 19);
+        id[23] = '-';
+        hex(leastSignificant, 12, id, 24);
+        return new String(id);
+    }
+
+    private static void hex(long value, int digits, char[] target, int offset) {
+        for (int i = digits - 1; i >= 0; i--) {
+            target[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+}
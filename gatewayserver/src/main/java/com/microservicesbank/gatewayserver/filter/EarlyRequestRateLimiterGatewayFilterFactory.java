@@ -0,0 +1,29 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.stereotype.Component;
+
+/**
+ * The RequestRateLimiter filter, run ahead of the filters that sit right before the response is written
+ * (ResponseCache, RequestCoalescing) instead of at its place in the route's filter list,
+ * so responses they serve without calling the service are rate limited as well.
+ */
+@Component
+public class EarlyRequestRateLimiterGatewayFilterFactory extends RequestRateLimiterGatewayFilterFactory {
+
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+
+    public EarlyRequestRateLimiterGatewayFilterFactory(RateLimiter<?> defaultRateLimiter, KeyResolver defaultKeyResolver) {
+        super(defaultRateLimiter, defaultKeyResolver);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return new OrderedGatewayFilter(super.apply(config), ORDER);
+    }
+}
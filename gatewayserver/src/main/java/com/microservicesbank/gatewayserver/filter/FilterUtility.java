@@ -1,32 +1,21 @@
 package com.microservicesbank.gatewayserver.filter;
 
-import org.springframework.http.HttpHeaders;
-import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 
-import java.util.List;
-
-@Component
-public class FilterUtility {
+public final class FilterUtility {
 
     public static final String CORRELATION_ID = "microbank-correlation-id";
 
-    public String getCorrelationId(HttpHeaders requestHeaders) {
-
-        if (requestHeaders.get(CORRELATION_ID) != null) {
-            List<String> requestHeaderList = requestHeaders.get(CORRELATION_ID);
-            return requestHeaderList.stream().findFirst().get();
-        }
-        return null;
+    private FilterUtility() {
     }
 
-    public ServerWebExchange setRequestHeader(ServerWebExchange exchange, String name, String value) {
+    public static ServerWebExchange setRequestHeader(ServerWebExchange exchange, String name, String value) {
 
         return exchange.mutate().request(exchange.getRequest().mutate().header(name, value).build()).build();
     }
 
-    public ServerWebExchange setCorrelationId(ServerWebExchange exchange, String correlationId) {
+    public static ServerWebExchange setCorrelationId(ServerWebExchange exchange, String correlationId) {
 
-        return this.setRequestHeader(exchange, CORRELATION_ID, correlationId);
+        return setRequestHeader(exchange, CORRELATION_ID, correlationId);
     }
 }
@@ -0,0 +1,431 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.loadbalancer.InstanceStats;
+import com.microservicesbank.gatewayserver.loadbalancer.PowerOfTwoChoicesLoadBalancer;
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Sends a second attempt of an idempotent GET to another instance when the first one has not answered within
+ * the route's recent latency percentile, the response that arrives first is returned and the other attempt cancelled.
+ * Hedges are paid from a budget that grows by maxHedgeRatio per request, so they never exceed that share of traffic.
+ * Each attempt runs the rest of the chain on its own copy of the exchange and its response is read into memory,
+ * so the filter belongs after the circuit breaker and retry, right before the request is routed. The winning response
+ * is not committed here but written by {@link CapturedResponseWriteFilter}, a retry in front can still act on a 5xx.
+ */
+@Component
+public class HedgingGatewayFilterFactory extends AbstractGatewayFilterFactory<HedgingGatewayFilterFactory.Config> {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+
+    private final InstanceStats instanceStats;
+
+    public HedgingGatewayFilterFactory(MeterRegistry meterRegistry, InstanceStats instanceStats) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.instanceStats = instanceStats;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+
+        HedgingPolicy policy = new HedgingPolicy(config);
+        AtomicBoolean gaugeRegistered = new AtomicBoolean();
+        return (exchange, chain) -> {
+            if (!HttpMethod.GET.equals(exchange.getRequest().getMethod())
+                    || config.getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, originalPath(exchange)))) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = LatencyRecorder.routeId(exchange);
+            if (gaugeRegistered.compareAndSet(false, true)) {
+                Gauge.builder("gateway.hedging.delay", policy, HedgingPolicy::getDelayMillis)
+                     .tag("route", routeId)
+                     .baseUnit("milliseconds")
+                     .register(meterRegistry);
+            }
+            // a response handed over by an earlier attempt of a retry is replaced by this one
+            exchange.getAttributes().remove(CapturedResponse.BODY_ATTR);
+            policy.deposit();
+            long start = System.nanoTime();
+            AtomicReference<Throwable> primaryError = new AtomicReference<>();
+            Attempt primary = new Attempt(exchange, chain, null);
+            Duration delay = policy.delay();
+            Mono<Result> primaryResult = primary.send()
+                                                .doOnError(primaryError::set)
+                                                // a cancelled primary was cut off by the hedge, its elapsed time is not a latency sample
+                                                .doOnSuccess(ignored -> policy.record(System.nanoTime() - start))
+                                                .map(response -> new Result(response, "primary_won", primary));
+            Mono<Result> hedgeResult = delay == null ? Mono.error(new NoHedge()) : Mono.delay(delay).then(Mono.defer(() -> {
+                if (primaryError.get() != null) {
+                    return Mono.error(new NoHedge());
+                }
+                if (!policy.tryHedge()) {
+                    count(routeId, "capped");
+                    return Mono.error(new NoHedge());
+                }
+                count(routeId, "hedged");
+                Attempt hedge = new Attempt(exchange, chain, primary.instance());
+                return hedge.send().map(response -> new Result(response, "hedge_won", hedge));
+            }));
+
+            return Mono.firstWithValue(primaryResult, hedgeResult)
+                       .onErrorMap(error -> primaryError.get() != null ? primaryError.get() : error)
+                       .flatMap(result -> {
+                           count(routeId, result.winner());
+                           result.attempt().copyClientResponseTo(exchange);
+                           return result.response().handOver(exchange);
+                       });
+        };
+    }
+
+    /**
+     * primary_won and hedge_won: which attempt answered, together all requests on the hedged paths;
+     * hedged: second attempts sent, capped: second attempts the budget did not allow.
+     * Hedge rate is hedged / (primary_won + hedge_won), win rate hedge_won / hedged.
+     */
+    private void count(String routeId, String result) {
+        meterRegistry.counter("gateway.hedging.requests", "route", routeId, "result", result).increment();
+    }
+
+    private static String originalPath(ServerWebExchange exchange) {
+        Set<URI> originalUrls = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+        return originalUrls == null || originalUrls.isEmpty() ? exchange.getRequest().getPath().value()
+                : originalUrls.iterator().next().getRawPath();
+    }
+
+    /**
+     * One upstream call on a copy of the exchange: own attributes, so the routing filters can run twice at the same time,
+     * and a detached response that only collects status and headers. The body is read from the client connection.
+     */
+    private class Attempt {
+
+        private final ServerWebExchange exchange;
+
+        private final GatewayFilterChain chain;
+
+        Attempt(ServerWebExchange exchange, GatewayFilterChain chain, ServiceInstance excludedInstance) {
+            Map<String, Object> attributes = new HashMap<>(exchange.getAttributes());
+            if (excludedInstance != null) {
+                attributes.put(PowerOfTwoChoicesLoadBalancer.EXCLUDED_INSTANCE_ATTR, excludedInstance);
+            }
+            this.exchange = new ServerWebExchangeDecorator(exchange.mutate().response(new DetachedResponse(exchange.getResponse())).build()) {
+                @Override
+                public Map<String, Object> getAttributes() {
+                    return attributes;
+                }
+            };
+            this.chain = chain;
+        }
+
+        Mono<CapturedResponse> send() {
+
+            return chain.filter(exchange)
+                        .then(Mono.defer(() -> {
+                            Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+                            Mono<byte[]> body = connection == null ? Mono.empty()
+                                    : connection.inbound().receive().aggregate().asByteArray();
+                            ServerHttpResponse response = exchange.getResponse();
+                            return body.defaultIfEmpty(new byte[0])
+                                       .map(bytes -> CapturedResponse.of(response.getStatusCode(), response.getHeaders(), bytes));
+                        }))
+                        .doOnCancel(() -> {
+                            Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+                            if (connection != null) {
+                                connection.dispose();
+                            }
+                            instanceStats.onCancel(exchange.getAttributes());
+                        });
+        }
+
+        /**
+         * Filters in front look for the client response to tell an upstream answer from one the gateway made up
+         */
+        void copyClientResponseTo(ServerWebExchange target) {
+            Object clientResponse = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR);
+            if (clientResponse != null) {
+                target.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, clientResponse);
+            }
+        }
+
+        ServiceInstance instance() {
+            Response<ServiceInstance> lbResponse = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+            return lbResponse == null || !lbResponse.hasServer() ? null : lbResponse.getServer();
+        }
+    }
+
+    /**
+     * Takes status and headers set by the routing filter without touching the client's response
+     */
+    private static class DetachedResponse extends ServerHttpResponseDecorator {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private HttpStatusCode status;
+
+        DetachedResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public boolean setStatusCode(HttpStatusCode status) {
+            this.status = status;
+            return true;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return status;
+        }
+
+        @Override
+        public boolean setRawStatusCode(Integer value) {
+            return setStatusCode(value == null ? null : HttpStatusCode.valueOf(value));
+        }
+
+        @Override
+        public Integer getRawStatusCode() {
+            return status == null ? null : status.value();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean isCommitted() {
+            return false;
+        }
+
+        @Override
+        public void beforeCommit(Supplier<? extends Mono<Void>> action) {
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return writeWith(Flux.from(body).flatMap(Flux::from));
+        }
+
+        @Override
+        public Mono<Void> setComplete() {
+            return Mono.empty();
+        }
+    }
+
+    /**
+     * Latency percentile over the last window of requests and the hedge budget of one route
+     */
+    private static class HedgingPolicy {
+
+        private final Config config;
+
+        private final long[] latencies;
+
+        // never reset, an int would wrap after 2^31 requests on a long-running gateway
+        private long samples;
+
+        private volatile long delayNanos = -1;
+
+        private double budget;
+
+        HedgingPolicy(Config config) {
+            this.config = config;
+            this.latencies = new long[config.getWindow()];
+        }
+
+        /**
+         * @return how long to wait for the first attempt, null while too few requests were seen to know
+         */
+        Duration delay() {
+            long nanos = delayNanos;
+            return nanos < 0 ? null : Duration.ofNanos(Math.max(nanos, config.getMinDelay().toNanos()));
+        }
+
+        synchronized void record(long latencyNanos) {
+
+            latencies[(int) Math.floorMod(samples++, latencies.length)] = latencyNanos;
+            // the percentile is recomputed every tenth of a window, sorting on every request would cost more than it helps
+            int filled = (int) Math.min(samples, latencies.length);
+            if (filled >= config.getMinSamples() && samples % Math.max(1, latencies.length / 10) == 0) {
+                long[] sorted = Arrays.copyOf(latencies, filled);
+                Arrays.sort(sorted);
+                delayNanos = sorted[(int) Math.min(filled - 1, Math.ceil(filled * config.getPercentile() / 100) - 1)];
+            }
+        }
+
+        /**
+         * Every request on a hedged path adds maxHedgeRatio to the budget, whether its first attempt completes or not
+         */
+        synchronized void deposit() {
+            budget = Math.min(config.getMaxBudget(), budget + config.getMaxHedgeRatio());
+        }
+
+        synchronized boolean tryHedge() {
+            if (budget < 1) {
+                return false;
+            }
+            budget--;
+            return true;
+        }
+
+        double getDelayMillis() {
+            Duration delay = delay();
+            return delay == null ? Double.NaN : delay.toNanos() / 1_000_000.0;
+        }
+    }
+
+    private record Result(CapturedResponse response, String winner, Attempt attempt) {
+    }
+
+    /**
+     * Ends the hedge branch when no second attempt is sent, the first attempt decides alone
+     */
+    private static class NoHedge extends RuntimeException {
+
+        NoHedge() {
+            super(null, null, false, false);
+        }
+    }
+
+    public static class Config {
+
+        /**
+         * Ant patterns of the idempotent GET paths (as received by the gateway) that are hedged
+         */
+        private List<String> paths = List.of();
+
+        /**
+         * Latency percentile of the route after which the second attempt is sent
+         */
+        private double percentile = 95;
+
+        /**
+         * Share of the hedged requests that may get a second attempt
+         */
+        private double maxHedgeRatio = 0.05;
+
+        /**
+         * Unused hedges that may pile up in quiet periods and be spent in a burst
+         */
+        private int maxBudget = 10;
+
+        /**
+         * The second attempt is never sent earlier than this, however fast the route usually is
+         */
+        private Duration minDelay = Duration.ofMillis(10);
+
+        /**
+         * Recent requests the percentile is taken over
+         */
+        private int window = 1000;
+
+        /**
+         * Requests seen before the first hedge, a percentile of fewer says little
+         */
+        private int minSamples = 100;
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public double getPercentile() {
+            return percentile;
+        }
+
+        public Config setPercentile(double percentile) {
+            this.percentile = percentile;
+            return this;
+        }
+
+        public double getMaxHedgeRatio() {
+            return maxHedgeRatio;
+        }
+
+        public Config setMaxHedgeRatio(double maxHedgeRatio) {
+            this.maxHedgeRatio = maxHedgeRatio;
+            return this;
+        }
+
+        public int getMaxBudget() {
+            return maxBudget;
+        }
+
+        public Config setMaxBudget(int maxBudget) {
+            this.maxBudget = maxBudget;
+            return this;
+        }
+
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        public Config setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+
+        public Config setWindow(int window) {
+            this.window = window;
+            return this;
+        }
+
+        public int getMinSamples() {
+            return minSamples;
+        }
+
+        public Config setMinSamples(int minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+    }
+}
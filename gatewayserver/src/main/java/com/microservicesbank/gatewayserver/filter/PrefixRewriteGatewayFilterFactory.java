@@ -0,0 +1,70 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Replaces a literal path prefix, e.g. /microbank/cards/ with /, the same as
+ * RewritePath=/microbank/cards/(?<segment>.*), /${segment} without running a regex on every request.
+ * Paths that do not start with the prefix are passed on unchanged.
+ */
+@Component
+public class PrefixRewriteGatewayFilterFactory extends AbstractGatewayFilterFactory<PrefixRewriteGatewayFilterFactory.Config> {
+
+    public PrefixRewriteGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public List<String> shortcutFieldOrder() {
+        return List.of("prefix", "replacement");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+
+        String prefix = config.getPrefix();
+        String replacement = config.getReplacement();
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String path = request.getURI().getRawPath();
+            if (!path.startsWith(prefix)) {
+                return chain.filter(exchange);
+            }
+            ServerWebExchangeUtils.addOriginalRequestUrl(exchange, request.getURI());
+            ServerHttpRequest rewritten = request.mutate().path(replacement + path.substring(prefix.length())).build();
+            exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_REQUEST_URL_ATTR, rewritten.getURI());
+            return chain.filter(exchange.mutate().request(rewritten).build());
+        };
+    }
+
+    public static class Config {
+
+        private String prefix;
+
+        private String replacement = "/";
+
+        public String getPrefix() {
+            return prefix;
+        }
+
+        public Config setPrefix(String prefix) {
+            this.prefix = prefix;
+            return this;
+        }
+
+        public String getReplacement() {
+            return replacement;
+        }
+
+        public Config setReplacement(String replacement) {
+            this.replacement = replacement;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses identical GET requests that are in flight at the same time into one upstream call (single flight).
+ * The first request is forwarded, the ones arriving while it is running wait for its response and get a copy of it.
+ * Requests are only identical when path, query and the Authorization, Accept and Accept-Encoding headers match,
+ * so a response is never handed to a caller with different credentials.
+ * If the first request fails without a response, the waiting ones are forwarded on their own.
+ * Runs right before the gateway writes the response, so it sees the body the routing filter proxied.
+ */
+@Component
+public class RequestCoalescingGatewayFilterFactory extends AbstractGatewayFilterFactory<RequestCoalescingGatewayFilterFactory.Config> {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<CoalescingKey, Mono<CapturedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public RequestCoalescingGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            String path = request.getPath().value();
+            if (!HttpMethod.GET.equals(request.getMethod())
+                    || config.getPaths().stream().noneMatch(pattern -> PATH_MATCHER.match(pattern, path))) {
+                return chain.filter(exchange);
+            }
+
+            String routeId = LatencyRecorder.routeId(exchange);
+            HttpHeaders headers = request.getHeaders();
+            CoalescingKey key = new CoalescingKey(routeId, path, request.getURI().getRawQuery(),
+                                                  headers.getFirst(HttpHeaders.AUTHORIZATION), headers.getFirst(HttpHeaders.ACCEPT),
+                                                  headers.getFirst(HttpHeaders.ACCEPT_ENCODING));
+            Sinks.One<CapturedResponse> sink = Sinks.one();
+            Mono<CapturedResponse> response = sink.asMono();
+            Mono<CapturedResponse> leaderResponse = inFlight.putIfAbsent(key, response);
+
+            if (leaderResponse != null) {
+                return leaderResponse.flatMap(captured -> {
+                                         count(routeId, "follower");
+                                         return captured.writeTo(exchange.getResponse()).thenReturn(captured);
+                                     })
+                                     .switchIfEmpty(Mono.defer(() -> {
+                                         count(routeId, "fallback");
+                                         return chain.filter(exchange).then(Mono.empty());
+                                     }))
+                                     .then();
+            }
+
+            count(routeId, "leader");
+            // later requests start a new flight as soon as the response is known, they must not get a stale copy
+            ServerHttpResponse capturing = CapturedResponse.capturing(exchange.getResponse(), ignored -> true, Set.of(),
+                                                                      captured -> {
+                                                                          inFlight.remove(key, response);
+                                                                          sink.tryEmitValue(captured);
+                                                                      });
+            return chain.filter(exchange.mutate().response(capturing).build())
+                        .doFinally(signal -> {
+                            inFlight.remove(key, response);
+                            sink.tryEmitEmpty();
+                        });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    /**
+     * leader: forwarded; follower: served from the leader's response, one upstream call saved;
+     * fallback: the leader got no response, forwarded after waiting for it
+     */
+    private void count(String routeId, String role) {
+        meterRegistry.counter("gateway.coalescing.requests", "route", routeId, "role", role).increment();
+    }
+
+    public static class Config {
+
+        /**
+         * Ant patterns of the GET paths (as received by the gateway) whose concurrent identical requests are collapsed
+         */
+        private List<String> paths = List.of();
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+    }
+
+    private record CoalescingKey(String routeId, String path, String query, String authorization, String accept,
+                                 String acceptEncoding) {
+    }
+}
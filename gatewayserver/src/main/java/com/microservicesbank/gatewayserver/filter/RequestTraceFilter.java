@@ -1,48 +0,0 @@
-package com.microservicesbank.gatewayserver.filter;
-
-import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.cloud.gateway.filter.GatewayFilterChain;
-import org.springframework.cloud.gateway.filter.GlobalFilter;
-import org.springframework.core.annotation.Order;
-import org.springframework.http.HttpHeaders;
-import org.springframework.stereotype.Component;
-import org.springframework.web.server.ServerWebExchange;
-import reactor.core.publisher.Mono;
-import org.slf4j.Logger;
-
-import static java.util.UUID.randomUUID;
-
-@Order(1)
-@Component
-public class RequestTraceFilter implements GlobalFilter {
-
-    private static final Logger logger = LoggerFactory.getLogger(RequestTraceFilter.class);
-
-    @Autowired
-    private FilterUtility filterUtility;
-
-    @Override
-    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
-
-        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
-        if (isCorrelationIdPresent(requestHeaders)) {
-            logger.debug("microbank-correlation-id found in the RequestTraceFilter: {}", filterUtility.getCorrelationId(requestHeaders));
-        } else {
-            String correlationId = generateCorrelationId();
-            exchange = filterUtility.setCorrelationId(exchange, correlationId);
-            logger.debug("microbank-correlation-id generated in the RequestTraceFilter: {}", correlationId);
-        }
-        return chain.filter(exchange);
-    }
-
-    private boolean isCorrelationIdPresent(HttpHeaders requestHeaders) {
-
-        return filterUtility.getCorrelationId(requestHeaders) != null;
-    }
-
-    private String generateCorrelationId() {
-
-        return randomUUID().toString();
-    }
-}
@@ -0,0 +1,236 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches successful GET responses of the configured paths per route, keyed by path, query and the caller.
+ * A PUT or DELETE through the same route invalidates the cached responses of the resource it names
+ * (the resource parameter, mobileNumber by default), or of the whole route when the request does not name one.
+ * Runs right before the gateway writes the response, so it sees the body the routing filter proxied.
+ * Circuit breaker fallbacks are not cached. The cache is local to each gateway instance.
+ */
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResponseCacheGatewayFilterFactory.class);
+
+    public static final String CACHE_HEADER = "X-Cache";
+
+    private static final String ANONYMOUS = "anonymous";
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, RouteCache> routeCaches = new ConcurrentHashMap<>();
+
+    public ResponseCacheGatewayFilterFactory(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+
+        return new OrderedGatewayFilter((exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            HttpMethod method = request.getMethod();
+            if (HttpMethod.PUT.equals(method) || HttpMethod.DELETE.equals(method)) {
+                RouteCache routeCache = routeCache(exchange, config);
+                String resource = request.getQueryParams().getFirst(config.getResourceParameter());
+                // invalidated again once the change went through, so a GET racing with it cannot keep the old state
+                routeCache.invalidate(resource);
+                return chain.filter(exchange).doFinally(signal -> routeCache.evict(resource));
+            }
+            if (!HttpMethod.GET.equals(method) || !isCached(request, config)) {
+                return chain.filter(exchange);
+            }
+
+            RouteCache routeCache = routeCache(exchange, config);
+            return exchange.getPrincipal()
+                           .map(Principal::getName)
+                           .defaultIfEmpty(ANONYMOUS)
+                           .flatMap(caller -> {
+                               CacheKey key = new CacheKey(request.getPath().value(), request.getURI().getRawQuery(), caller,
+                                                           request.getQueryParams().getFirst(config.getResourceParameter()));
+                               CapturedResponse cached = routeCache.get(key);
+                               if (cached != null) {
+                                   exchange.getResponse().getHeaders().set(CACHE_HEADER, "HIT");
+                                   return cached.writeTo(exchange.getResponse());
+                               }
+                               exchange.getResponse().getHeaders().set(CACHE_HEADER, "MISS");
+                               ServerHttpResponse caching = CapturedResponse.capturing(exchange.getResponse(),
+                                       response -> isCacheable(exchange, response), Set.of(CACHE_HEADER),
+                                       response -> routeCache.put(key, response));
+                               return chain.filter(exchange.mutate().response(caching).build());
+                           });
+        }, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private RouteCache routeCache(ServerWebExchange exchange, Config config) {
+        return routeCaches.computeIfAbsent(LatencyRecorder.routeId(exchange), routeId -> new RouteCache(routeId, config, meterRegistry));
+    }
+
+    private static boolean isCached(ServerHttpRequest request, Config config) {
+
+        String cacheControl = request.getHeaders().getCacheControl();
+        if (cacheControl != null && cacheControl.contains(CacheControl.noCache().getHeaderValue())) {
+            return false;
+        }
+        String path = request.getPath().value();
+        return config.getPaths().stream().anyMatch(pattern -> PATH_MATCHER.match(pattern, path));
+    }
+
+    private static boolean isCacheable(ServerWebExchange exchange, ServerHttpResponse response) {
+
+        if (exchange.getAttribute(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR) != null) {
+            return false;
+        }
+        String cacheControl = response.getHeaders().getCacheControl();
+        return HttpStatus.OK.equals(response.getStatusCode()) && (cacheControl == null || !cacheControl.contains("no-store"));
+    }
+
+    public static class Config {
+
+        /**
+         * Ant patterns of the GET paths (as received by the gateway) whose responses are cached
+         */
+        private List<String> paths = List.of();
+
+        /**
+         * How long a response is served from the cache
+         */
+        private Duration timeToLive = Duration.ofSeconds(30);
+
+        /**
+         * Responses kept per route, the least recently used ones are evicted first
+         */
+        private long maximumSize = 10_000;
+
+        /**
+         * Query parameter naming the resource, PUT and DELETE with the same value invalidate its cached responses
+         */
+        private String resourceParameter = "mobileNumber";
+
+        public List<String> getPaths() {
+            return paths;
+        }
+
+        public Config setPaths(List<String> paths) {
+            this.paths = paths;
+            return this;
+        }
+
+        public Duration getTimeToLive() {
+            return timeToLive;
+        }
+
+        public Config setTimeToLive(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+            return this;
+        }
+
+        public long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public Config setMaximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public String getResourceParameter() {
+            return resourceParameter;
+        }
+
+        public Config setResourceParameter(String resourceParameter) {
+            this.resourceParameter = resourceParameter;
+            return this;
+        }
+    }
+
+    private record CacheKey(String path, String query, String caller, String resource) {
+    }
+
+    private static final class RouteCache {
+
+        private final Cache<CacheKey, CapturedResponse> cache;
+
+        private final Counter hits;
+
+        private final Counter misses;
+
+        private final Counter invalidations;
+
+        private final String routeId;
+
+        private RouteCache(String routeId, Config config, MeterRegistry meterRegistry) {
+            this.routeId = routeId;
+            this.cache = Caffeine.newBuilder()
+                                 .maximumSize(config.getMaximumSize())
+                                 .expireAfterWrite(config.getTimeToLive())
+                                 .build();
+            this.hits = meterRegistry.counter("gateway.response.cache.requests", "route", routeId, "result", "hit");
+            this.misses = meterRegistry.counter("gateway.response.cache.requests", "route", routeId, "result", "miss");
+            this.invalidations = meterRegistry.counter("gateway.response.cache.invalidations", "route", routeId);
+            Gauge.builder("gateway.response.cache.size", cache, Cache::estimatedSize)
+                 .tag("route", routeId)
+                 .register(meterRegistry);
+        }
+
+        private CapturedResponse get(CacheKey key) {
+
+            CapturedResponse cached = cache.getIfPresent(key);
+            (cached == null ? misses : hits).increment();
+            return cached;
+        }
+
+        private void put(CacheKey key, CapturedResponse response) {
+            cache.put(key, response);
+        }
+
+        private void invalidate(String resource) {
+
+            invalidations.increment();
+            evict(resource);
+        }
+
+        private void evict(String resource) {
+
+            if (resource == null) {
+                cache.invalidateAll();
+            } else {
+                cache.asMap().keySet().removeIf(key -> resource.equals(key.resource()));
+            }
+            logger.debug("Invalidated cached responses of route {} for resource {}", routeId, resource == null ? "*" : resource);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.Locale;
+
+/**
+ * Runs first among the global filters. Measures each exchange with the monotonic clock, returns the time spent
+ * until the response is committed in X-Response-Time and records the time until completion per route.
+ */
+@Component
+public class ResponseTimeFilter implements GlobalFilter, Ordered {
+
+    public static final String RESPONSE_TIME = "X-Response-Time";
+
+    private final LatencyRecorder latencyRecorder;
+
+    public ResponseTimeFilter(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+        long start = System.nanoTime();
+        exchange.getResponse().beforeCommit(() -> {
+            double millis = (System.nanoTime() - start) / 1_000_000.0;
+            exchange.getResponse().getHeaders().set(RESPONSE_TIME, String.format(Locale.ROOT, "%.3fms", millis));
+            return Mono.empty();
+        });
+        Runnable record = () -> latencyRecorder.recordTotal(exchange, System.nanoTime() - start);
+        return chain.filter(exchange)
+                    .doOnTerminate(record)
+                    .doOnCancel(record);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,46 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.retry.RetryBudget;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Pays every successful upstream call of every route into the {@link RetryBudget}, so the budget grows with all
+ * traffic and not only with the routes that retry. Runs right before the Netty routing filter, so each attempt of a
+ * retried or hedged request counts on its own, and fallbacks, cached and rejected answers never reach it.
+ * 4xx answers are not successes the service could be retried on, they deposit nothing.
+ */
+@Component
+public class RetryBudgetFilter implements GlobalFilter, Ordered {
+
+    private final RetryBudget retryBudget;
+
+    public RetryBudgetFilter(RetryBudget retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+        return chain.filter(exchange)
+                    .doOnSuccess(ignored -> {
+                        HttpStatusCode status = exchange.getResponse().getStatusCode();
+                        if (exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR) != null
+                                && status != null && !status.isError()) {
+                            retryBudget.onSuccess();
+                        }
+                    });
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
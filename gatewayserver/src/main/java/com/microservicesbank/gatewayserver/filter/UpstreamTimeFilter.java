@@ -0,0 +1,40 @@
+package com.microservicesbank.gatewayserver.filter;
+
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Runs right before the Netty routing filter, so it only measures the call to the service
+ * (until the response headers arrived), without the filters and fallbacks around it.
+ */
+@Component
+public class UpstreamTimeFilter implements GlobalFilter, Ordered {
+
+    private final LatencyRecorder latencyRecorder;
+
+    public UpstreamTimeFilter(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+
+        long start = System.nanoTime();
+        // recorded before the completion is passed on, doFinally would run after the outer filters handled it
+        Runnable record = () -> latencyRecorder.recordUpstream(exchange, System.nanoTime() - start);
+        return chain.filter(exchange)
+                    .doOnTerminate(record)
+                    .doOnCancel(record);
+    }
+
+    @Override
+    public int getOrder() {
+        return NettyRoutingFilter.ORDER - 1;
+    }
+}
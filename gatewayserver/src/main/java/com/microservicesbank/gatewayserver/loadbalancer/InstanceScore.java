@@ -0,0 +1,61 @@
+package com.microservicesbank.gatewayserver.loadbalancer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Peak EWMA latency and in-flight count of one service instance. A sample above the average replaces it right away,
+ * lower samples pull it down with a weight that depends on the time since the last sample, so an instance that
+ * slows down is avoided at once and is trusted again gradually. The cost used to compare instances is the average
+ * times the requests in flight plus one. An instance that was never measured is given a latency from outside,
+ * otherwise it would cost nothing and win every comparison however many requests already wait on it.
+ */
+public class InstanceScore {
+
+    private final long decayNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private double ewmaNanos;
+
+    private long lastSample;
+
+    InstanceScore(long decayNanos) {
+        this.decayNanos = decayNanos;
+    }
+
+    void onStart() {
+        inFlight.incrementAndGet();
+    }
+
+    synchronized void onComplete(long rttNanos, long now) {
+
+        inFlight.decrementAndGet();
+        if (rttNanos > ewmaNanos) {
+            ewmaNanos = rttNanos;
+        } else {
+            double weight = Math.exp(-(double) (now - lastSample) / decayNanos);
+            ewmaNanos = ewmaNanos * weight + rttNanos * (1 - weight);
+        }
+        lastSample = now;
+    }
+
+    /**
+     * @param unmeasuredLatencyNanos used as the latency average while no request to the instance has completed
+     * @return latency average in nanoseconds times (in-flight + 1)
+     */
+    synchronized double cost(double unmeasuredLatencyNanos) {
+        return (ewmaNanos > 0 ? ewmaNanos : unmeasuredLatencyNanos) * (inFlight.get() + 1);
+    }
+
+    synchronized boolean isMeasured() {
+        return ewmaNanos > 0;
+    }
+
+    public synchronized double getLatencyMillis() {
+        return ewmaNanos / 1_000_000;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
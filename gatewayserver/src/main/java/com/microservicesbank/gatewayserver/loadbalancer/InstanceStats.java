@@ -0,0 +1,122 @@
+package com.microservicesbank.gatewayserver.loadbalancer;
+
+import com.microservicesbank.gatewayserver.config.LoadBalancerProperties;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an {@link InstanceScore} per service instance, fed by the load balancer lifecycle of the gateway's
+ * lb:// routes: the start of a request is taken when the instance was chosen, the end when the response arrived.
+ */
+@Component
+public class InstanceStats implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final String START_ATTR = InstanceStats.class.getName() + ".start";
+
+    private final LoadBalancerProperties properties;
+
+    private final Map<String, Map<String, InstanceScore>> scores = new ConcurrentHashMap<>();
+
+    public InstanceStats(LoadBalancerProperties properties) {
+        this.properties = properties;
+    }
+
+    public InstanceScore score(ServiceInstance instance) {
+        return scores.computeIfAbsent(instance.getServiceId(), serviceId -> new ConcurrentHashMap<>())
+                     .computeIfAbsent(key(instance), key -> new InstanceScore(properties.getDecayTime().toNanos()));
+    }
+
+    /**
+     * An instance that was never measured, a new one or one that just came back, is assumed to be as fast as the
+     * average of the measured instances of its service, so its in-flight requests still count against it.
+     * While no instance of the service is measured the cost is the in-flight count alone.
+     *
+     * @return the cost {@link PowerOfTwoChoicesLoadBalancer} compares, lower is better
+     */
+    public double cost(ServiceInstance instance) {
+
+        InstanceScore score = score(instance);
+        if (score.isMeasured()) {
+            return score.cost(0);
+        }
+        double averageLatency = scores.get(instance.getServiceId()).values().stream()
+                                      .filter(InstanceScore::isMeasured)
+                                      .mapToDouble(InstanceScore::getLatencyMillis)
+                                      .average()
+                                      .orElse(0) * 1_000_000;
+        return score.cost(Math.max(averageLatency, 1));
+    }
+
+    /**
+     * @return the scores by service and host:port
+     */
+    public Map<String, Map<String, InstanceScore>> getScores() {
+        return scores;
+    }
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return RequestDataContext.class.isAssignableFrom(requestContextClass)
+                && ResponseData.class.isAssignableFrom(responseClass)
+                && ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        request.getContext().getClientRequest().getAttributes().put(START_ATTR, System.nanoTime());
+        score(lbResponse.getServer()).onStart();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completionContext) {
+
+        ResponseData response = completionContext.getClientResponse();
+        boolean failed = completionContext.status() == CompletionContext.Status.FAILED
+                || response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError();
+        complete(completionContext.getLoadBalancerRequest().getContext().getClientRequest().getAttributes(),
+                 completionContext.getLoadBalancerResponse(), failed);
+    }
+
+    /**
+     * The load balancer lifecycle is not told about cancelled requests, whoever cancels one must report it here
+     * with the attributes of its exchange. The time until the cancellation counts as a sample.
+     */
+    public void onCancel(Map<String, Object> exchangeAttributes) {
+        complete(exchangeAttributes, exchangeAttributes.get(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR), false);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete(Map<String, Object> attributes, Object lbResponse, boolean failed) {
+
+        // removed, so a request cancelled after it completed is not counted twice
+        Long start = (Long) attributes.remove(START_ATTR);
+        if (start == null || !(lbResponse instanceof Response<?> response) || !response.hasServer()) {
+            return;
+        }
+        long now = System.nanoTime();
+        long rtt = failed ? Math.max(now - start, properties.getFailurePenalty().toNanos()) : now - start;
+        score(((Response<ServiceInstance>) response).getServer()).onComplete(rtt, now);
+    }
+
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+}
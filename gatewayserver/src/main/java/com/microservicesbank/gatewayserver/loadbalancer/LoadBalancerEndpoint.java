@@ -0,0 +1,27 @@
+package com.microservicesbank.gatewayserver.loadbalancer;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * /actuator/loadbalancer lists the latency average and in-flight count of every instance the gateway called
+ */
+@Component
+@Endpoint(id = "loadbalancer")
+public class LoadBalancerEndpoint {
+
+    private final InstanceStats instanceStats;
+
+    public LoadBalancerEndpoint(InstanceStats instanceStats) {
+        this.instanceStats = instanceStats;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, InstanceScore>> scores() {
+        return new TreeMap<>(instanceStats.getScores());
+    }
+}
@@ -0,0 +1,73 @@
+package com.microservicesbank.gatewayserver.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks two different instances at random and sends the request to the one with the lower {@link InstanceStats#cost cost}.
+ * Comparing two instead of all keeps the choice cheap and avoids every gateway instance piling onto the same
+ * momentarily best one, while a slow or overloaded instance rarely wins a comparison.
+ * An instance put into the exchange attribute {@link #EXCLUDED_INSTANCE_ATTR} is skipped while others are available.
+ */
+public class PowerOfTwoChoicesLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    public static final String EXCLUDED_INSTANCE_ATTR = PowerOfTwoChoicesLoadBalancer.class.getName() + ".excluded";
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final InstanceStats instanceStats;
+
+    public PowerOfTwoChoicesLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+                                         InstanceStats instanceStats) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.instanceStats = instanceStats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+
+        ServiceInstanceListSupplier supplier = serviceInstanceListSupplierProvider
+                .getIfAvailable(NoopServiceInstanceListSupplier::new);
+        ServiceInstance excluded = request.getContext() instanceof RequestDataContext context
+                ? (ServiceInstance) context.getClientRequest().getAttributes().get(EXCLUDED_INSTANCE_ATTR) : null;
+        return supplier.get(request).next().map(instances -> choose(instances, excluded));
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances, ServiceInstance excluded) {
+
+        if (excluded != null && instances.size() > 1) {
+            instances = instances.stream()
+                                 .filter(instance -> !(instance.getHost().equals(excluded.getHost())
+                                         && instance.getPort() == excluded.getPort()))
+                                 .toList();
+        }
+
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(instances.size());
+        int second = random.nextInt(instances.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = instances.get(first);
+        ServiceInstance b = instances.get(second);
+        return new DefaultResponse(instanceStats.cost(a) <= instanceStats.cost(b) ? a : b);
+    }
+}
@@ -0,0 +1,24 @@
+package com.microservicesbank.gatewayserver.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Load balancer configuration of every service, registered through @LoadBalancerClients and created in the
+ * service's own child context, therefore not a component scanned @Configuration.
+ */
+public class PowerOfTwoChoicesLoadBalancerConfig {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> powerOfTwoChoicesLoadBalancer(Environment environment,
+                                                                             LoadBalancerClientFactory clientFactory,
+                                                                             InstanceStats instanceStats) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new PowerOfTwoChoicesLoadBalancer(clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                                                 instanceStats);
+    }
+}
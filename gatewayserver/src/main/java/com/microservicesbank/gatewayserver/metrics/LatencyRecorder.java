@@ -0,0 +1,57 @@
+package com.microservicesbank.gatewayserver.metrics;
+
+import com.microservicesbank.gatewayserver.config.LatencyProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-route latency histograms: gateway.route.latency covers the whole exchange in the gateway,
+ * gateway.route.upstream.latency the call to the service until its response headers arrived.
+ */
+@Component
+public class LatencyRecorder {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Duration[] slos;
+
+    private final Map<String, Timer> totalTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Timer> upstreamTimers = new ConcurrentHashMap<>();
+
+    public LatencyRecorder(MeterRegistry meterRegistry, LatencyProperties latencyProperties) {
+        this.meterRegistry = meterRegistry;
+        this.slos = latencyProperties.getSlos().toArray(Duration[]::new);
+    }
+
+    public void recordTotal(ServerWebExchange exchange, long nanos) {
+        totalTimers.computeIfAbsent(routeId(exchange), routeId -> timer("gateway.route.latency", routeId))
+                   .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordUpstream(ServerWebExchange exchange, long nanos) {
+        upstreamTimers.computeIfAbsent(routeId(exchange), routeId -> timer("gateway.route.upstream.latency", routeId))
+                      .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String name, String routeId) {
+        return Timer.builder(name)
+                    .tag("route", routeId)
+                    .serviceLevelObjectives(slos)
+                    .register(meterRegistry);
+    }
+
+    public static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+        return route == null ? "none" : route.getId();
+    }
+}
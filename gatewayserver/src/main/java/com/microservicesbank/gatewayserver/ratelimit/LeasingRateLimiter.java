@@ -0,0 +1,203 @@
+package com.microservicesbank.gatewayserver.ratelimit;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.microservicesbank.gatewayserver.config.RateLimitProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Rate limiter that serves most requests from tokens leased in batches from a token bucket in Redis.
+ * Leased tokens are taken with a compare-and-set, Redis is only called when the lease of a key is used up or expired,
+ * and after Redis found the bucket empty not again before a token can have been added. A key has at most one lease
+ * call in flight, the requests arriving meanwhile wait for its tokens instead of leasing their own.
+ * Since every admitted request used a token of the shared bucket, the global limit is never exceeded; the tolerance
+ * bounds how many tokens can sit unused on the instances (and be spent later than they were granted).
+ * When Redis fails or is slow, each instance limits on its own at its share of the rate until the retry interval passed.
+ */
+public class LeasingRateLimiter extends AbstractRateLimiter<RateLimitProperties> {
+
+    private static final Logger logger = LoggerFactory.getLogger(LeasingRateLimiter.class);
+
+    /**
+     * Outcome of a lease call that failed or timed out, granted counts are never negative
+     */
+    private static final long REDIS_FAILED = -1;
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "leasing-rate-limiter";
+
+    private final RateLimitProperties defaultConfig;
+
+    private final TokenLeaseSource tokenLeaseSource;
+
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, KeyState> keyStates;
+
+    private volatile long redisRetryAt;
+
+    public LeasingRateLimiter(RateLimitProperties defaultConfig, TokenLeaseSource tokenLeaseSource, MeterRegistry meterRegistry) {
+        super(RateLimitProperties.class, CONFIGURATION_PROPERTY_NAME, (ConfigurationService) null);
+        this.defaultConfig = defaultConfig;
+        this.tokenLeaseSource = tokenLeaseSource;
+        this.meterRegistry = meterRegistry;
+        this.keyStates = Caffeine.newBuilder()
+                                 .expireAfterAccess(Duration.ofMinutes(10))
+                                 .build();
+        this.redisRetryAt = System.nanoTime();
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+
+        RateLimitProperties config = getConfig().getOrDefault(routeId, defaultConfig);
+        String key = routeId + "." + id;
+        KeyState keyState = keyStates.get(key, ignored -> new KeyState(config));
+        long now = System.nanoTime();
+
+        long remaining = keyState.takeLeased(now);
+        if (remaining >= 0) {
+            return Mono.just(response(routeId, "lease", true, remaining, config));
+        }
+        if (now - keyState.emptyUntil < 0) {
+            return Mono.just(response(routeId, "lease", false, 0, config));
+        }
+        if (now - redisRetryAt < 0) {
+            return Mono.just(local(routeId, keyState, now, config));
+        }
+        return keyState.refill(() -> lease(key, keyState, config)).flatMap(granted -> {
+            if (granted == REDIS_FAILED) {
+                return Mono.just(local(routeId, keyState, System.nanoTime(), config));
+            }
+            long leasedRemaining = keyState.takeLeased(System.nanoTime());
+            if (leasedRemaining >= 0) {
+                return Mono.just(response(routeId, "lease", true, leasedRemaining, config));
+            }
+            if (granted == 0) {
+                return Mono.just(response(routeId, "lease", false, 0, config));
+            }
+            // the waiting requests used up the new lease, the bucket may still hold tokens
+            return isAllowed(routeId, id);
+        });
+    }
+
+    /**
+     * Leases tokens for the key and applies the answer to its state before any waiting request sees it
+     */
+    private Mono<Long> lease(String key, KeyState keyState, RateLimitProperties config) {
+
+        return tokenLeaseSource.lease(key, config.getReplenishRate(), config.getBurstCapacity(), config.getLeaseSize())
+                               .timeout(config.getRedisTimeout())
+                               .doOnNext(granted -> {
+                                   meterRegistry.counter("gateway.ratelimit.redis.calls", "outcome", "success").increment();
+                                   if (granted <= 0) {
+                                       // the next token is back in the shared bucket after one emission interval
+                                       keyState.emptyUntil = System.nanoTime() + 1_000_000_000L / config.getReplenishRate();
+                                   } else {
+                                       keyState.addLease(granted, System.nanoTime(), config.getLeaseTtl());
+                                   }
+                               })
+                               .map(granted -> Math.max(0, granted))
+                               .onErrorResume(e -> {
+                                   meterRegistry.counter("gateway.ratelimit.redis.calls", "outcome", "failure").increment();
+                                   redisRetryAt = System.nanoTime() + config.getRedisRetryInterval().toNanos();
+                                   logger.warn("Leasing tokens from Redis failed, limiting locally for {}: {}",
+                                               config.getRedisRetryInterval(), e.toString());
+                                   return Mono.just(REDIS_FAILED);
+                               });
+    }
+
+    private Response local(String routeId, KeyState keyState, long now, RateLimitProperties config) {
+        return response(routeId, "local", keyState.localBucket.tryAcquire(now), -1, config);
+    }
+
+    private Response response(String routeId, String source, boolean allowed, long remaining, RateLimitProperties config) {
+
+        meterRegistry.counter("gateway.ratelimit.requests", "route", routeId, "source", source,
+                              "result", allowed ? "allowed" : "denied").increment();
+        return new Response(allowed, Map.of("X-RateLimit-Remaining", Long.toString(remaining),
+                                            "X-RateLimit-Replenish-Rate", Integer.toString(config.getReplenishRate()),
+                                            "X-RateLimit-Burst-Capacity", Integer.toString(config.getBurstCapacity())));
+    }
+
+    private static final class KeyState {
+
+        private final AtomicReference<Lease> lease = new AtomicReference<>();
+
+        private final AtomicReference<Mono<Long>> pendingLease = new AtomicReference<>();
+
+        private final LocalTokenBucket localBucket;
+
+        private volatile long emptyUntil = System.nanoTime();
+
+        private KeyState(RateLimitProperties config) {
+            int instances = Math.max(1, config.getExpectedInstances());
+            this.localBucket = new LocalTokenBucket((double) config.getReplenishRate() / instances,
+                                                    Math.max(1, config.getBurstCapacity() / instances));
+        }
+
+        /**
+         * @return tokens left in the lease after taking one, -1 when there was none to take
+         */
+        private long takeLeased(long now) {
+
+            Lease current = lease.get();
+            if (current == null || now - current.expiresAt() >= 0) {
+                return -1;
+            }
+            while (true) {
+                long tokens = current.tokens().get();
+                if (tokens <= 0) {
+                    return -1;
+                }
+                if (current.tokens().compareAndSet(tokens, tokens - 1)) {
+                    return tokens - 1;
+                }
+            }
+        }
+
+        /**
+         * Joins the lease call in flight for this key or starts one, the call is made once however many requests wait.
+         * The call is no longer pending once its answer is applied, so requests retrying after it start a new one.
+         * @return tokens granted, or REDIS_FAILED
+         */
+        private Mono<Long> refill(Supplier<Mono<Long>> leaseCall) {
+
+            Mono<Long> pending = pendingLease.get();
+            if (pending != null) {
+                return pending;
+            }
+            Mono<Long> refill = Mono.defer(leaseCall)
+                                    .doOnNext(ignored -> pendingLease.set(null))
+                                    .cache();
+            pending = pendingLease.compareAndExchange(null, refill);
+            return pending != null ? pending : refill;
+        }
+
+        /**
+         * Races can only lose leased tokens (a lease replaced while it still held some), never create them
+         */
+        private void addLease(long tokens, long now, Duration ttl) {
+
+            Lease current = lease.get();
+            if (current != null && now - current.expiresAt() < 0) {
+                current.tokens().addAndGet(tokens);
+            } else {
+                lease.set(new Lease(new AtomicLong(tokens), now + ttl.toNanos()));
+            }
+        }
+    }
+
+    private record Lease(AtomicLong tokens, long expiresAt) {
+    }
+}
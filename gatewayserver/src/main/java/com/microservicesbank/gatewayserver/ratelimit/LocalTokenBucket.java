@@ -0,0 +1,35 @@
+package com.microservicesbank.gatewayserver.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket in the GCRA form: a single theoretical arrival time is moved forward
+ * by one emission interval per admitted request, with compare-and-set.
+ */
+class LocalTokenBucket {
+
+    private final long emissionIntervalNanos;
+
+    private final long burstNanos;
+
+    private final AtomicLong theoreticalArrival = new AtomicLong(Long.MIN_VALUE);
+
+    LocalTokenBucket(double ratePerSecond, int burstCapacity) {
+        this.emissionIntervalNanos = (long) (1_000_000_000L / ratePerSecond);
+        this.burstNanos = emissionIntervalNanos * Math.max(1, burstCapacity);
+    }
+
+    boolean tryAcquire(long nowNanos) {
+
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current == Long.MIN_VALUE ? nowNanos : current, nowNanos) + emissionIntervalNanos;
+            if (next - nowNanos > burstNanos) {
+                return false;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.microservicesbank.gatewayserver.ratelimit;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public class RedisTokenLeaseSource implements TokenLeaseSource {
+
+    private static final RedisScript<Long> TOKEN_LEASE_SCRIPT = RedisScript.of(new ClassPathResource("scripts/token_lease.lua"), Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+
+    public RedisTokenLeaseSource(ReactiveStringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    @Override
+    public Mono<Long> lease(String key, int replenishRate, int burstCapacity, int requested) {
+
+        // the braces keep both keys in the same slot on a Redis cluster
+        String prefix = "token_lease.{" + key + "}.";
+        return redisTemplate.execute(TOKEN_LEASE_SCRIPT, List.of(prefix + "tokens", prefix + "timestamp"),
+                                     List.of(Integer.toString(replenishRate), Integer.toString(burstCapacity),
+                                             Integer.toString(requested)))
+                            .next()
+                            .defaultIfEmpty(0L);
+    }
+}
@@ -0,0 +1,20 @@
+package com.microservicesbank.gatewayserver.ratelimit;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * Shared token bucket the gateway instances lease tokens from
+ */
+public interface TokenLeaseSource {
+
+    /**
+     * Takes up to the requested number of tokens from the bucket of the key
+     *
+     * @param key           rate limited key (route and caller)
+     * @param replenishRate tokens added per second
+     * @param burstCapacity maximum tokens in the bucket
+     * @param requested     tokens wanted
+     * @return tokens granted, between 0 and requested
+     */
+    Mono<Long> lease(String key, int replenishRate, int burstCapacity, int requested);
+}
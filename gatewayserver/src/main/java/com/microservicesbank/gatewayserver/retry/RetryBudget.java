@@ -0,0 +1,61 @@
+package com.microservicesbank.gatewayserver.retry;
+
+import com.microservicesbank.gatewayserver.config.RetryBudgetProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * Gateway-wide allowance of retries. Every successful upstream call deposits ratio retries, time adds
+ * minRetriesPerSecond, a retry withdraws one, the balance never exceeds maxBalance. While a service fails
+ * nothing is deposited, so the retries sent to it are bounded by the balance and the per-second minimum
+ * instead of growing with the traffic. The balance is published as gateway.retry.budget.balance.
+ */
+@Component
+public class RetryBudget {
+
+    private final RetryBudgetProperties properties;
+
+    private double balance;
+
+    private long lastRefill;
+
+    public RetryBudget(RetryBudgetProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.balance = properties.getMaxBalance();
+        this.lastRefill = System.nanoTime();
+        Gauge.builder("gateway.retry.budget.balance", this, RetryBudget::getBalance)
+             .register(meterRegistry);
+    }
+
+    /**
+     * A call answered by the service without an error, whichever route it was on
+     */
+    public synchronized void onSuccess() {
+        balance = Math.min(properties.getMaxBalance(), balance + properties.getRatio());
+    }
+
+    /**
+     * @return whether a retry may be sent, the budget is charged for it if so
+     */
+    public synchronized boolean tryRetry() {
+
+        refill();
+        if (balance < 1) {
+            return false;
+        }
+        balance--;
+        return true;
+    }
+
+    public synchronized double getBalance() {
+        refill();
+        return balance;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        balance = Math.min(properties.getMaxBalance(), balance + properties.getMinRetriesPerSecond() * (now - lastRefill) / 1e9);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,82 @@
+package com.microservicesbank.gatewayserver.routing;
+
+import org.springframework.http.server.PathContainer;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Path segments of literal route prefixes in a trie. Looking up a path walks its segments once and collects
+ * the positions of all routes whose prefix it starts with, however many routes there are.
+ */
+class PathPrefixTrie {
+
+    private static final int[] NONE = new int[0];
+
+    private final Node root = new Node();
+
+    /**
+     * Positions must be added in ascending order
+     */
+    void add(String prefix, int position) {
+
+        Node node = root;
+        for (String segment : segments(prefix)) {
+            node = node.children.computeIfAbsent(segment, ignored -> new Node());
+        }
+        node.positions = Arrays.copyOf(node.positions, node.positions.length + 1);
+        node.positions[node.positions.length - 1] = position;
+    }
+
+    /**
+     * Segments are compared the way the Path predicate matches them, decoded and without matrix parameters
+     *
+     * @return positions of the routes whose prefix the path starts with, in ascending order
+     */
+    int[] candidates(PathContainer path) {
+
+        // a node's own positions are ascending, only joined arrays need sorting
+        int[] found = root.positions;
+        boolean joined = false;
+        Node node = root;
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment)) {
+                continue;
+            }
+            node = node.children.get(segment.valueToMatch());
+            if (node == null) {
+                break;
+            }
+            if (node.positions.length > 0) {
+                joined = found.length > 0;
+                found = concat(found, node.positions);
+            }
+        }
+        if (joined) {
+            Arrays.sort(found);
+        }
+        return found;
+    }
+
+    private static String[] segments(String prefix) {
+        String trimmed = prefix.replaceAll("^/+|/+$", "");
+        return trimmed.isEmpty() ? new String[0] : trimmed.split("/+");
+    }
+
+    private static int[] concat(int[] first, int[] second) {
+        if (first.length == 0) {
+            return second;
+        }
+        int[] joined = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, joined, first.length, second.length);
+        return joined;
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private int[] positions = NONE;
+    }
+}
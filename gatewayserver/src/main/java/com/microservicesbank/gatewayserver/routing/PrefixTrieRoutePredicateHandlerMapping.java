@@ -0,0 +1,82 @@
+package com.microservicesbank.gatewayserver.routing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Replaces the gateway's route lookup, which checks the predicates of all routes in order on every request.
+ * Whenever the routes are refreshed they are compiled into a {@link RouteIndex}, a request then only checks the
+ * predicates of the routes whose path prefix it starts with, still in the routes' order, so the first matching
+ * route is the same one the gateway would find. Until the first index is built the lookup of the gateway is used.
+ */
+@Component
+public class PrefixTrieRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrefixTrieRoutePredicateHandlerMapping.class);
+
+    private final RouteLocator routeLocator;
+
+    private final RouteDefinitionLocator routeDefinitionLocator;
+
+    private volatile RouteIndex routeIndex;
+
+    public PrefixTrieRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                                  RouteDefinitionLocator routeDefinitionLocator,
+                                                  GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.routeDefinitionLocator = routeDefinitionLocator;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+
+        if (!event.isSuccess()) {
+            return;
+        }
+        Mono.zip(routeLocator.getRoutes().collectList(), routeDefinitionLocator.getRouteDefinitions().collectList())
+            .map(routesAndDefinitions -> new RouteIndex(routesAndDefinitions.getT1(), routesAndDefinitions.getT2()))
+            .subscribe(index -> {
+                routeIndex = index;
+                logger.debug("Route index rebuilt: {} routes, {} not indexed by path prefix", index.size(), index.unindexedSize());
+            }, error -> logger.warn("Route index not rebuilt, the previous one stays in use", error));
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+
+        RouteIndex index = routeIndex;
+        if (index == null) {
+            return super.lookupRoute(exchange);
+        }
+        return Flux.fromIterable(index.candidates(exchange.getRequest().getPath().pathWithinApplication()))
+                   .concatMap(route -> Mono.just(route)
+                                           .filterWhen(candidate -> {
+                                               exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR,
+                                                                            candidate.getId());
+                                               return candidate.getPredicate().apply(exchange);
+                                           })
+                                           .doOnError(error -> logger.error("Error applying predicate for route: {}", route.getId(), error))
+                                           .onErrorResume(error -> Mono.empty()))
+                   .next()
+                   .map(route -> {
+                       validateRoute(route, exchange);
+                       return route;
+                   });
+    }
+}
@@ -0,0 +1,101 @@
+package com.microservicesbank.gatewayserver.routing;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * The routes in their matching order, with the literal prefixes of their Path predicates in a {@link PathPrefixTrie}.
+ * A route is indexed when its only predicate is Path with patterns like /microbank/cards/** or /microbank/cards,
+ * every other route is kept in a list that is still checked in order.
+ */
+class RouteIndex {
+
+    // a literal path, optionally ending in /**
+    private static final Pattern LITERAL_PREFIX = Pattern.compile("(/[^*?{}%]*?)(/\\*\\*)?");
+
+    private final List<Route> routes;
+
+    private final PathPrefixTrie trie = new PathPrefixTrie();
+
+    private final int[] unindexed;
+
+    RouteIndex(List<Route> routes, Collection<RouteDefinition> definitions) {
+
+        this.routes = routes;
+        Map<String, RouteDefinition> definitionsById = definitions.stream()
+                .collect(Collectors.toMap(RouteDefinition::getId, Function.identity(), (first, second) -> first));
+        List<Integer> notIndexed = new ArrayList<>();
+        for (int position = 0; position < routes.size(); position++) {
+            List<String> prefixes = literalPrefixes(definitionsById.get(routes.get(position).getId()));
+            if (prefixes.isEmpty()) {
+                notIndexed.add(position);
+            }
+            for (String prefix : prefixes) {
+                trie.add(prefix, position);
+            }
+        }
+        this.unindexed = notIndexed.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the routes that can match the path in their matching order, their predicates still have to be checked
+     */
+    List<Route> candidates(PathContainer path) {
+
+        int[] indexed = trie.candidates(path);
+        List<Route> candidates = new ArrayList<>(indexed.length + unindexed.length);
+        int i = 0;
+        int j = 0;
+        while (i < indexed.length || j < unindexed.length) {
+            if (j == unindexed.length || i < indexed.length && indexed[i] < unindexed[j]) {
+                candidates.add(routes.get(indexed[i++]));
+            } else {
+                candidates.add(routes.get(unindexed[j++]));
+            }
+        }
+        return candidates;
+    }
+
+    int size() {
+        return routes.size();
+    }
+
+    int unindexedSize() {
+        return unindexed.length;
+    }
+
+    private static List<String> literalPrefixes(RouteDefinition definition) {
+
+        if (definition == null || definition.getPredicates().size() != 1) {
+            return List.of();
+        }
+        PredicateDefinition predicate = definition.getPredicates().get(0);
+        if (!"Path".equals(predicate.getName())) {
+            return List.of();
+        }
+        List<String> prefixes = new ArrayList<>();
+        for (Map.Entry<String, String> arg : predicate.getArgs().entrySet()) {
+            // matchTrailingSlash and other flags are arguments too, only the patterns are looked at
+            String value = arg.getValue();
+            if (value == null || !value.startsWith("/")) {
+                continue;
+            }
+            var matcher = LITERAL_PREFIX.matcher(value);
+            if (!matcher.matches()) {
+                return List.of();
+            }
+            prefixes.add(matcher.group(1));
+        }
+        return prefixes;
+    }
+}
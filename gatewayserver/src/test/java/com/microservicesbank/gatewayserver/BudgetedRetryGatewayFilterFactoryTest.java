@@ -0,0 +1,191 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.RetryBudgetProperties;
+import com.microservicesbank.gatewayserver.filter.BudgetedRetryGatewayFilterFactory;
+import com.microservicesbank.gatewayserver.filter.RetryBudgetFilter;
+import com.microservicesbank.gatewayserver.retry.RetryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class BudgetedRetryGatewayFilterFactoryTest {
+
+	private static final int REQUESTS = 1000;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RetryBudgetProperties properties = new RetryBudgetProperties();
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	@Test
+	void retryAmplificationStaysBoundedWhileTheServiceFails() {
+		GatewayFilter fixedRetries = retryFilter(unlimitedBudget());
+		GatewayFilter budgetedRetries = retryFilter(new RetryBudget(properties, meterRegistry));
+
+		double fixedAmplification = amplification(fixedRetries, failing());
+		long start = System.nanoTime();
+		double budgetedAmplification = amplification(budgetedRetries, failing());
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("failing service, upstream calls per request: fixed 3 retries %.2f, retry budget %.3f%n",
+						  fixedAmplification, budgetedAmplification);
+		assertEquals(4.0, fixedAmplification, 0.001);
+		double bound = 1 + (properties.getMaxBalance() + properties.getMinRetriesPerSecond() * seconds) / REQUESTS;
+		assertTrue(budgetedAmplification <= bound, budgetedAmplification + " > " + bound);
+		assertTrue(count("budget_exhausted") > 0);
+	}
+
+	@Test
+	void occasionalFailuresAreRetriedFromTheBudget() {
+		RetryBudget retryBudget = new RetryBudget(properties, meterRegistry);
+		GatewayFilter filter = retryFilter(retryBudget);
+		AtomicInteger failed = new AtomicInteger();
+
+		double amplification = amplification(filter, throughBudget(retryBudget, exchange -> {
+			upstreamCalls.incrementAndGet();
+			boolean fails = ThreadLocalRandom.current().nextDouble() < 0.02;
+			answer(exchange, fails ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK);
+			return Mono.empty();
+		}), exchange -> {
+			if (exchange.getResponse().getStatusCode() != HttpStatus.OK) {
+				failed.incrementAndGet();
+			}
+		});
+
+		assertTrue(amplification < 1.05);
+		assertTrue(count("retried") > 0);
+		assertTrue(failed.get() <= 1, failed.get() + " requests failed after retries");
+	}
+
+	@Test
+	void onlySuccessfulUpstreamCallsOfAnyRouteFillTheBudget() {
+		properties.setRatio(1);
+		properties.setMinRetriesPerSecond(0);
+		RetryBudget retryBudget = new RetryBudget(properties, meterRegistry);
+		while (retryBudget.tryRetry()) {
+			// spends what was saved up
+		}
+		RetryBudgetFilter budgetFilter = new RetryBudgetFilter(retryBudget);
+
+		// circuit breaker fallback, the service was not called
+		budgetFilter.filter(exchange(MockServerHttpRequest.get("/microbank/cards/api/fetchCard")),
+							exchange -> Mono.fromRunnable(() -> exchange.getResponse().setStatusCode(HttpStatus.OK))).block();
+		budgetFilter.filter(exchange(MockServerHttpRequest.get("/microbank/cards/api/fetchCard")),
+							exchange -> Mono.fromRunnable(() -> answer(exchange, HttpStatus.NOT_FOUND))).block();
+		budgetFilter.filter(exchange(MockServerHttpRequest.get("/microbank/cards/api/fetchCard")),
+							exchange -> Mono.fromRunnable(() -> answer(exchange, HttpStatus.SERVICE_UNAVAILABLE))).block();
+		assertEquals(0, retryBudget.getBalance(), 0.001);
+
+		MockServerWebExchange loansExchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/loans/api/fetchLoan"));
+		loansExchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("loans").uri("lb://LOANS").predicate(e -> true).build());
+		budgetFilter.filter(loansExchange, exchange -> Mono.fromRunnable(() -> answer(exchange, HttpStatus.OK))).block();
+		assertEquals(1, retryBudget.getBalance(), 0.001);
+	}
+
+	@Test
+	void connectionErrorsAreRetried() {
+		GatewayFilter filter = retryFilter(new RetryBudget(properties, meterRegistry));
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+
+		filter.filter(exchange, e -> upstreamCalls.incrementAndGet() == 1 ? Mono.error(new IOException("connection reset"))
+				: Mono.fromRunnable(() -> e.getResponse().setStatusCode(HttpStatus.OK))).block();
+
+		assertEquals(2, upstreamCalls.get());
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+	}
+
+	@Test
+	void otherMethodsAreNotRetried() {
+		GatewayFilter filter = retryFilter(new RetryBudget(properties, meterRegistry));
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/microbank/cards/api/create"));
+
+		filter.filter(exchange, failing()).block();
+
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	private GatewayFilter retryFilter(RetryBudget retryBudget) {
+		return new BudgetedRetryGatewayFilterFactory(retryBudget, meterRegistry)
+				.apply(config -> config.setRetries(3).setBackoff(Duration.ofMillis(1), Duration.ofMillis(1), 1));
+	}
+
+	private RetryBudget unlimitedBudget() {
+		RetryBudgetProperties unlimited = new RetryBudgetProperties();
+		unlimited.setMaxBalance(Integer.MAX_VALUE);
+		return new RetryBudget(unlimited, new SimpleMeterRegistry());
+	}
+
+	private double amplification(GatewayFilter filter, GatewayFilterChain upstream) {
+		return amplification(filter, upstream, exchange -> {
+		});
+	}
+
+	/**
+	 * Upstream calls per request for REQUESTS GETs, 20 at a time
+	 */
+	private double amplification(GatewayFilter filter, GatewayFilterChain upstream,
+								 Consumer<MockServerWebExchange> check) {
+		upstreamCalls.set(0);
+		Flux.range(0, REQUESTS)
+			.flatMap(i -> {
+				MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+				return filter.filter(exchange, upstream).doOnSuccess(ignored -> check.accept(exchange));
+			}, 20)
+			.blockLast();
+		return (double) upstreamCalls.get() / REQUESTS;
+	}
+
+	private GatewayFilterChain failing() {
+		return exchange -> {
+			upstreamCalls.incrementAndGet();
+			answer(exchange, HttpStatus.SERVICE_UNAVAILABLE);
+			return Mono.empty();
+		};
+	}
+
+	/**
+	 * The routing filters with the budget's deposit in front, as the gateway runs them behind the route filters
+	 */
+	private static GatewayFilterChain throughBudget(RetryBudget retryBudget, GatewayFilterChain upstream) {
+		RetryBudgetFilter budgetFilter = new RetryBudgetFilter(retryBudget);
+		return exchange -> budgetFilter.filter(exchange, upstream);
+	}
+
+	/**
+	 * What the Netty routing filter leaves behind once the service answered
+	 */
+	private static void answer(ServerWebExchange exchange, HttpStatus status) {
+		exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, mock(HttpClientResponse.class));
+		exchange.getResponse().setStatusCode(status);
+	}
+
+	private double count(String result) {
+		return meterRegistry.counter("gateway.retry.requests", "route", "cards", "result", result).count();
+	}
+
+	private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).build());
+		return exchange;
+	}
+}
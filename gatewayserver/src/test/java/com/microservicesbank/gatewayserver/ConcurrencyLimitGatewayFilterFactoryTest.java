@@ -0,0 +1,179 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.concurrency.AdaptiveConcurrencyLimiter;
+import com.microservicesbank.gatewayserver.config.ConcurrencyLimitProperties;
+import com.microservicesbank.gatewayserver.filter.ConcurrencyLimitGatewayFilterFactory;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClientResponse;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ConcurrencyLimitGatewayFilterFactoryTest {
+
+	private static final int CLIENTS = 60;
+	private static final int REQUESTS = 3000;
+	private static final Duration SERVICE_TIME = Duration.ofMillis(20);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+	private final AtomicInteger inService = new AtomicInteger();
+	// limit seen after every answered request, the final one is raised again while the load drains
+	private final List<Integer> observedLimits = Collections.synchronizedList(new ArrayList<>());
+
+	@Test
+	void requestsAboveTheLimitAreRejectedRightAway() {
+		properties.setInitialLimit(1);
+		properties.setMinLimit(1);
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+		GatewayFilter filter = new ConcurrencyLimitGatewayFilterFactory(limiter).apply();
+		MockServerWebExchange first = exchange();
+		MockServerWebExchange second = exchange();
+
+		Mono<Void> running = filter.filter(first, service(Integer.MAX_VALUE, false)).cache();
+		running.subscribe();
+		filter.filter(second, service(Integer.MAX_VALUE, false)).block();
+		running.block();
+
+		assertEquals(HttpStatus.OK, first.getResponse().getStatusCode());
+		assertEquals(HttpStatus.SERVICE_UNAVAILABLE, second.getResponse().getStatusCode());
+		assertEquals("1", second.getResponse().getHeaders().getFirst("Retry-After"));
+		assertEquals(1, meterRegistry.get("gateway.concurrency.rejections").tag("route", "cards").counter().count());
+		assertEquals(0, meterRegistry.get("gateway.concurrency.inflight").tag("route", "cards").gauge().value());
+	}
+
+	@Test
+	void limitGrowsWhileTheServiceKeepsUp() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+
+		load(limiter, service(Integer.MAX_VALUE, false));
+
+		assertTrue(limiter.getLimit("cards") >= CLIENTS, "limit " + limiter.getLimit("cards"));
+	}
+
+	@Test
+	void limitFollowsTheCapacityOfASaturatedService() {
+		int capacity = 10;
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+
+		List<MockServerWebExchange> exchanges = load(limiter, service(capacity, false));
+
+		long rejected = exchanges.stream()
+				.filter(exchange -> exchange.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE)
+				.count();
+		int medianLimit = observedLimits.stream().sorted().toList().get(observedLimits.size() / 2);
+		System.out.printf("capacity %d, %d clients: median limit %d, %d of %d rejected%n",
+						  capacity, CLIENTS, medianLimit, rejected, REQUESTS);
+		assertTrue(medianLimit <= 2 * capacity, "limit " + medianLimit);
+		assertTrue(rejected > 0);
+		assertEquals(rejected, meterRegistry.get("gateway.concurrency.rejections").tag("route", "cards").counter().count());
+	}
+
+	@Test
+	void limitBacksOffOnServerErrors() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+
+		load(limiter, service(Integer.MAX_VALUE, true));
+
+		assertEquals(properties.getMinLimit(), limiter.getLimit("cards"));
+	}
+
+	@Test
+	void answersTheServiceDidNotWorkOnDoNotShrinkTheLimit() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+		GatewayFilterChain service = service(Integer.MAX_VALUE, false);
+		CallNotPermittedException circuitOpen = CallNotPermittedException
+				.createCallNotPermittedException(CircuitBreaker.ofDefaults("cardsCircuitBreaker"));
+		AtomicInteger requests = new AtomicInteger();
+
+		load(limiter, exchange -> switch (requests.getAndIncrement() % 3) {
+			case 0 -> service.filter(exchange);
+			case 1 -> {
+				exchange.getAttributes().put(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR, circuitOpen);
+				exchange.getResponse().setStatusCode(HttpStatus.OK);
+				yield Mono.empty();
+			}
+			default -> {
+				exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR, mock(HttpClientResponse.class));
+				exchange.getResponse().setStatusCode(HttpStatus.NOT_FOUND);
+				yield Mono.empty();
+			}
+		});
+
+		assertTrue(limiter.getLimit("cards") >= CLIENTS, "limit " + limiter.getLimit("cards"));
+	}
+
+	@Test
+	void limitBacksOffWhenTheCircuitBreakerFallsBackForFailedCalls() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties, meterRegistry);
+
+		load(limiter, exchange -> Mono.delay(SERVICE_TIME).doOnNext(ignored -> {
+			exchange.getAttributes().put(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR,
+										 new TimeoutException());
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+		}).then());
+
+		assertEquals(properties.getMinLimit(), limiter.getLimit("cards"));
+	}
+
+	/**
+	 * CLIENTS callers send REQUESTS requests in total, each sending its next one as soon as the previous one is answered
+	 */
+	private List<MockServerWebExchange> load(AdaptiveConcurrencyLimiter limiter, GatewayFilterChain service) {
+		GatewayFilter filter = new ConcurrencyLimitGatewayFilterFactory(limiter).apply();
+		List<MockServerWebExchange> exchanges = IntStream.range(0, REQUESTS).mapToObj(i -> exchange()).toList();
+		Flux.fromIterable(exchanges)
+			.flatMap(exchange -> filter.filter(exchange, service)
+					.doOnSuccess(ignored -> observedLimits.add(limiter.getLimit("cards")))
+					// rejected callers back off a little, like clients honouring Retry-After would
+					.then(Mono.defer(() -> exchange.getResponse().getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE
+							? Mono.delay(SERVICE_TIME).then() : Mono.<Void>empty())), CLIENTS)
+			.blockLast();
+		return exchanges;
+	}
+
+	/**
+	 * Serves capacity requests at a time in SERVICE_TIME, requests above that queue and take proportionally longer
+	 */
+	private GatewayFilterChain service(int capacity, boolean failing) {
+		return exchange -> {
+			int queued = inService.incrementAndGet();
+			Duration latency = SERVICE_TIME.multipliedBy((queued - 1L + capacity) / capacity);
+			return Mono.delay(latency)
+					   .doOnNext(ignored -> {
+						   exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_ATTR,
+														mock(HttpClientResponse.class));
+						   exchange.getResponse().setStatusCode(failing ? HttpStatus.INTERNAL_SERVER_ERROR : HttpStatus.OK);
+					   })
+					   .doFinally(signal -> inService.decrementAndGet())
+					   .then();
+		};
+	}
+
+	private static MockServerWebExchange exchange() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).build());
+		return exchange;
+	}
+}
@@ -0,0 +1,80 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.filter.CorrelationIdFilter;
+import com.microservicesbank.gatewayserver.filter.CorrelationIdGenerator;
+import com.microservicesbank.gatewayserver.filter.FilterUtility;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CorrelationIdFilterTest {
+
+	private final CorrelationIdFilter correlationIdFilter = new CorrelationIdFilter();
+
+	@Test
+	void existingIdIsKeptAndReturned() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard")
+				.header(FilterUtility.CORRELATION_ID, "caller-id-1"));
+		AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+		correlationIdFilter.filter(exchange, e -> {
+			forwarded.set(e);
+			return e.getResponse().setComplete();
+		}).block();
+
+		assertSame(exchange, forwarded.get(), "the exchange must not be copied when the caller sent an id");
+		assertEquals("caller-id-1", forwarded.get().getAttribute(CorrelationIdFilter.CORRELATION_ID_ATTR));
+		assertEquals("caller-id-1", exchange.getResponse().getHeaders().getFirst(FilterUtility.CORRELATION_ID));
+	}
+
+	@Test
+	void missingIdIsGeneratedForwardedAndReturned() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+		AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+
+		correlationIdFilter.filter(exchange, e -> {
+			forwarded.set(e);
+			return e.getResponse().setComplete();
+		}).block();
+
+		String correlationId = forwarded.get().getRequest().getHeaders().getFirst(FilterUtility.CORRELATION_ID);
+		assertNotNull(correlationId);
+		assertEquals(7, UUID.fromString(correlationId).version());
+		assertEquals(correlationId, forwarded.get().getAttribute(CorrelationIdFilter.CORRELATION_ID_ATTR));
+		assertEquals(correlationId, exchange.getResponse().getHeaders().getFirst(FilterUtility.CORRELATION_ID));
+	}
+
+	@Test
+	void generatedIdsAreUniqueAndTimeOrdered() throws Exception {
+		Set<String> ids = new HashSet<>();
+		for (int i = 0; i < 100_000; i++) {
+			assertTrue(ids.add(CorrelationIdGenerator.next()));
+		}
+		String earlier = CorrelationIdGenerator.next();
+		Thread.sleep(2);
+		String later = CorrelationIdGenerator.next();
+		assertTrue(earlier.compareTo(later) < 0);
+	}
+
+	@Test
+	void serviceProvidedIdIsNotOverwritten() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard")
+				.header(FilterUtility.CORRELATION_ID, "caller-id-1"));
+
+		correlationIdFilter.filter(exchange, e -> {
+			e.getResponse().getHeaders().set(FilterUtility.CORRELATION_ID, "caller-id-1");
+			return Mono.defer(() -> e.getResponse().setComplete());
+		}).block();
+
+		assertEquals(1, exchange.getResponse().getHeaders().get(FilterUtility.CORRELATION_ID).size());
+	}
+}
@@ -0,0 +1,243 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.LoadBalancerProperties;
+import com.microservicesbank.gatewayserver.config.RetryBudgetProperties;
+import com.microservicesbank.gatewayserver.filter.BudgetedRetryGatewayFilterFactory;
+import com.microservicesbank.gatewayserver.filter.CapturedResponseWriteFilter;
+import com.microservicesbank.gatewayserver.filter.HedgingGatewayFilterFactory;
+import com.microservicesbank.gatewayserver.loadbalancer.InstanceStats;
+import com.microservicesbank.gatewayserver.loadbalancer.PowerOfTwoChoicesLoadBalancer;
+import com.microservicesbank.gatewayserver.retry.RetryBudget;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HedgingGatewayFilterFactoryTest {
+
+	private static final int REQUESTS = 600;
+	private static final int CONCURRENCY = 10;
+	private static final Duration FAST = Duration.ofMillis(10);
+	private static final Duration SLOW = Duration.ofMillis(500);
+	// share of first attempts that land on the slow instance, below the 5% the 95th percentile leaves out
+	private static final double SLOW_SHARE = 0.03;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final HedgingGatewayFilterFactory factory = new HedgingGatewayFilterFactory(meterRegistry,
+			new InstanceStats(new LoadBalancerProperties()));
+	private final GlobalFilter responseWrite = new CapturedResponseWriteFilter();
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private DisposableServer fastServer;
+	private DisposableServer slowServer;
+	private ServiceInstance fastInstance;
+	private ServiceInstance slowInstance;
+
+	@BeforeEach
+	void startInstances() {
+		fastServer = server("fast", FAST);
+		slowServer = server("slow", SLOW);
+		fastInstance = new DefaultServiceInstance("cards-fast", "cards", "localhost", fastServer.port(), false);
+		slowInstance = new DefaultServiceInstance("cards-slow", "cards", "localhost", slowServer.port(), false);
+	}
+
+	@AfterEach
+	void stopInstances() {
+		fastServer.disposeNow();
+		slowServer.disposeNow();
+	}
+
+	@Test
+	void slowFirstAttemptsAreHedgedToAnotherInstance() {
+		List<Long> unhedged = load(null);
+		// the percentile only covers first attempts that completed, the slow ones a hedge cut off come on top of its 5%
+		List<Long> hedged = load(factory.apply(config -> config
+				.setPaths(List.of("/microbank/cards/api/fetchCard"))
+				.setMinSamples(50)
+				.setWindow(200)
+				.setMaxHedgeRatio(0.1)));
+
+		double hedges = count("hedged");
+		double hedgeWins = count("hedge_won");
+		System.out.printf("without hedging: p50 %dms, p99 %dms%n", percentile(unhedged, 50), percentile(unhedged, 99));
+		System.out.printf("with hedging: p50 %dms, p99 %dms, hedge rate %.1f%%, win rate %.1f%%, capped %.0f%n",
+						  percentile(hedged, 50), percentile(hedged, 99), hedges / REQUESTS * 100,
+						  hedgeWins / hedges * 100, count("capped"));
+		assertTrue(percentile(unhedged, 99) >= SLOW.toMillis());
+		assertTrue(percentile(hedged, 99) < SLOW.toMillis() / 2);
+		assertTrue(hedges > 0 && hedges <= REQUESTS * 0.1 + 1, "hedges " + hedges);
+		assertTrue(hedgeWins > 0);
+		assertEquals(REQUESTS, count("primary_won") + hedgeWins);
+	}
+
+	@Test
+	void hedgingStopsAtTheBudget() {
+		GatewayFilter filter = factory.apply(config -> config
+				.setPaths(List.of("/microbank/cards/api/fetchCard"))
+				.setMinSamples(50)
+				.setWindow(200)
+				.setMaxHedgeRatio(0.01)
+				.setMaxBudget(1));
+
+		load(filter);
+
+		assertTrue(count("hedged") <= REQUESTS * 0.01 + 1);
+		assertTrue(count("capped") > 0);
+	}
+
+	@Test
+	void otherRequestsAreNotHedged() {
+		GatewayFilter filter = factory.apply(config -> config.setPaths(List.of("/microbank/cards/api/fetchCard")));
+		MockServerWebExchange exchange = exchange("/microbank/cards/api/contactDetails");
+
+		filter.filter(exchange, upstream()).block();
+
+		assertEquals(1, upstreamCalls.get());
+		assertTrue(meterRegistry.find("gateway.hedging.requests").counters().isEmpty());
+	}
+
+	@Test
+	void serverErrorOfHedgedPathIsRetried() {
+		AtomicInteger calls = new AtomicInteger();
+		DisposableServer recovering = HttpServer.create()
+				.port(0)
+				.route(routes -> routes.get("/api/fetchCard", (request, response) -> calls.incrementAndGet() == 1
+						? response.status(500).send()
+						: response.header("Content-Type", "application/json").sendString(Mono.just("{\"instance\":\"recovered\"}"))))
+				.bindNow();
+		GatewayFilter retry = new BudgetedRetryGatewayFilterFactory(new RetryBudget(new RetryBudgetProperties(), meterRegistry),
+				meterRegistry).apply(config -> config.setBackoff(Duration.ofMillis(10), Duration.ofMillis(10), 1));
+		GatewayFilter hedging = factory.apply(config -> config.setPaths(List.of("/microbank/cards/api/fetchCard")));
+		ServiceInstance instance = new DefaultServiceInstance("cards-1", "cards", "localhost", recovering.port(), false);
+		MockServerWebExchange exchange = exchange("/microbank/cards/api/fetchCard");
+
+		try {
+			responseWrite.filter(exchange, routed -> retry.filter(routed, attempt -> hedging.filter(attempt, upstream(instance))))
+						 .block(Duration.ofSeconds(5));
+		} finally {
+			recovering.disposeNow();
+		}
+
+		assertEquals(2, calls.get());
+		assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+		assertEquals("{\"instance\":\"recovered\"}", exchange.getResponse().getBodyAsString().block());
+		assertEquals(1, meterRegistry.counter("gateway.retry.requests", "route", "cards", "result", "retried").count());
+	}
+
+	/**
+	 * REQUESTS GETs, CONCURRENCY at a time, through the filter or straight to the instances when it is null
+	 */
+	private List<Long> load(GatewayFilter filter) {
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		List<MockServerWebExchange> exchanges = Collections.synchronizedList(new ArrayList<>());
+		GatewayFilterChain upstream = upstream();
+		Flux.range(0, REQUESTS)
+			.flatMap(i -> {
+				MockServerWebExchange exchange = exchange("/microbank/cards/api/fetchCard");
+				exchanges.add(exchange);
+				long start = System.nanoTime();
+				Mono<Void> handled = filter == null ? upstream.filter(exchange).then(Mono.defer(() -> drain(exchange)))
+						: responseWrite.filter(exchange, routed -> filter.filter(routed, upstream));
+				return handled.doOnSuccess(ignored -> latencies.add((System.nanoTime() - start) / 1_000_000));
+			}, CONCURRENCY)
+			.blockLast();
+		if (filter != null) {
+			for (MockServerWebExchange exchange : exchanges) {
+				assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+				assertTrue(exchange.getResponse().getBodyAsString().block().startsWith("{\"instance\""));
+			}
+		}
+		return latencies.stream().sorted().toList();
+	}
+
+	/**
+	 * Reads the body the routing left on the connection, what the gateway's response writing does without hedging
+	 */
+	private static Mono<Void> drain(MockServerWebExchange exchange) {
+		Connection connection = exchange.getAttribute(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR);
+		return connection.inbound().receive().aggregate().asByteArray().then();
+	}
+
+	/**
+	 * Stands in for the load balancer and routing filters: picks the slow instance for SLOW_SHARE of first attempts,
+	 * honours the excluded instance and leaves status, headers and the client connection on the exchange
+	 */
+	private GatewayFilterChain upstream() {
+		return exchange -> {
+			ServiceInstance excluded = exchange.getAttribute(PowerOfTwoChoicesLoadBalancer.EXCLUDED_INSTANCE_ATTR);
+			ServiceInstance instance = excluded != null ? (excluded == slowInstance ? fastInstance : slowInstance)
+					: ThreadLocalRandom.current().nextDouble() < SLOW_SHARE ? slowInstance : fastInstance;
+			return upstream(instance).filter(exchange);
+		};
+	}
+
+	private GatewayFilterChain upstream(ServiceInstance instance) {
+		return exchange -> {
+			upstreamCalls.incrementAndGet();
+			exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR, new DefaultResponse(instance));
+			return HttpClient.create()
+							 .get()
+							 .uri(instance.getUri() + "/api/fetchCard")
+							 .responseConnection((response, connection) -> {
+								 exchange.getAttributes().put(ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR, connection);
+								 exchange.getResponse().setRawStatusCode(response.status().code());
+								 response.responseHeaders().forEach(header ->
+										 exchange.getResponse().getHeaders().add(header.getKey(), header.getValue()));
+								 return Mono.just(response);
+							 })
+							 .then();
+		};
+	}
+
+	private double count(String result) {
+		return meterRegistry.find("gateway.hedging.requests").tags("route", "cards", "result", result).counters().stream()
+							.mapToDouble(counter -> counter.count())
+							.sum();
+	}
+
+	private static long percentile(List<Long> sorted, int percentile) {
+		return sorted.get(sorted.size() * percentile / 100 - 1);
+	}
+
+	private static DisposableServer server(String name, Duration latency) {
+		return HttpServer.create()
+						 .port(0)
+						 .route(routes -> routes.get("/api/fetchCard", (request, response) -> Mono.delay(latency)
+								 .then(response.header("Content-Type", "application/json")
+											   .sendString(Mono.just("{\"instance\":\"" + name + "\"}"))
+											   .then())))
+						 .bindNow();
+	}
+
+	private static MockServerWebExchange exchange(String path) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).build());
+		return exchange;
+	}
+}
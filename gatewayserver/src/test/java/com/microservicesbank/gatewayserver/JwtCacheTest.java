@@ -0,0 +1,122 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.CachingReactiveJwtDecoder;
+import com.microservicesbank.gatewayserver.config.JwtCache;
+import com.microservicesbank.gatewayserver.config.JwtCacheProperties;
+import com.microservicesbank.gatewayserver.config.KeyCloakRoleConverter;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtCacheTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger verifications = new AtomicInteger();
+	private final AtomicInteger conversions = new AtomicInteger();
+	private KeyPair keyPair;
+	private JwtCache jwtCache;
+	private CachingReactiveJwtDecoder jwtDecoder;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+		generator.initialize(2048);
+		keyPair = generator.generateKeyPair();
+		ReactiveJwtDecoder nimbus = NimbusReactiveJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+		KeyCloakRoleConverter roleConverter = new KeyCloakRoleConverter();
+		jwtCache = new JwtCache(new JwtCacheProperties(), meterRegistry);
+		jwtDecoder = new CachingReactiveJwtDecoder(token -> {
+			verifications.incrementAndGet();
+			return nimbus.decode(token);
+		}, jwt -> {
+			conversions.incrementAndGet();
+			return roleConverter.convert(jwt);
+		}, jwtCache);
+	}
+
+	@Test
+	void tokenIsVerifiedAndConvertedOnce() throws Exception {
+		String token = token("key-1", Instant.now().plusSeconds(300));
+
+		for (int i = 0; i < 10; i++) {
+			Jwt jwt = jwtDecoder.decode(token).block();
+			Collection<GrantedAuthority> authorities = jwtDecoder.authoritiesConverter().convert(jwt);
+			assertEquals(List.of("ROLE_CARDS", "ROLE_LOANS"), authorities.stream().map(GrantedAuthority::getAuthority).toList());
+		}
+
+		assertEquals(1, verifications.get());
+		assertEquals(1, conversions.get());
+		assertEquals(9, meterRegistry.get("gateway.jwt.cache.requests").tag("result", "hit").counter().count());
+	}
+
+	@Test
+	void entryExpiresWithTheToken() throws Exception {
+		String token = token("key-1", Instant.now().plusSeconds(2));
+		jwtDecoder.decode(token).block();
+		assertNotNull(jwtDecoder.decode(token).block());
+
+		Thread.sleep(2_100);
+
+		// verified again, the decoder itself still accepts it within its 60s clock skew
+		jwtDecoder.decode(token).block();
+		assertEquals(2, verifications.get());
+	}
+
+	@Test
+	void tokensOfRotatedKeysAreDropped() throws Exception {
+		String oldKeyToken = token("key-1", Instant.now().plusSeconds(300));
+		String newKeyToken = token("key-2", Instant.now().plusSeconds(300));
+		jwtDecoder.decode(oldKeyToken).block();
+		jwtDecoder.decode(newKeyToken).block();
+
+		jwtCache.retainKeyIds(Set.of("key-2"));
+		jwtDecoder.decode(oldKeyToken).block();
+		jwtDecoder.decode(newKeyToken).block();
+
+		assertEquals(3, verifications.get());
+	}
+
+	@Test
+	void invalidTokenIsNotCached() throws Exception {
+		String token = token("key-1", Instant.now().plusSeconds(300));
+		String tampered = token.substring(0, token.length() - 4) + "AAAA";
+
+		assertThrows(Exception.class, () -> jwtDecoder.decode(tampered).block());
+		assertThrows(Exception.class, () -> jwtDecoder.decode(tampered).block());
+
+		assertEquals(2, verifications.get());
+	}
+
+	private String token(String keyId, Instant expiresAt) throws Exception {
+		JWTClaimsSet claims = new JWTClaimsSet.Builder()
+				.subject("microbank-callcenter-cc")
+				.expirationTime(Date.from(expiresAt))
+				.claim("realm_access", Map.of("roles", List.of("CARDS", "LOANS")))
+				.build();
+		SignedJWT signedJwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID(keyId).build(), claims);
+		signedJwt.sign(new RSASSASigner(keyPair.getPrivate()));
+		return signedJwt.serialize();
+	}
+}
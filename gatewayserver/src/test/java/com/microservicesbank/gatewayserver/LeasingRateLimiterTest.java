@@ -0,0 +1,188 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.RateLimitProperties;
+import com.microservicesbank.gatewayserver.ratelimit.LeasingRateLimiter;
+import com.microservicesbank.gatewayserver.ratelimit.TokenLeaseSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasingRateLimiterTest {
+
+	private static final int INSTANCES = 3;
+	private static final int REQUESTS_PER_INSTANCE = 3_000;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final StandInRedis redis = new StandInRedis();
+
+	@Test
+	void leasingCutsRedisCallsPerRequestAndStaysWithinGlobalLimit() {
+		double perRequestWithoutLeasing = redisCallsPerRequest(config(1_000, 1_000, 0.0));
+		double perRequestWithLeasing = redisCallsPerRequest(config(1_000, 1_000, 0.3));
+
+		// RedisRateLimiter makes one Redis call for every request
+		System.out.printf("rate limiter: %d instances, Redis calls per request 1 with RedisRateLimiter, %.3f with lease size 1, %.3f with lease size %d%n",
+						  INSTANCES, perRequestWithoutLeasing, perRequestWithLeasing, config(1_000, 1_000, 0.3).getLeaseSize());
+	}
+
+	@Test
+	void concurrentRequestsWaitForTheLeaseInFlight() {
+		redis.latency = Duration.ofMillis(20);
+		RateLimitProperties config = config(1_000, 1_000, 0.3);
+		LeasingRateLimiter limiter = new LeasingRateLimiter(config, redis, meterRegistry);
+		int requests = 1_000;
+
+		long admitted = Flux.range(0, requests)
+				.flatMap(i -> limiter.isAllowed("loans", "anonymous"), requests)
+				.filter(Response::isAllowed)
+				.count()
+				.block();
+
+		assertEquals(requests, admitted);
+		// one call per lease worth of requests, not one per request that found the lease empty
+		assertTrue(redis.calls.get() <= requests / config.getLeaseSize() + 1, redis.calls.get() + " Redis calls");
+		assertTrue(redis.granted.get() - admitted < config.getLeaseSize(),
+				   (redis.granted.get() - admitted) + " leased tokens left unused");
+	}
+
+	@Test
+	void emptyBucketIsAskedAgainOnceATokenIsBack() throws InterruptedException {
+		RateLimitProperties config = config(10, 30, 1.0);
+		LeasingRateLimiter limiter = new LeasingRateLimiter(config, redis, meterRegistry);
+		while (limiter.isAllowed("loans", "anonymous").block().isAllowed()) {
+			assertTrue(redis.calls.get() < 10);
+		}
+
+		// one token is back after 100ms, a lease of 10 only after a second
+		Thread.sleep(150);
+
+		assertTrue(limiter.isAllowed("loans", "anonymous").block().isAllowed());
+	}
+
+	@Test
+	void fallsBackToLocalLimitingWhenRedisIsDown() {
+		redis.failing = true;
+		RateLimitProperties config = config(10, 10, 0.1);
+		config.setExpectedInstances(2);
+		LeasingRateLimiter limiter = new LeasingRateLimiter(config, redis, meterRegistry);
+
+		int allowed = 0;
+		for (int i = 0; i < 100; i++) {
+			if (limiter.isAllowed("loans", "anonymous").block().isAllowed()) {
+				allowed++;
+			}
+		}
+
+		// each of the two instances admits its half of the burst
+		assertEquals(5, allowed);
+		assertEquals(1, redis.calls.get(), "Redis must not be called again before the retry interval");
+		assertEquals(1, meterRegistry.get("gateway.ratelimit.redis.calls").tag("outcome", "failure").counter().count());
+	}
+
+	@Test
+	void slowRedisCountsAsDown() {
+		redis.latency = Duration.ofMillis(500);
+		RateLimitProperties config = config(10, 10, 0.1);
+		config.setRedisTimeout(Duration.ofMillis(50));
+		LeasingRateLimiter limiter = new LeasingRateLimiter(config, redis, meterRegistry);
+
+		long start = System.nanoTime();
+		assertTrue(limiter.isAllowed("loans", "anonymous").block().isAllowed());
+
+		assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 400);
+		assertEquals(1, meterRegistry.get("gateway.ratelimit.requests").tags("source", "local", "result", "allowed").counter().count());
+	}
+
+	/**
+	 * Runs the instances in turn for REQUESTS_PER_INSTANCE requests each and checks that they never admitted more than
+	 * the shared bucket allowed over the elapsed time
+	 */
+	private double redisCallsPerRequest(RateLimitProperties config) {
+		redis.reset();
+		List<LeasingRateLimiter> instances = new ArrayList<>();
+		for (int i = 0; i < INSTANCES; i++) {
+			instances.add(new LeasingRateLimiter(config, redis, new SimpleMeterRegistry()));
+		}
+
+		long start = System.nanoTime();
+		int admitted = 0;
+		for (int request = 0; request < REQUESTS_PER_INSTANCE; request++) {
+			for (LeasingRateLimiter instance : instances) {
+				if (instance.isAllowed("loans", "anonymous").block().isAllowed()) {
+					admitted++;
+				}
+			}
+		}
+		double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+		assertTrue(admitted <= config.getBurstCapacity() + config.getReplenishRate() * elapsedSeconds + 1,
+				   admitted + " admitted in " + elapsedSeconds + "s");
+		assertTrue(admitted >= config.getBurstCapacity() * (1 - config.getTolerance()));
+		// a call per lease worth of tokens, and once the bucket is drained a partial and an empty answer per instance
+		// per token that is back, however long the run took
+		double maxCalls = (double) redis.granted.get() / config.getLeaseSize()
+				+ 2 * INSTANCES * (config.getReplenishRate() * elapsedSeconds + 1);
+		assertTrue(redis.calls.get() <= maxCalls, redis.calls.get() + " Redis calls, at most " + maxCalls + " expected");
+		return (double) redis.calls.get() / (INSTANCES * REQUESTS_PER_INSTANCE);
+	}
+
+	private static RateLimitProperties config(int replenishRate, int burstCapacity, double tolerance) {
+		RateLimitProperties config = new RateLimitProperties();
+		config.setReplenishRate(replenishRate);
+		config.setBurstCapacity(burstCapacity);
+		config.setTolerance(tolerance);
+		config.setExpectedInstances(INSTANCES);
+		config.setLeaseTtl(Duration.ofSeconds(10));
+		return config;
+	}
+
+	/**
+	 * Same token bucket as scripts/token_lease.lua, in memory
+	 */
+	private static class StandInRedis implements TokenLeaseSource {
+
+		private final AtomicInteger calls = new AtomicInteger();
+		private final AtomicLong granted = new AtomicLong();
+		private final Map<String, double[]> buckets = new ConcurrentHashMap<>();
+		private volatile boolean failing;
+		private volatile Duration latency = Duration.ZERO;
+
+		@Override
+		public Mono<Long> lease(String key, int replenishRate, int burstCapacity, int requested) {
+			calls.incrementAndGet();
+			if (failing) {
+				return Mono.error(new IllegalStateException("Unable to connect to Redis"));
+			}
+			return Mono.delay(latency).map(ignored -> {
+				synchronized (buckets) {
+					double now = System.nanoTime() / 1_000_000_000.0;
+					double[] bucket = buckets.computeIfAbsent(key, k -> new double[]{burstCapacity, now});
+					double filled = Math.min(burstCapacity, bucket[0] + (now - bucket[1]) * replenishRate);
+					long granted = Math.min((long) Math.floor(filled), requested);
+					bucket[0] = filled - granted;
+					bucket[1] = now;
+					this.granted.addAndGet(granted);
+					return granted;
+				}
+			});
+		}
+
+		private void reset() {
+			calls.set(0);
+			granted.set(0);
+			buckets.clear();
+		}
+	}
+}
@@ -0,0 +1,177 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.LoadBalancerProperties;
+import com.microservicesbank.gatewayserver.loadbalancer.InstanceStats;
+import com.microservicesbank.gatewayserver.loadbalancer.PowerOfTwoChoicesLoadBalancer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestData;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.LinkedMultiValueMap;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PowerOfTwoChoicesLoadBalancerTest {
+
+	private static final int REQUESTS = 1000;
+	private static final int CONCURRENCY = 20;
+	private static final Duration FAST = Duration.ofMillis(10);
+	private static final Duration SLOW = Duration.ofMillis(100);
+
+	private final List<ServiceInstance> instances = List.of(instance(1), instance(2), instance(3), instance(4));
+	private final ServiceInstance slowInstance = instances.get(3);
+	private final ObjectProvider<ServiceInstanceListSupplier> suppliers = new StaticListableBeanFactory(
+			Map.of("supplier", new StaticSupplier(instances))).getBeanProvider(ServiceInstanceListSupplier.class);
+	private final InstanceStats instanceStats = new InstanceStats(new LoadBalancerProperties());
+
+	@Test
+	void slowInstanceGetsLittleTrafficAndTailLatencyDrops() {
+		Result roundRobin = simulate(new RoundRobinLoadBalancer(suppliers, "cards"));
+		Result powerOfTwoChoices = simulate(new PowerOfTwoChoicesLoadBalancer(suppliers, instanceStats));
+
+		System.out.printf("round robin: p50 %dms, p90 %dms, p99 %dms, slow instance %.1f%%%n", roundRobin.percentile(50),
+						  roundRobin.percentile(90), roundRobin.percentile(99), roundRobin.slowShare() * 100);
+		System.out.printf("power of two choices: p50 %dms, p90 %dms, p99 %dms, slow instance %.1f%%%n",
+						  powerOfTwoChoices.percentile(50), powerOfTwoChoices.percentile(90),
+						  powerOfTwoChoices.percentile(99), powerOfTwoChoices.slowShare() * 100);
+		assertEquals(0.25, roundRobin.slowShare(), 0.01);
+		assertTrue(powerOfTwoChoices.slowShare() < 0.05);
+		assertTrue(powerOfTwoChoices.percentile(90) < SLOW.toMillis());
+		assertTrue(roundRobin.percentile(90) >= SLOW.toMillis());
+	}
+
+	@Test
+	void scoresFollowObservedLatencyAndInFlightRequests() {
+		simulate(new PowerOfTwoChoicesLoadBalancer(suppliers, instanceStats));
+
+		double slowLatency = instanceStats.score(slowInstance).getLatencyMillis();
+		double fastLatency = instanceStats.score(instances.get(0)).getLatencyMillis();
+		assertTrue(slowLatency > 2 * fastLatency, slowLatency + " vs " + fastLatency);
+		assertEquals(0, instanceStats.score(slowInstance).getInFlight());
+		assertEquals(4, instanceStats.getScores().get("cards").size());
+	}
+
+	@Test
+	void excludedInstanceIsNotChosen() {
+		PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer(suppliers, instanceStats);
+		Map<String, Object> attributes = new HashMap<>();
+		attributes.put(PowerOfTwoChoicesLoadBalancer.EXCLUDED_INSTANCE_ATTR, instances.get(0));
+		Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(
+				new RequestData(HttpMethod.GET, URI.create("http://cards/api/fetchCard"), new HttpHeaders(),
+								new LinkedMultiValueMap<>(), attributes)));
+
+		for (int i = 0; i < 100; i++) {
+			assertNotEquals(instances.get(0), Mono.from(loadBalancer.choose(request)).block().getServer());
+		}
+	}
+
+	@Test
+	void unmeasuredInstanceLosesOnceItsRequestsPileUp() throws InterruptedException {
+		ServiceInstance measured = instances.get(0);
+		ServiceInstance added = instances.get(1);
+		ObjectProvider<ServiceInstanceListSupplier> twoInstances = new StaticListableBeanFactory(
+				Map.of("supplier", new StaticSupplier(List.of(measured, added))))
+				.getBeanProvider(ServiceInstanceListSupplier.class);
+		PowerOfTwoChoicesLoadBalancer loadBalancer = new PowerOfTwoChoicesLoadBalancer(twoInstances, instanceStats);
+		Request<RequestDataContext> measuredRequest = request();
+		Response<ServiceInstance> measuredResponse = new DefaultResponse(measured);
+		instanceStats.onStartRequest(measuredRequest, measuredResponse);
+		Thread.sleep(FAST.toMillis());
+		instanceStats.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, measuredRequest,
+														  measuredResponse));
+
+		// requests still waiting on the new instance, none of them completed yet
+		for (int i = 0; i < 3; i++) {
+			instanceStats.onStartRequest(request(), new DefaultResponse(added));
+		}
+
+		for (int i = 0; i < 100; i++) {
+			assertEquals(measured, Mono.from(loadBalancer.choose(request())).block().getServer());
+		}
+	}
+
+	private static Request<RequestDataContext> request() {
+		return new DefaultRequest<>(new RequestDataContext(
+				new RequestData(HttpMethod.GET, URI.create("http://cards/api/fetchCard"), new HttpHeaders(),
+								new LinkedMultiValueMap<>(), new HashMap<>())));
+	}
+
+	/**
+	 * Sends REQUESTS requests, CONCURRENCY at a time, through the balancer and the lifecycle the gateway calls around them
+	 */
+	private Result simulate(ReactorServiceInstanceLoadBalancer loadBalancer) {
+		List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+		List<ServiceInstance> chosen = Collections.synchronizedList(new ArrayList<>());
+		Flux.range(0, REQUESTS)
+			.flatMap(i -> {
+				Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext(
+						new RequestData(HttpMethod.GET, URI.create("http://cards/api/fetchCard"), new HttpHeaders(),
+										new LinkedMultiValueMap<>(), new HashMap<>())));
+				return Mono.from(loadBalancer.choose(request)).flatMap(response -> {
+					long start = System.nanoTime();
+					ServiceInstance instance = response.getServer();
+					instanceStats.onStartRequest(request, response);
+					chosen.add(instance);
+					return Mono.delay(instance == slowInstance ? SLOW : FAST)
+							   .doOnNext(ignored -> {
+								   instanceStats.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS,
+																					 request, response));
+								   latencies.add((System.nanoTime() - start) / 1_000_000);
+							   });
+				});
+			}, CONCURRENCY)
+			.blockLast();
+		return new Result(latencies.stream().sorted().toList(), chosen.stream().filter(slowInstance::equals).count());
+	}
+
+	private static ServiceInstance instance(int number) {
+		return new DefaultServiceInstance("cards-" + number, "cards", "10.0.0." + number, 9000, false);
+	}
+
+	private record Result(List<Long> sortedLatencies, long slowRequests) {
+
+		long percentile(int percentile) {
+			return sortedLatencies.get(sortedLatencies.size() * percentile / 100 - 1);
+		}
+
+		double slowShare() {
+			return (double) slowRequests / sortedLatencies.size();
+		}
+	}
+
+	private record StaticSupplier(List<ServiceInstance> instances) implements ServiceInstanceListSupplier {
+
+		@Override
+		public String getServiceId() {
+			return "cards";
+		}
+
+		@Override
+		public Flux<List<ServiceInstance>> get() {
+			return Flux.just(instances);
+		}
+	}
+}
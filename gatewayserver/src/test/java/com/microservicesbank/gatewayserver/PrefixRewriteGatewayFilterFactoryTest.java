@@ -0,0 +1,63 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.filter.PrefixRewriteGatewayFilterFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RewritePathGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixRewriteGatewayFilterFactoryTest {
+
+	private final GatewayFilter prefixRewrite = new PrefixRewriteGatewayFilterFactory()
+			.apply(config -> config.setPrefix("/microbank/cards/").setReplacement("/"));
+	private final GatewayFilter rewritePath = new RewritePathGatewayFilterFactory()
+			.apply(config -> config.setRegexp("/microbank/cards/(?<segment>.*)").setReplacement("/${segment}"));
+
+	@Test
+	void rewritesLikeRewritePath() {
+		for (String path : List.of("/microbank/cards/api/fetchCard?mobileNumber=0666992283",
+								   "/microbank/cards/api/create",
+								   "/microbank/cards/",
+								   "/microbank/cards/api/contact%20Details?name=a%20b")) {
+			assertEquals(forwarded(rewritePath, path), forwarded(prefixRewrite, path), path);
+		}
+		assertEquals("/api/fetchCard?mobileNumber=0666992283",
+					 forwarded(prefixRewrite, "/microbank/cards/api/fetchCard?mobileNumber=0666992283").toString());
+	}
+
+	@Test
+	void keepsOriginalUrlAndLeavesOtherPathsAlone() {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+		AtomicReference<ServerWebExchange> forwarded = new AtomicReference<>();
+		prefixRewrite.filter(exchange, next -> {
+			forwarded.set(next);
+			return Mono.empty();
+		}).block();
+
+		LinkedHashSet<URI> originalUrls = forwarded.get().getAttribute(ServerWebExchangeUtils.GATEWAY_ORIGINAL_REQUEST_URL_ATTR);
+		assertEquals("/microbank/cards/api/fetchCard", originalUrls.iterator().next().getRawPath());
+		assertEquals("/microbank/loans/api/fetchLoan", forwarded(prefixRewrite, "/microbank/loans/api/fetchLoan").toString());
+	}
+
+	private static URI forwarded(GatewayFilter filter, String path) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(path));
+		AtomicReference<URI> uri = new AtomicReference<>();
+		filter.filter(exchange, next -> {
+			uri.set(URI.create(next.getRequest().getURI().getRawPath()
+							   + (next.getRequest().getURI().getRawQuery() == null ? "" : "?" + next.getRequest().getURI().getRawQuery())));
+			return Mono.empty();
+		}).block();
+		return uri.get();
+	}
+}
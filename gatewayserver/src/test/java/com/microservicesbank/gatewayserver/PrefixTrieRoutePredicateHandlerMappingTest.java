@@ -0,0 +1,165 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.routing.PrefixTrieRoutePredicateHandlerMapping;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.AsyncPredicate;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefixTrieRoutePredicateHandlerMappingTest {
+
+	private static final List<String> PATHS = List.of("/microbank/accounts/api/fetchCustomerDetails",
+													  "/microbank/accounts/api/fetchCustomerDetails/",
+													  "/microbank/accounts/api/contactDetails",
+													  "/microbank/accounts",
+													  "/microbank/accountsx/api",
+													  "/microbank/cards/api/fetchCard",
+													  "/microbank/cards/health",
+													  "/microbank/loans/api/fetchLoan",
+													  "/microbank/unknown/api",
+													  "/microbank/%63ards/api/fetchCard",
+													  "/microbank/cards;v=1/api/fetchCard",
+													  "/loans/health",
+													  "/health",
+													  "/");
+
+	private final PathRoutePredicateFactory pathPredicates = new PathRoutePredicateFactory();
+	private final List<Route> routes = new ArrayList<>();
+	private final List<RouteDefinition> definitions = new ArrayList<>();
+	private final FilteringWebHandler webHandler = new FilteringWebHandler(List.of());
+
+	private final PrefixTrieRoutePredicateHandlerMapping prefixTrieMapping = new PrefixTrieRoutePredicateHandlerMapping(
+			webHandler, () -> Flux.fromIterable(routes), () -> Flux.fromIterable(definitions),
+			new GlobalCorsProperties(), new MockEnvironment());
+	private final RoutePredicateHandlerMapping defaultMapping = new RoutePredicateHandlerMapping(
+			webHandler, () -> Flux.fromIterable(routes), new GlobalCorsProperties(), new MockEnvironment());
+
+	@Test
+	void firstMatchingRouteInListOrderIsUsed() {
+		addRoute("accounts-customer-details", "/microbank/accounts/api/fetchCustomerDetails/**");
+		addRoute("accounts", "/microbank/accounts/**");
+		addRoute("cards", "/microbank/cards/**");
+		refresh();
+
+		assertEquals("accounts-customer-details", lookup(prefixTrieMapping, "/microbank/accounts/api/fetchCustomerDetails"));
+		assertEquals("accounts", lookup(prefixTrieMapping, "/microbank/accounts/api/contactDetails"));
+		assertEquals("cards", lookup(prefixTrieMapping, "/microbank/cards/api/fetchCard"));
+		assertNull(lookup(prefixTrieMapping, "/microbank/accountsx/api"));
+		assertNull(lookup(prefixTrieMapping, "/microbank/loans/api/fetchLoan"));
+	}
+
+	@Test
+	void generalRouteListedFirstHidesSpecificOne() {
+		addRoute("accounts", "/microbank/accounts/**");
+		addRoute("accounts-customer-details", "/microbank/accounts/api/fetchCustomerDetails/**");
+		refresh();
+
+		assertEquals("accounts", lookup(prefixTrieMapping, "/microbank/accounts/api/fetchCustomerDetails"));
+	}
+
+	@Test
+	void resolvesLikeDefaultLookupWithUnindexedRoutes() {
+		addRoute("cards-health", "/microbank/{service}/health");
+		addRoute("accounts-customer-details", "/microbank/accounts/api/fetchCustomerDetails/**");
+		addRoute("accounts", "/microbank/accounts/**");
+		addRoute("any-health", "/*/health");
+		addRoute("cards", "/microbank/cards/**", "/microbank/cards");
+		addRoute("loans", "/microbank/loans/**");
+		// no definition, e.g. a route from the Java DSL, so it is checked in its place on every request
+		routes.add(route("java-dsl", exchange -> Mono.just(exchange.getRequest().getPath().value().startsWith("/microbank/loans"))));
+		addRoute("root", "/");
+		refresh();
+
+		for (String path : PATHS) {
+			assertEquals(lookup(defaultMapping, path), lookup(prefixTrieMapping, path), path);
+		}
+		assertEquals("cards-health", lookup(prefixTrieMapping, "/microbank/cards/health"));
+		assertEquals("any-health", lookup(prefixTrieMapping, "/loans/health"));
+	}
+
+	@Test
+	void encodedSegmentsAndMatrixParametersMatchLikeThePathPredicate() {
+		addRoute("accounts", "/microbank/accounts/**");
+		addRoute("cards", "/microbank/cards/**");
+		refresh();
+
+		assertEquals("cards", lookup(prefixTrieMapping, "/microbank/%63ards/api/fetchCard"));
+		assertEquals("cards", lookup(prefixTrieMapping, "/microbank/cards;v=1/api/fetchCard"));
+		assertEquals("accounts", lookup(prefixTrieMapping, "/micro%62ank/accounts;jsessionid=1/api/contactDetails"));
+		assertEquals(lookup(defaultMapping, "/microbank/%63ards/api/fetchCard"),
+					 lookup(prefixTrieMapping, "/microbank/%63ards/api/fetchCard"));
+	}
+
+	@Test
+	void routesChangeOnRefresh() {
+		addRoute("accounts", "/microbank/accounts/**");
+		refresh();
+		assertEquals("accounts", lookup(prefixTrieMapping, "/microbank/accounts/api/contactDetails"));
+		assertNull(lookup(prefixTrieMapping, "/microbank/loans/api/fetchLoan"));
+
+		routes.clear();
+		definitions.clear();
+		addRoute("loans", "/microbank/loans/**");
+		refresh();
+
+		assertNull(lookup(prefixTrieMapping, "/microbank/accounts/api/contactDetails"));
+		assertEquals("loans", lookup(prefixTrieMapping, "/microbank/loans/api/fetchLoan"));
+	}
+
+	@Test
+	void failedRefreshKeepsPreviousRoutes() {
+		addRoute("accounts", "/microbank/accounts/**");
+		refresh();
+
+		routes.clear();
+		definitions.clear();
+		prefixTrieMapping.onApplicationEvent(new RefreshRoutesResultEvent(this, new IllegalStateException("config server down")));
+
+		assertEquals("accounts", lookup(prefixTrieMapping, "/microbank/accounts/api/contactDetails"));
+	}
+
+	private void addRoute(String id, String... patterns) {
+		routes.add(route(id, pathPredicates.applyAsync(config -> config.setPatterns(List.of(patterns)))));
+		RouteDefinition definition = new RouteDefinition();
+		definition.setId(id);
+		definition.setUri(URI.create("lb://" + id));
+		definition.setPredicates(List.of(new PredicateDefinition("Path=" + String.join(",", patterns))));
+		definitions.add(definition);
+	}
+
+	private static Route route(String id, AsyncPredicate<ServerWebExchange> predicate) {
+		return Route.async().id(id).uri("lb://" + id).asyncPredicate(predicate).build();
+	}
+
+	private void refresh() {
+		prefixTrieMapping.onApplicationEvent(new RefreshRoutesResultEvent(this));
+	}
+
+	private static String lookup(RoutePredicateHandlerMapping mapping, String path) {
+		// taken as it is, a URI template would encode the % of an already encoded path again
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.method(HttpMethod.GET, URI.create(path)));
+		return mapping.getHandler(exchange)
+				.map(handler -> exchange.<Route>getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR).getId())
+				.block();
+	}
+}
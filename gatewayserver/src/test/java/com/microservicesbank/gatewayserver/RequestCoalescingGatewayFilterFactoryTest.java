@@ -0,0 +1,177 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.filter.RequestCoalescingGatewayFilterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescingGatewayFilterFactoryTest {
+
+	private static final String FETCH_CARD = "/microbank/cards/api/fetchCard?mobileNumber=0666992283";
+	private static final int CONCURRENT_REQUESTS = 50;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final GatewayFilter requestCoalescing = new RequestCoalescingGatewayFilterFactory(meterRegistry)
+			.apply(config -> config.setPaths(List.of("/microbank/cards/api/fetchCard")));
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	@Test
+	void concurrentIdenticalGetsShareOneUpstreamCall() {
+		List<MockServerWebExchange> exchanges = IntStream.range(0, CONCURRENT_REQUESTS)
+				.mapToObj(i -> exchange(FETCH_CARD, "Bearer token-a"))
+				.toList();
+
+		handleConcurrently(exchanges, upstream(Duration.ofMillis(100), false));
+
+		assertEquals(1, upstreamCalls.get());
+		for (MockServerWebExchange exchange : exchanges) {
+			assertEquals(HttpStatus.OK, exchange.getResponse().getStatusCode());
+			assertEquals("{\"call\":1}", exchange.getResponse().getBodyAsString().block());
+		}
+		assertEquals(CONCURRENT_REQUESTS - 1, count("follower"));
+		assertEquals(1, count("leader"));
+	}
+
+	@Test
+	void requestsWithDifferentCredentialsOrQueryAreNotCollapsed() {
+		List<MockServerWebExchange> exchanges = List.of(exchange(FETCH_CARD, "Bearer token-a"),
+														exchange(FETCH_CARD, "Bearer token-b"),
+														exchange(FETCH_CARD, null),
+														exchange("/microbank/cards/api/fetchCard?mobileNumber=0777777777", "Bearer token-a"));
+
+		handleConcurrently(exchanges, upstream(Duration.ofMillis(100), false));
+
+		assertEquals(4, upstreamCalls.get());
+	}
+
+	@Test
+	void sequentialRequestsAreNotServedFromAnEarlierFlight() {
+		GatewayFilterChain upstream = upstream(Duration.ZERO, false);
+
+		requestCoalescing.filter(exchange(FETCH_CARD, null), upstream).block();
+		requestCoalescing.filter(exchange(FETCH_CARD, null), upstream).block();
+
+		assertEquals(2, upstreamCalls.get());
+	}
+
+	@Test
+	void waitingRequestsAreForwardedWhenLeaderFails() {
+		List<MockServerWebExchange> exchanges = IntStream.range(0, 5)
+				.mapToObj(i -> exchange(FETCH_CARD, null))
+				.toList();
+
+		handleConcurrently(exchanges, upstream(Duration.ofMillis(100), true));
+
+		assertEquals(5, upstreamCalls.get());
+		assertEquals(4, count("fallback"));
+	}
+
+	@Test
+	void followersGetTheResponseTheGatewayWritesAfterTheRouteFilters() {
+		FilteringWebHandler gateway = new FilteringWebHandler(proxying(Duration.ofMillis(100)));
+		List<MockServerWebExchange> exchanges = IntStream.range(0, 5)
+				.mapToObj(i -> exchange(FETCH_CARD, null))
+				.peek(exchange -> exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+						Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).filter(requestCoalescing).build()))
+				.toList();
+
+		Flux.fromIterable(exchanges).flatMap(gateway::handle).blockLast();
+
+		assertEquals(1, upstreamCalls.get());
+		for (MockServerWebExchange exchange : exchanges) {
+			assertEquals("{\"call\":1}", exchange.getResponse().getBodyAsString().block());
+		}
+	}
+
+	private void handleConcurrently(List<MockServerWebExchange> exchanges, GatewayFilterChain upstream) {
+		Flux.fromIterable(exchanges)
+			.flatMap(exchange -> requestCoalescing.filter(exchange, upstream).onErrorResume(e -> Mono.empty()))
+			.blockLast();
+	}
+
+	/**
+	 * The first call fails without writing a response when failFirst is set
+	 */
+	private GatewayFilterChain upstream(Duration latency, boolean failFirst) {
+		return exchange -> Mono.delay(latency).then(Mono.defer(() -> {
+			int call = upstreamCalls.incrementAndGet();
+			if (failFirst && call == 1) {
+				return Mono.error(new IllegalStateException("connection reset"));
+			}
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			byte[] body = ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8);
+			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+		}));
+	}
+
+	/**
+	 * Like the gateway: the routing filter runs last, and the body is written to the exchange the write filter got
+	 * once the route's filters are done
+	 */
+	private List<GlobalFilter> proxying(Duration latency) {
+		String proxiedBody = "proxiedBody";
+		GlobalFilter writeResponse = (exchange, chain) -> chain.filter(exchange).then(Mono.defer(() -> {
+			byte[] body = exchange.getAttribute(proxiedBody);
+			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+		}));
+		GlobalFilter routing = (exchange, chain) -> Mono.delay(latency).then(Mono.defer(() -> {
+			int call = upstreamCalls.incrementAndGet();
+			exchange.getResponse().setStatusCode(HttpStatus.OK);
+			exchange.getAttributes().put(proxiedBody, ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8));
+			return chain.filter(exchange);
+		}));
+		return List.of(new OrderedGlobalFilter(writeResponse, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER),
+					   new OrderedGlobalFilter(routing, NettyRoutingFilter.ORDER));
+	}
+
+	private double count(String role) {
+		return meterRegistry.get("gateway.coalescing.requests").tags("route", "cards", "role", role).counter().count();
+	}
+
+	private static MockServerWebExchange exchange(String uri, String authorization) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get(uri);
+		if (authorization != null) {
+			request.header(HttpHeaders.AUTHORIZATION, authorization);
+		}
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).build());
+		return exchange;
+	}
+
+	private record OrderedGlobalFilter(GlobalFilter delegate, int order) implements GlobalFilter, Ordered {
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+			return delegate.filter(exchange, chain);
+		}
+
+		@Override
+		public int getOrder() {
+			return order;
+		}
+	}
+}
@@ -0,0 +1,248 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.filter.EarlyRequestRateLimiterGatewayFilterFactory;
+import com.microservicesbank.gatewayserver.filter.ResponseCacheGatewayFilterFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheGatewayFilterFactoryTest {
+
+	private static final String FETCH_CARD = "/microbank/cards/api/fetchCard?mobileNumber=0666992283";
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final GatewayFilter responseCache = new ResponseCacheGatewayFilterFactory(meterRegistry)
+			.apply(config -> config.setPaths(List.of("/microbank/cards/api/fetchCard")));
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private HttpStatus upstreamStatus = HttpStatus.OK;
+	private boolean fallback;
+
+	@Test
+	void repeatedGetIsServedFromCacheUntilSameResourceIsDeleted() {
+		MockServerWebExchange first = get(FETCH_CARD, null);
+		MockServerWebExchange second = get(FETCH_CARD, null);
+		assertEquals("MISS", first.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals("HIT", second.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(first.getResponse().getBodyAsString().block(), second.getResponse().getBodyAsString().block());
+		assertEquals(1, upstreamCalls.get());
+
+		handle(exchange(MockServerHttpRequest.delete("/microbank/cards/api/deleteCard?mobileNumber=0777777777"), null));
+		get(FETCH_CARD, null);
+		assertEquals(2, upstreamCalls.get(), "only the DELETE itself may reach the service, this card is still cached");
+
+		handle(exchange(MockServerHttpRequest.delete("/microbank/cards/api/deleteCard?mobileNumber=0666992283"), null));
+		get(FETCH_CARD, null);
+		assertEquals(4, upstreamCalls.get());
+
+		assertEquals(2, meterRegistry.get("gateway.response.cache.requests").tags("route", "cards", "result", "hit").counter().count());
+		assertEquals(2, meterRegistry.get("gateway.response.cache.requests").tags("route", "cards", "result", "miss").counter().count());
+		assertEquals(2, meterRegistry.get("gateway.response.cache.invalidations").tag("route", "cards").counter().count());
+	}
+
+	@Test
+	void putWithoutResourceInvalidatesWholeRoute() {
+		get(FETCH_CARD, null);
+		handle(exchange(MockServerHttpRequest.put("/microbank/cards/api/updateCard"), null));
+
+		get(FETCH_CARD, null);
+
+		assertEquals(3, upstreamCalls.get());
+	}
+
+	@Test
+	void responsesAreNotSharedBetweenCallers() {
+		get(FETCH_CARD, "alice");
+		MockServerWebExchange bob = get(FETCH_CARD, "bob");
+		MockServerWebExchange alice = get(FETCH_CARD, "alice");
+
+		assertEquals("MISS", bob.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals("HIT", alice.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(2, upstreamCalls.get());
+	}
+
+	@Test
+	void errorsAndOtherPathsAreNotCached() {
+		upstreamStatus = HttpStatus.NOT_FOUND;
+		get(FETCH_CARD, null);
+		get(FETCH_CARD, null);
+		upstreamStatus = HttpStatus.OK;
+		get("/microbank/cards/api/fetchCardsBatch", null);
+		get("/microbank/cards/api/fetchCardsBatch", null);
+
+		assertEquals(4, upstreamCalls.get());
+	}
+
+	@Test
+	void proxiedResponseWrittenAfterTheRouteFiltersIsCached() {
+		FilteringWebHandler gateway = new FilteringWebHandler(proxying());
+
+		MockServerWebExchange first = proxied(gateway);
+		MockServerWebExchange second = proxied(gateway);
+
+		assertEquals("HIT", second.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(first.getResponse().getBodyAsString().block(), second.getResponse().getBodyAsString().block());
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	@Test
+	void cacheHitsAreRateLimitedByTheEarlyRateLimiter() {
+		AtomicInteger allowed = new AtomicInteger(2);
+		GatewayFilter rateLimiter = new EarlyRequestRateLimiterGatewayFilterFactory(limiter(allowed), exchange -> Mono.just("caller"))
+				.apply(config -> { });
+		FilteringWebHandler gateway = new FilteringWebHandler(proxying());
+
+		proxied(gateway, rateLimiter);
+		MockServerWebExchange hit = proxied(gateway, rateLimiter);
+		MockServerWebExchange limited = proxied(gateway, rateLimiter);
+
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(HttpStatus.TOO_MANY_REQUESTS, limited.getResponse().getStatusCode());
+		assertNull(limited.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_HEADER));
+		assertEquals(1, upstreamCalls.get());
+	}
+
+	@Test
+	void circuitBreakerFallbacksAreNotCached() {
+		fallback = true;
+		get(FETCH_CARD, null);
+		get(FETCH_CARD, null);
+		fallback = false;
+		get(FETCH_CARD, null);
+		get(FETCH_CARD, null);
+
+		assertEquals(3, upstreamCalls.get());
+	}
+
+	private MockServerWebExchange proxied(FilteringWebHandler gateway, GatewayFilter... routeFilters) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get(FETCH_CARD));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).filter(responseCache).filters(routeFilters).build());
+		gateway.handle(exchange).block();
+		return exchange;
+	}
+
+	/**
+	 * Like the gateway: the routing filter runs last, and the body is written to the exchange the write filter got
+	 * once the route's filters are done
+	 */
+	private List<GlobalFilter> proxying() {
+		String proxiedBody = "proxiedBody";
+		GlobalFilter writeResponse = (exchange, chain) -> chain.filter(exchange).then(Mono.defer(() -> {
+			byte[] body = exchange.getAttribute(proxiedBody);
+			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+		}));
+		GlobalFilter routing = (exchange, chain) -> {
+			int call = upstreamCalls.incrementAndGet();
+			exchange.getResponse().setStatusCode(upstreamStatus);
+			exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			exchange.getAttributes().put(proxiedBody, ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8));
+			return chain.filter(exchange);
+		};
+		return List.of(new OrderedGlobalFilter(writeResponse, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER),
+					   new OrderedGlobalFilter(routing, NettyRoutingFilter.ORDER));
+	}
+
+	/**
+	 * Allows as many requests as the given permits, then denies
+	 */
+	private static RateLimiter<Object> limiter(AtomicInteger permits) {
+		return new RateLimiter<>() {
+
+			@Override
+			public Mono<Response> isAllowed(String routeId, String id) {
+				return Mono.just(new Response(permits.getAndDecrement() > 0, Map.of()));
+			}
+
+			@Override
+			public Map<String, Object> getConfig() {
+				return Map.of();
+			}
+
+			@Override
+			public Class<Object> getConfigClass() {
+				return Object.class;
+			}
+
+			@Override
+			public Object newConfig() {
+				return new Object();
+			}
+		};
+	}
+
+	private MockServerWebExchange get(String uri, String caller) {
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get(uri), caller);
+		handle(exchange);
+		return exchange;
+	}
+
+	private void handle(MockServerWebExchange exchange) {
+		ServerWebExchange routed = exchange;
+		String caller = exchange.getAttribute("caller");
+		if (caller != null) {
+			Principal principal = () -> caller;
+			routed = exchange.mutate().principal(Mono.just(principal)).build();
+		}
+		responseCache.filter(routed, upstream()).block();
+	}
+
+	private GatewayFilterChain upstream() {
+		return exchange -> {
+			int call = upstreamCalls.incrementAndGet();
+			if (fallback) {
+				exchange.getAttributes().put(ServerWebExchangeUtils.CIRCUITBREAKER_EXECUTION_EXCEPTION_ATTR,
+						new IllegalStateException("cards unavailable"));
+			}
+			exchange.getResponse().setStatusCode(upstreamStatus);
+			exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
+			byte[] body = ("{\"call\":" + call + "}").getBytes(StandardCharsets.UTF_8);
+			return exchange.getResponse().writeWith(Mono.just(exchange.getResponse().bufferFactory().wrap(body)));
+		};
+	}
+
+	private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request, String caller) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id("cards").uri("lb://CARDS").predicate(e -> true).build());
+		if (caller != null) {
+			exchange.getAttributes().put("caller", caller);
+		}
+		return exchange;
+	}
+
+	private record OrderedGlobalFilter(GlobalFilter delegate, int order) implements GlobalFilter, Ordered {
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+			return delegate.filter(exchange, chain);
+		}
+
+		@Override
+		public int getOrder() {
+			return order;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.microservicesbank.gatewayserver;
+
+import com.microservicesbank.gatewayserver.config.LatencyProperties;
+import com.microservicesbank.gatewayserver.filter.ResponseTimeFilter;
+import com.microservicesbank.gatewayserver.filter.UpstreamTimeFilter;
+import com.microservicesbank.gatewayserver.metrics.LatencyRecorder;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.CountAtBucket;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseTimeFilterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final LatencyRecorder latencyRecorder = new LatencyRecorder(meterRegistry, new LatencyProperties());
+	private final ResponseTimeFilter responseTimeFilter = new ResponseTimeFilter(latencyRecorder);
+	private final UpstreamTimeFilter upstreamTimeFilter = new UpstreamTimeFilter(latencyRecorder);
+
+	@Test
+	void eachRequestGetsItsOwnDurationAndIsRecordedPerRoute() {
+		// starts the timer threads and loads the classes so they don't count against the first measured request
+		handle(exchange("accounts"), Duration.ZERO, Duration.ZERO);
+		MockServerWebExchange fast = exchange("cards");
+		MockServerWebExchange slow = exchange("cards");
+
+		handle(fast, Duration.ofMillis(10), Duration.ofMillis(20));
+		handle(slow, Duration.ofMillis(10), Duration.ofMillis(200));
+
+		double fastMillis = responseTimeMillis(fast);
+		double slowMillis = responseTimeMillis(slow);
+		assertTrue(fastMillis >= 30 && fastMillis < 200, "fast request took " + fastMillis + "ms");
+		assertTrue(slowMillis >= 210, "slow request took " + slowMillis + "ms");
+
+		Timer total = meterRegistry.get("gateway.route.latency").tag("route", "cards").timer();
+		Timer upstream = meterRegistry.get("gateway.route.upstream.latency").tag("route", "cards").timer();
+		assertEquals(2, total.count());
+		assertEquals(2, upstream.count());
+		assertTrue(upstream.max(TimeUnit.MILLISECONDS) >= 200 && upstream.max(TimeUnit.MILLISECONDS) < total.max(TimeUnit.MILLISECONDS));
+		CountAtBucket[] buckets = total.takeSnapshot().histogramCounts();
+		assertEquals(new LatencyProperties().getSlos().size(), buckets.length);
+		assertEquals(1, countAtOrBelow(buckets, Duration.ofMillis(100)));
+	}
+
+	/**
+	 * Runs the exchange through both filters: gatewayDelay before the upstream call, upstreamDelay for the call itself
+	 */
+	private void handle(MockServerWebExchange exchange, Duration gatewayDelay, Duration upstreamDelay) {
+		responseTimeFilter.filter(exchange, e -> Mono.delay(gatewayDelay)
+				.then(upstreamTimeFilter.filter(e, upstream -> Mono.delay(upstreamDelay).then())))
+				.then(exchange.getResponse().setComplete())
+				.block();
+	}
+
+	private static MockServerWebExchange exchange(String routeId) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/microbank/cards/api/fetchCard"));
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR,
+				Route.async().id(routeId).uri("lb://" + routeId.toUpperCase()).predicate(e -> true).build());
+		return exchange;
+	}
+
+	private static double responseTimeMillis(MockServerWebExchange exchange) {
+		String responseTime = exchange.getResponse().getHeaders().getFirst(ResponseTimeFilter.RESPONSE_TIME);
+		assertNotNull(responseTime);
+		return Double.parseDouble(responseTime.replace("ms", ""));
+	}
+
+	private static double countAtOrBelow(CountAtBucket[] buckets, Duration bound) {
+		for (CountAtBucket bucket : buckets) {
+			if (bucket.bucket(TimeUnit.NANOSECONDS) == bound.toNanos()) {
+				return bucket.count();
+			}
+		}
+		throw new AssertionError("no bucket at " + bound);
+	}
+}
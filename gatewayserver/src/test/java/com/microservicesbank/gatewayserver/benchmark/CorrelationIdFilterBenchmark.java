@@ -0,0 +1,122 @@
+package com.microservicesbank.gatewayserver.benchmark;
+
+import com.microservicesbank.gatewayserver.filter.CorrelationIdFilter;
+import com.microservicesbank.gatewayserver.filter.FilterUtility;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Correlation id handling of one request through the gateway filter chain: the former RequestTraceFilter and
+ * ResponseTraceFilter pair (reproduced below) against CorrelationIdFilter, for requests with and without an id.
+ * Run the main method with the test classpath, it adds the GC profiler for the allocation rate per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CorrelationIdFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean callerSendsId;
+
+    private final CorrelationIdFilter correlationIdFilter = new CorrelationIdFilter();
+
+    // the response is committed after the chain, the legacy response filter adds its header only once the chain completed
+    private final GatewayFilterChain upstream = exchange -> Mono.empty();
+
+    /**
+     * Cost of the mock exchange itself, subtract it from the other results
+     */
+    @Benchmark
+    public ServerWebExchange baseline() {
+
+        MockServerWebExchange exchange = exchange();
+        upstream.filter(exchange).then(exchange.getResponse().setComplete()).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange legacyRequestAndResponseTraceFilters() {
+
+        MockServerWebExchange exchange = exchange();
+        GatewayFilterChain responseTrace = e -> LEGACY_RESPONSE_TRACE.filter(e, upstream);
+        LEGACY_REQUEST_TRACE.filter(exchange, responseTrace).then(exchange.getResponse().setComplete()).block();
+        return exchange;
+    }
+
+    @Benchmark
+    public ServerWebExchange correlationIdFilter() {
+
+        MockServerWebExchange exchange = exchange();
+        correlationIdFilter.filter(exchange, upstream).then(exchange.getResponse().setComplete()).block();
+        return exchange;
+    }
+
+    private MockServerWebExchange exchange() {
+
+        MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/microbank/cards/api/fetchCard");
+        if (callerSendsId) {
+            request.header(FilterUtility.CORRELATION_ID, "0191d6a4-3c2e-7b41-9a7e-5d2f4c1b8e90");
+        }
+        return MockServerWebExchange.from(request);
+    }
+
+    private static String legacyGetCorrelationId(HttpHeaders requestHeaders) {
+
+        if (requestHeaders.get(FilterUtility.CORRELATION_ID) != null) {
+            List<String> requestHeaderList = requestHeaders.get(FilterUtility.CORRELATION_ID);
+            return requestHeaderList.stream().findFirst().get();
+        }
+        return null;
+    }
+
+    private static final GlobalFilter LEGACY_REQUEST_TRACE = (exchange, chain) -> {
+
+        HttpHeaders requestHeaders = exchange.getRequest().getHeaders();
+        if (legacyGetCorrelationId(requestHeaders) != null) {
+            legacyGetCorrelationId(requestHeaders);
+        } else {
+            exchange = FilterUtility.setCorrelationId(exchange, UUID.randomUUID().toString());
+        }
+        return chain.filter(exchange);
+    };
+
+    private static final GlobalFilter LEGACY_RESPONSE_TRACE = (exchange, chain) -> chain.filter(exchange).then(
+            Mono.fromRunnable(() -> {
+                String correlationId = legacyGetCorrelationId(exchange.getRequest().getHeaders());
+                if (!exchange.getResponse().getHeaders().containsKey(FilterUtility.CORRELATION_ID)) {
+                    exchange.getResponse().getHeaders().add(FilterUtility.CORRELATION_ID, correlationId);
+                }
+            }));
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CorrelationIdFilterBenchmark.class.getSimpleName())
+                                       .addProfiler(GCProfiler.class)
+                                       .build()).run();
+    }
+}
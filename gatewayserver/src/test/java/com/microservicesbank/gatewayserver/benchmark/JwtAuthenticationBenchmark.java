@@ -0,0 +1,116 @@
+package com.microservicesbank.gatewayserver.benchmark;
+
+import com.microservicesbank.gatewayserver.config.CachingReactiveJwtDecoder;
+import com.microservicesbank.gatewayserver.config.JwtCache;
+import com.microservicesbank.gatewayserver.config.JwtCacheProperties;
+import com.microservicesbank.gatewayserver.config.KeyCloakRoleConverter;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.RSASSASigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.security.authentication.AbstractAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.NimbusReactiveJwtDecoder;
+import org.springframework.security.oauth2.jwt.ReactiveJwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationConverter;
+import org.springframework.security.oauth2.server.resource.authentication.ReactiveJwtAuthenticationConverterAdapter;
+import reactor.core.publisher.Mono;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Authentication path of SecurityConfig for one RS256 Keycloak-style token: decode (signature and claims verification)
+ * and role conversion, without and with the JWT cache.
+ * Run with: mvn test-compile and then
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.microservicesbank.gatewayserver.benchmark.JwtAuthenticationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationBenchmark {
+
+    private String token;
+
+    private ReactiveJwtDecoder uncachedDecoder;
+
+    private Converter<Jwt, Mono<AbstractAuthenticationToken>> uncachedConverter;
+
+    private CachingReactiveJwtDecoder cachedDecoder;
+
+    private Converter<Jwt, Mono<AbstractAuthenticationToken>> cachedConverter;
+
+    @Setup
+    public void setUp() throws Exception {
+
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair keyPair = generator.generateKeyPair();
+        JWTClaimsSet claims = new JWTClaimsSet.Builder()
+                .subject("microbank-callcenter-cc")
+                .issuer("http://localhost:7080/realms/dev")
+                .expirationTime(Date.from(Instant.now().plusSeconds(3600)))
+                .issueTime(new Date())
+                .claim("realm_access", Map.of("roles", List.of("ACCOUNTS", "CARDS", "LOANS", "offline_access", "uma_authorization")))
+                .build();
+        SignedJWT signedJwt = new SignedJWT(new JWSHeader.Builder(JWSAlgorithm.RS256).keyID("dev-key-1").build(), claims);
+        signedJwt.sign(new RSASSASigner(keyPair.getPrivate()));
+        token = signedJwt.serialize();
+
+        uncachedDecoder = NimbusReactiveJwtDecoder.withPublicKey((RSAPublicKey) keyPair.getPublic()).build();
+        uncachedConverter = converter(new KeyCloakRoleConverter());
+        cachedDecoder = new CachingReactiveJwtDecoder(uncachedDecoder, new KeyCloakRoleConverter(),
+                                                      new JwtCache(new JwtCacheProperties(), new SimpleMeterRegistry()));
+        cachedConverter = converter(cachedDecoder.authoritiesConverter());
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken withoutCache() {
+        return uncachedDecoder.decode(token).flatMap(uncachedConverter::convert).block();
+    }
+
+    @Benchmark
+    public AbstractAuthenticationToken withCache() {
+        return cachedDecoder.decode(token).flatMap(cachedConverter::convert).block();
+    }
+
+    private static Converter<Jwt, Mono<AbstractAuthenticationToken>> converter(
+            Converter<Jwt, Collection<GrantedAuthority>> authoritiesConverter) {
+
+        JwtAuthenticationConverter jwtAuthenticationConverter = new JwtAuthenticationConverter();
+        jwtAuthenticationConverter.setJwtGrantedAuthoritiesConverter(authoritiesConverter);
+        return new ReactiveJwtAuthenticationConverterAdapter(jwtAuthenticationConverter);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthenticationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
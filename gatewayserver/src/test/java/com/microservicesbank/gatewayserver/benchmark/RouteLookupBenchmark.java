@@ -0,0 +1,108 @@
+package com.microservicesbank.gatewayserver.benchmark;
+
+import com.microservicesbank.gatewayserver.routing.PrefixTrieRoutePredicateHandlerMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.handler.predicate.PathRoutePredicateFactory;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolution of one request against 10 and 1,000 Path routes like the ones in application.yml: the gateway's
+ * RoutePredicateHandlerMapping, which tests every route in order, against PrefixTrieRoutePredicateHandlerMapping.
+ * The request matches the last route, the worst case for the ordered scan.
+ * Run the main method with the test classpath, it adds the GC profiler for the allocation rate per operation (gc.alloc.rate.norm).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteLookupBenchmark {
+
+    @Param({"10", "1000"})
+    public int routeCount;
+
+    private RoutePredicateHandlerMapping defaultMapping;
+
+    private PrefixTrieRoutePredicateHandlerMapping prefixTrieMapping;
+
+    private String path;
+
+    @Setup
+    public void setUp() {
+
+        PathRoutePredicateFactory pathPredicates = new PathRoutePredicateFactory();
+        List<Route> routes = new ArrayList<>();
+        List<RouteDefinition> definitions = new ArrayList<>();
+        for (int i = 0; i < routeCount; i++) {
+            String id = "service" + i;
+            String pattern = "/microbank/" + id + "/**";
+            routes.add(Route.async().id(id).uri("lb://" + id)
+                            .asyncPredicate(pathPredicates.applyAsync(config -> config.setPatterns(List.of(pattern))))
+                            .build());
+            RouteDefinition definition = new RouteDefinition();
+            definition.setId(id);
+            definition.setUri(URI.create("lb://" + id));
+            definition.setPredicates(List.of(new PredicateDefinition("Path=" + pattern)));
+            definitions.add(definition);
+        }
+        path = "/microbank/service" + (routeCount - 1) + "/api/fetchCard";
+
+        FilteringWebHandler webHandler = new FilteringWebHandler(List.of());
+        defaultMapping = new RoutePredicateHandlerMapping(webHandler, () -> Flux.fromIterable(routes),
+                                                          new GlobalCorsProperties(), new MockEnvironment());
+        prefixTrieMapping = new PrefixTrieRoutePredicateHandlerMapping(webHandler, () -> Flux.fromIterable(routes),
+                                                                       () -> Flux.fromIterable(definitions),
+                                                                       new GlobalCorsProperties(), new MockEnvironment());
+        prefixTrieMapping.onApplicationEvent(new RefreshRoutesResultEvent(this));
+    }
+
+    @Benchmark
+    public Object defaultLookup() {
+        return defaultMapping.getHandler(exchange()).block();
+    }
+
+    @Benchmark
+    public Object prefixTrieLookup() {
+        return prefixTrieMapping.getHandler(exchange()).block();
+    }
+
+    private MockServerWebExchange exchange() {
+        return MockServerWebExchange.from(MockServerHttpRequest.get(path));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RouteLookupBenchmark.class.getSimpleName())
+                                       .addProfiler(GCProfiler.class)
+                                       .build()).run();
+    }
+}
@@ -0,0 +1,200 @@
+package com.microservicesbank.gatewayserver.benchmark;
+
+import com.microservicesbank.gatewayserver.GatewayserverApplication;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerResponse;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Customer details responses proxied by the whole gateway application from a stub accounts service, 50 requests at a time,
+ * before (HTTP/1.1 to the service, no compression) and after (h2c to the service, gzip to the client) tuning.
+ * A single customer (~0.5 KB) stays below the compression threshold, a batch of 25 customers (~13 KB) is compressed.
+ * At the end of each trial the bytes on the wire per request, client side and service side, and the connections the
+ * gateway opened to the service are printed. Run the main method with the test classpath.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class WireEfficiencyBenchmark {
+
+    private static final int CONCURRENT_REQUESTS = 50;
+
+    private static final String CUSTOMER_DETAILS = """
+            {"name":"Adam Kuchera","email":"adam.kuchera@example.com","mobileNumber":"0666992283",\
+            "accountsDto":{"accountNumber":1000000%02d,"accountType":"Savings","branchAddress":"123 Main Street, New York"},\
+            "cardsDto":{"mobileNumber":"0666992283","cardNumber":"100646930341","cardType":"Credit Card",\
+            "totalLimit":100000,"amountUsed":1000,"availableAmount":99000},\
+            "loansDto":{"mobileNumber":"0666992283","loanNumber":"548732457654","loanType":"Home Loan",\
+            "totalLoan":100000,"amountPaid":1000,"outstandingAmount":99000}}""";
+
+    @Param({"false", "true"})
+    public boolean tuned;
+
+    @Param({"single", "batch"})
+    public String payload;
+
+    private final AtomicLong requests = new AtomicLong();
+
+    private final ByteCounter clientBytes = new ByteCounter();
+
+    private final ByteCounter serviceBytes = new ByteCounter();
+
+    private final AtomicLong serviceConnections = new AtomicLong();
+
+    private DisposableServer accountsService;
+
+    private ConfigurableApplicationContext gateway;
+
+    private ConnectionProvider clientConnections;
+
+    private HttpClient client;
+
+    private String path;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        String single = CUSTOMER_DETAILS.formatted(0);
+        String batch = IntStream.range(0, 25)
+                                .mapToObj(i -> "{\"statusCode\":\"200\",\"statusMessage\":\"Request processed successfully\","
+                                               + "\"customerDetails\":" + CUSTOMER_DETAILS.formatted(i) + "}")
+                                .collect(Collectors.joining(",", "[", "]"));
+        accountsService = HttpServer.create()
+                .port(0)
+                .protocol(HttpProtocol.HTTP11, HttpProtocol.H2C)
+                .doOnChannelInit((observer, channel, address) -> {
+                    serviceConnections.incrementAndGet();
+                    channel.pipeline().addFirst(serviceBytes);
+                })
+                .route(routes -> routes
+                        .get("/api/fetchCustomerDetails", (request, response) -> json(response, single))
+                        .get("/api/fetchCustomerDetailsBatch", (request, response) -> json(response, batch)))
+                .bindNow();
+
+        gateway = new SpringApplicationBuilder(GatewayserverApplication.class).run(
+                "--server.port=0",
+                "--server.compression.enabled=" + tuned,
+                "--gateway.backend-http.h2c=" + tuned,
+                "--spring.cloud.config.enabled=false",
+                "--eureka.client.enabled=false",
+                "--spring.cloud.gateway.discovery.locator.enabled=false",
+                "--spring.cloud.gateway.routes[0].id=accounts",
+                "--spring.cloud.gateway.routes[0].uri=http://localhost:" + accountsService.port(),
+                "--spring.cloud.gateway.routes[0].predicates[0]=Path=/microbank/accounts/**",
+                "--spring.cloud.gateway.routes[0].filters[0]=PrefixRewrite=/microbank/accounts/, /",
+                "--logging.level.root=WARN",
+                "--logging.level.com.microservicesbank.gatewayserver=WARN");
+
+        clientConnections = ConnectionProvider.create("benchmark-client", CONCURRENT_REQUESTS);
+        client = HttpClient.create(clientConnections)
+                           .baseUrl("http://localhost:" + gateway.getEnvironment().getProperty("local.server.port"))
+                           .compress(true) // Accept-Encoding: gzip, the received bytes are counted before decompression
+                           .doOnChannelInit((observer, channel, address) -> channel.pipeline().addFirst(clientBytes));
+        path = "single".equals(payload) ? "/microbank/accounts/api/fetchCustomerDetails?mobileNumber=0666992283"
+                                        : "/microbank/accounts/api/fetchCustomerDetailsBatch";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        long count = requests.get();
+        System.out.printf("%n%s, %s: %d requests, client side %d bytes/request, service side %d bytes/request, "
+                          + "%d gateway connections to the service%n",
+                          tuned ? "h2c + compression" : "HTTP/1.1, uncompressed", payload, count,
+                          clientBytes.total() / count, serviceBytes.total() / count, serviceConnections.get());
+        clientConnections.dispose();
+        gateway.close();
+        accountsService.disposeNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENT_REQUESTS)
+    public long concurrentRequests() {
+
+        return Flux.range(0, CONCURRENT_REQUESTS)
+                   .flatMap(i -> client.get().uri(path).responseContent().aggregate().asByteArray(), CONCURRENT_REQUESTS)
+                   .doOnNext(body -> requests.incrementAndGet())
+                   .map(body -> (long) body.length)
+                   .reduce(0L, Long::sum)
+                   .block();
+    }
+
+    private static Publisher<Void> json(HttpServerResponse response, String body) {
+        return response.header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                       .sendString(Mono.just(body), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Bytes read and written on the socket, added first in the pipeline so it sees the encoded frames
+     */
+    @ChannelHandler.Sharable
+    private static class ByteCounter extends ChannelDuplexHandler {
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (msg instanceof ByteBuf buf) {
+                bytes.addAndGet(buf.readableBytes());
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (msg instanceof ByteBuf buf) {
+                bytes.addAndGet(buf.readableBytes());
+            }
+            ctx.write(msg, promise);
+        }
+
+        long total() {
+            return bytes.get();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WireEfficiencyBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -1,5 +1,6 @@
 package com.microservicesbank.loans;
 
+import com.microservicesbank.loans.config.LoansBatchProperties;
 import com.microservicesbank.loans.dto.LoansContactInfoDTO;
 import io.swagger.v3.oas.annotations.ExternalDocumentation;
 import io.swagger.v3.oas.annotations.OpenAPIDefinition;
@@ -13,7 +14,7 @@ import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
 @SpringBootApplication
 @EnableJpaAuditing(auditorAwareRef = "auditAwareImpl")
-@EnableConfigurationProperties(value = LoansContactInfoDTO.class)
+@EnableConfigurationProperties(value = {LoansContactInfoDTO.class, LoansBatchProperties.class})
 @OpenAPIDefinition(info = @Info(title = "Loans microservice REST API documentation", version = "1.0",
         description = "Documentation Card REST API",
         contact = @Contact(name = "Andrii Kuchera", email = "ak47.10.07.06@gmail.com", url = "https://github.com/andriik7"),
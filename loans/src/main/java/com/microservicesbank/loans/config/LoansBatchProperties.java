@@ -0,0 +1,15 @@
+package com.microservicesbank.loans.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "loans.batch")
+@Getter @Setter
+public class LoansBatchProperties {
+
+    /**
+     * Maximum number of mobile numbers accepted by one bulk lookup request
+     */
+    private int maxSize = 100;
+}
@@ -13,6 +13,7 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import org.slf4j.Logger;
@@ -23,6 +24,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @Tag(
         name = "REST APIs for Loans Microservice",
         description = "Loans REST APIs to perform CRUD operations on Loans Microservice"
@@ -113,6 +117,43 @@ public class LoanController {
         return ResponseEntity.status(HttpStatus.OK).body(loanDTO);
     }
 
+    @Operation(
+            summary = "Fetch loans in batch REST API",
+            description = "Fetches loan details for a list of 10-digit mobile numbers, mobile numbers without a loan are omitted"
+    )
+    @ApiResponses({
+            @ApiResponse(
+                    responseCode = "200",
+                    description = "HTTP Status 200 OK"
+            ),
+            @ApiResponse(
+                    responseCode = "400",
+                    description = "HTTP Status 400 BAD REQUEST",
+                    content = @Content(
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
+            ),
+            @ApiResponse(
+                    responseCode = "500",
+                    description = "HTTP Status 500 INTERNAL SERVER ERROR",
+                    content = @Content(
+                            schema = @Schema(implementation = ErrorResponseDTO.class)
+                    )
+            )
+    })
+    @PostMapping("/fetchLoansBatch")
+    public ResponseEntity<Map<String, LoanDTO>> fetchLoansBatch(@RequestHeader("microbank-correlation-id") String correlationId,
+                                                                @RequestBody @NotEmpty(message = "Mobile numbers cannot be empty")
+                                                                List<@Pattern(regexp = "^\\d{10}$",
+                                                                        message = "Mobile number must be 10 digits") String> mobileNumbers) {
+
+        logger.debug("fetchLoansBatch() method started");
+        Map<String, LoanDTO> loans = loanService.fetchLoans(mobileNumbers);
+        logger.debug("fetchLoansBatch() method ended");
+
+        return ResponseEntity.status(HttpStatus.OK).body(loans);
+    }
+
     @Operation(
             summary = "Update loan REST API",
             description = "Updates loan details based on provided loan details with appropriate loan number"
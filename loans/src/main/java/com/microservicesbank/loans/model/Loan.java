@@ -1,22 +1,35 @@
 package com.microservicesbank.loans.model;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import lombok.*;
 
 @Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = Loan.MOBILE_NUMBER_KEY, columnNames = "mobile_number"),
+        @UniqueConstraint(name = Loan.LOAN_NUMBER_KEY, columnNames = "loan_number")
+})
 @Getter @Setter @ToString
 @AllArgsConstructor @NoArgsConstructor
 public class Loan extends SuperEntity {
 
+    public static final String MOBILE_NUMBER_KEY = "uk_loan_mobile_number";
+
+    public static final String LOAN_NUMBER_KEY = "uk_loan_loan_number";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long loanId;
 
+    @Column(name = "mobile_number")
     private String mobileNumber;
 
+    @Column(name = "loan_number")
     private String loanNumber;
 
     private String loanType;
@@ -4,6 +4,8 @@ import com.microservicesbank.loans.model.Loan;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -13,4 +15,6 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     Optional<Loan> findByMobileNumber(String mobileNumber);
 
     Optional<Loan> findByLoanNumber(String loanNumber);
+
+    List<Loan> findAllByMobileNumberIn(Collection<String> mobileNumbers);
 }
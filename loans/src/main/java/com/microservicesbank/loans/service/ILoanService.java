@@ -2,12 +2,17 @@ package com.microservicesbank.loans.service;
 
 import com.microservicesbank.loans.dto.LoanDTO;
 
+import java.util.List;
+import java.util.Map;
+
 public interface ILoanService {
 
     void createLoan(String mobileNumber);
 
     LoanDTO fetchLoan(String mobileNumber);
 
+    Map<String, LoanDTO> fetchLoans(List<String> mobileNumbers);
+
     boolean updateLoan(LoanDTO loanDto);
 
     boolean deleteLoan(String mobileNumber);
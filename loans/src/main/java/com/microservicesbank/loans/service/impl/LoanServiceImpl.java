@@ -1,7 +1,9 @@
 package com.microservicesbank.loans.service.impl;
 
 
+import com.microservicesbank.loans.config.LoansBatchProperties;
 import com.microservicesbank.loans.constants.LoanConstants;
+import com.microservicesbank.loans.exception.BatchSizeExceededException;
 import com.microservicesbank.loans.exception.LoanAlreadyExistsException;
 import com.microservicesbank.loans.exception.ResourceNotFoundException;
 import com.microservicesbank.loans.mapper.LoanMapper;
@@ -9,18 +11,54 @@ import com.microservicesbank.loans.model.Loan;
 import com.microservicesbank.loans.repository.LoanRepository;
 import com.microservicesbank.loans.service.ILoanService;
 import com.microservicesbank.loans.dto.LoanDTO;
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.exception.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-import java.util.Random;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
-@AllArgsConstructor
 public class LoanServiceImpl implements ILoanService {
 
+    private final Logger log = LoggerFactory.getLogger(LoanServiceImpl.class);
+
+    /**
+     * Attempts to find a free random loan number before giving up
+     */
+    private static final int LOAN_NUMBER_ATTEMPTS = 3;
+
     private LoanRepository loanRepository;
 
+    private LoansBatchProperties loansBatchProperties;
+
+    private StreamBridge streamBridge;
+
+    private DistributionSummary batchSize;
+
+    private Counter batchRejected;
+
+    public LoanServiceImpl(LoanRepository loanRepository, LoansBatchProperties loansBatchProperties,
+                           MeterRegistry meterRegistry, StreamBridge streamBridge) {
+        this.loanRepository = loanRepository;
+        this.loansBatchProperties = loansBatchProperties;
+        this.streamBridge = streamBridge;
+        Gauge.builder("loans.fetch.batch.max.size", loansBatchProperties, LoansBatchProperties::getMaxSize)
+             .description("Maximum number of mobile numbers accepted by one bulk lookup")
+             .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("loans.fetch.batch.size")
+                                            .description("Number of distinct mobile numbers per bulk lookup")
+                                            .register(meterRegistry);
+        this.batchRejected = meterRegistry.counter("loans.fetch.batch.rejected");
+    }
+
     @Override
     /**
      * Creates a new loan based on provided 10-digit mobile number and stores it in the database.
@@ -28,12 +66,33 @@ public class LoanServiceImpl implements ILoanService {
      */
     public void createLoan(String mobileNumber) {
 
-        Optional<Loan> optionalLoan = loanRepository.findByMobileNumber(mobileNumber);
-        if (optionalLoan.isPresent()) {
-            throw new LoanAlreadyExistsException("Loan already exists with mobile number " + mobileNumber);
+        // insert first, the unique index on mobile_number detects duplicates even under concurrent creates
+        for (int attempt = 1; ; attempt++) {
+            try {
+                loanRepository.saveAndFlush(createNewLoan(mobileNumber));
+                return;
+            } catch (DataIntegrityViolationException e) {
+                if (violates(e, Loan.MOBILE_NUMBER_KEY)) {
+                    throw new LoanAlreadyExistsException("Loan already exists with mobile number " + mobileNumber);
+                }
+                // a taken random loan number is retried with a new one, anything else is not a duplicate loan
+                if (!violates(e, Loan.LOAN_NUMBER_KEY) || attempt == LOAN_NUMBER_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Loan number collision for mobile number {}, retrying with a new number", mobileNumber);
+            }
         }
-        Loan saveLoan = createNewLoan(mobileNumber);
-        loanRepository.save(saveLoan);
+    }
+
+    /**
+     * Tells which unique constraint an insert violated, other integrity violations match none.
+     * The database may qualify or suffix the name, e.g. PUBLIC.UK_LOAN_MOBILE_NUMBER_INDEX_2 on H2.
+     */
+    private static boolean violates(DataIntegrityViolationException e, String constraint) {
+
+        return e.getCause() instanceof ConstraintViolationException violation
+                && violation.getConstraintName() != null
+                && violation.getConstraintName().toLowerCase(Locale.ROOT).contains(constraint);
     }
 
     @Override
@@ -51,6 +110,31 @@ public class LoanServiceImpl implements ILoanService {
         return LoanMapper.mapToLoanDTO(loan, new LoanDTO());
     }
 
+    @Override
+    /**
+     * Fetches the loans of several customers from the database with a single query.
+     * Mobile numbers without a loan are left out of the result.
+     * @param mobileNumbers 10-digit mobile numbers of the customers
+     * @return LoanDTO with loan details keyed by mobile number
+     */
+    public Map<String, LoanDTO> fetchLoans(List<String> mobileNumbers) {
+
+        Set<String> distinctMobileNumbers = new LinkedHashSet<>(mobileNumbers);
+        int maxSize = loansBatchProperties.getMaxSize();
+        batchSize.record(distinctMobileNumbers.size());
+
+        if (distinctMobileNumbers.size() > maxSize) {
+            batchRejected.increment();
+            throw new BatchSizeExceededException(distinctMobileNumbers.size(), maxSize);
+        }
+
+        List<Loan> loans = loanRepository.findAllByMobileNumberIn(distinctMobileNumbers);
+
+        return loans.stream()
+                    .collect(Collectors.toMap(Loan::getMobileNumber, loan -> LoanMapper.mapToLoanDTO(loan, new LoanDTO()),
+                                              (first, second) -> first, LinkedHashMap::new));
+    }
+
     @Override
     /**
      * Updates the loan details in the database based on the provided loan details.
@@ -63,9 +147,14 @@ public class LoanServiceImpl implements ILoanService {
                 () -> new ResourceNotFoundException("Loan", "loanNumber", loanDto.getLoanNumber())
         );
 
+        String previousMobileNumber = loan.getMobileNumber();
         LoanMapper.mapToLoan(loanDto, loan);
         loanRepository.save(loan);
 
+        publishLoanChanged(previousMobileNumber);
+        if (!Objects.equals(previousMobileNumber, loan.getMobileNumber())) {
+            publishLoanChanged(loan.getMobileNumber());
+        }
         return true;
     }
 
@@ -82,10 +171,26 @@ public class LoanServiceImpl implements ILoanService {
         );
 
         loanRepository.delete(loan);
+        publishLoanChanged(mobileNumber);
 
         return true;
     }
 
+    /**
+     * Notifies other microservices (accounts near-cache) that the loan of a customer has changed.
+     * A broker failure is only logged because the loan is already stored and cached copies expire on their own.
+     * @param mobileNumber 10-digit mobile number of the customer
+     */
+    private void publishLoanChanged(String mobileNumber) {
+
+        try {
+            boolean result = streamBridge.send("loanChanged-out-0", mobileNumber);
+            log.debug("Loan changed event for mobile number {} sent: {}", mobileNumber, result);
+        } catch (RuntimeException e) {
+            log.warn("Loan changed event for mobile number {} could not be sent: {}", mobileNumber, e.getMessage());
+        }
+    }
+
     private Loan createNewLoan(String mobileNumber) {
 
         Loan loan = new Loan();
@@ -10,5 +10,7 @@ CREATE TABLE IF NOT EXISTS `loan` (
   `created_by` varchar(20) NOT NULL,
   `updated_at` date DEFAULT NULL,
   `updated_by` varchar(20) DEFAULT NULL,
-  PRIMARY KEY (`loan_id`)
+  PRIMARY KEY (`loan_id`),
+  CONSTRAINT `uk_loan_mobile_number` UNIQUE (`mobile_number`),
+  CONSTRAINT `uk_loan_loan_number` UNIQUE (`loan_number`)
 );
\ No newline at end of file
@@ -0,0 +1,86 @@
+package microsevicesbank.loan;
+
+import com.microservicesbank.loans.LoansApplication;
+import com.microservicesbank.loans.exception.LoanAlreadyExistsException;
+import com.microservicesbank.loans.model.Loan;
+import com.microservicesbank.loans.repository.LoanRepository;
+import com.microservicesbank.loans.service.ILoanService;
+import microsevicesbank.loan.display.CamelCaseDisplay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource("/application-test.yml")
+@DisplayNameGeneration(CamelCaseDisplay.class)
+@SpringBootTest(classes = LoansApplication.class, properties = "spring.jpa.show-sql=false")
+public class LoanConcurrentCreateTest {
+
+    private static final int MOBILE_NUMBERS = 20;
+
+    private static final int ATTEMPTS_PER_MOBILE_NUMBER = 8;
+
+    @Autowired
+    private ILoanService loanService;
+
+    @Autowired
+    private LoanRepository loanRepository;
+
+    @AfterEach
+    public void tearDown() {
+        loanRepository.deleteAll();
+    }
+
+    @Test
+    public void concurrentCreatesForSameMobileNumberCreateExactlyOneLoan() throws Exception {
+
+        AtomicInteger created = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        // one platform thread per attempt and fewer threads than pooled connections, so every attempt holds a
+        // connection while it races and none waits for one; the attempts for a mobile number are released together
+        try (ExecutorService executor = Executors.newFixedThreadPool(ATTEMPTS_PER_MOBILE_NUMBER)) {
+            for (int i = 0; i < MOBILE_NUMBERS; i++) {
+                String mobileNumber = String.format("05%08d", i);
+                CountDownLatch startGate = new CountDownLatch(1);
+                List<Future<?>> futures = new ArrayList<>();
+                for (int attempt = 0; attempt < ATTEMPTS_PER_MOBILE_NUMBER; attempt++) {
+                    futures.add(executor.submit(() -> {
+                        startGate.await();
+                        try {
+                            loanService.createLoan(mobileNumber);
+                            created.incrementAndGet();
+                        } catch (LoanAlreadyExistsException e) {
+                            rejected.incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+                startGate.countDown();
+                for (Future<?> future : futures) {
+                    future.get(30, TimeUnit.SECONDS);
+                }
+            }
+        }
+
+        List<Loan> loans = loanRepository.findAll();
+        long duplicates = loans.size() - loans.stream().map(Loan::getMobileNumber).distinct().count();
+
+        assertEquals(MOBILE_NUMBERS, created.get());
+        assertEquals(MOBILE_NUMBERS * (ATTEMPTS_PER_MOBILE_NUMBER - 1), rejected.get());
+        assertEquals(0, duplicates);
+    }
+}
@@ -1,26 +1,36 @@
 package microsevicesbank.loan;
 
 import com.microservicesbank.loans.LoansApplication;
+import com.microservicesbank.loans.config.LoansBatchProperties;
 import com.microservicesbank.loans.dto.LoanDTO;
+import com.microservicesbank.loans.exception.BatchSizeExceededException;
 import com.microservicesbank.loans.exception.LoanAlreadyExistsException;
 import com.microservicesbank.loans.exception.ResourceNotFoundException;
 import com.microservicesbank.loans.model.Loan;
 import com.microservicesbank.loans.repository.LoanRepository;
 import com.microservicesbank.loans.service.impl.LoanServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.transaction.Transactional;
 import microsevicesbank.loan.display.CamelCaseDisplay;
+import org.hibernate.exception.ConstraintViolationException;
 import org.junit.jupiter.api.DisplayNameGeneration;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
+import org.springframework.cloud.stream.function.StreamBridge;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.TestPropertySource;
 
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +44,15 @@ public class LoanServiceTest {
     @Mock
     private LoanRepository loanRepository;
 
+    @Spy
+    private LoansBatchProperties loansBatchProperties = new LoansBatchProperties();
+
+    @Spy
+    private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private StreamBridge streamBridge;
+
     @InjectMocks
     private LoanServiceImpl loanService;
 
@@ -44,23 +63,53 @@ public class LoanServiceTest {
     @Test
     public void createLoanTest() {
 
-        when(loanRepository.findByMobileNumber(anyString())).thenReturn(Optional.empty());
-
         loanService.createLoan(TEST_MOBILE_NUMBER);
 
-        verify(loanRepository, times(1)).findByMobileNumber(anyString());
-        verify(loanRepository, times(1)).save(any(Loan.class));
+        verify(loanRepository, never()).findByMobileNumber(anyString());
+        verify(loanRepository, times(1)).saveAndFlush(any(Loan.class));
     }
 
     @Test
     public void createLoanAlreadyExistsTest() {
 
-        when(loanRepository.findByMobileNumber(anyString())).thenReturn(Optional.of(new Loan()));
+        when(loanRepository.saveAndFlush(any(Loan.class)))
+                .thenThrow(violationOf("PUBLIC.UK_LOAN_MOBILE_NUMBER_INDEX_2"));
 
         assertThrows(LoanAlreadyExistsException.class, () -> loanService.createLoan(TEST_MOBILE_NUMBER));
 
-        verify(loanRepository, times(1)).findByMobileNumber(anyString());
-        verify(loanRepository, never()).save(any(Loan.class));
+        verify(loanRepository, never()).findByMobileNumber(anyString());
+    }
+
+    @Test
+    public void createLoanRetriesTakenLoanNumberTest() {
+
+        when(loanRepository.saveAndFlush(any(Loan.class)))
+                .thenThrow(violationOf("loan.uk_loan_loan_number"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        loanService.createLoan(TEST_MOBILE_NUMBER);
+
+        verify(loanRepository, times(2)).saveAndFlush(any(Loan.class));
+    }
+
+    @Test
+    public void createLoanRethrowsOtherIntegrityViolationsTest() {
+
+        DataIntegrityViolationException notNull = violationOf(null);
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenThrow(notNull);
+
+        assertSame(notNull, assertThrows(DataIntegrityViolationException.class, () -> loanService.createLoan(TEST_MOBILE_NUMBER)));
+
+        reset(loanRepository);
+        when(loanRepository.saveAndFlush(any(Loan.class))).thenThrow(violationOf("PUBLIC.UK_LOAN_LOAN_NUMBER_INDEX_2"));
+
+        assertThrows(DataIntegrityViolationException.class, () -> loanService.createLoan(TEST_MOBILE_NUMBER));
+        verify(loanRepository, times(3)).saveAndFlush(any(Loan.class));
+    }
+
+    private static DataIntegrityViolationException violationOf(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
     }
 
     @Test
@@ -120,6 +169,7 @@ public class LoanServiceTest {
 
         verify(loanRepository, times(1)).findByMobileNumber(TEST_MOBILE_NUMBER);
         verify(loanRepository, times(1)).delete(any(Loan.class));
+        verify(streamBridge, times(1)).send("loanChanged-out-0", TEST_MOBILE_NUMBER);
     }
 
     @Test
@@ -133,4 +183,31 @@ public class LoanServiceTest {
         verify(loanRepository, never()).delete(any(Loan.class));
     }
 
+    @Test
+    public void fetchLoanBatchTest() {
+
+        Loan loan = new Loan();
+        loan.setMobileNumber(TEST_MOBILE_NUMBER);
+        when(loanRepository.findAllByMobileNumberIn(anyCollection())).thenReturn(List.of(loan));
+
+        Map<String, LoanDTO> fetched = loanService.fetchLoans(List.of(TEST_MOBILE_NUMBER, TEST_MOBILE_NUMBER, "0111111111"));
+
+        assertEquals(1, fetched.size());
+        assertEquals(TEST_MOBILE_NUMBER, fetched.get(TEST_MOBILE_NUMBER).getMobileNumber());
+        verify(loanRepository, times(1)).findAllByMobileNumberIn(anyCollection());
+        assertEquals(2, meterRegistry.summary("loans.fetch.batch.size").max());
+        assertEquals(1, meterRegistry.summary("loans.fetch.batch.size").count());
+    }
+
+    @Test
+    public void fetchLoanBatchSizeExceededTest() {
+
+        loansBatchProperties.setMaxSize(1);
+
+        assertThrows(BatchSizeExceededException.class,
+                () -> loanService.fetchLoans(List.of(TEST_MOBILE_NUMBER, "0111111111")));
+
+        verify(loanRepository, never()).findAllByMobileNumberIn(anyCollection());
+        assertEquals(1, meterRegistry.counter("loans.fetch.batch.rejected").count());
+    }
 }
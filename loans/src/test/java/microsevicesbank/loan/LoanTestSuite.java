@@ -6,7 +6,8 @@ import org.junit.platform.suite.api.Suite;
 @Suite
 @SelectClasses({
     LoanServiceTest.class,
-    LoanControllerTest.class
+    LoanControllerTest.class,
+    LoanConcurrentCreateTest.class
 })
 public class LoanTestSuite {
 }
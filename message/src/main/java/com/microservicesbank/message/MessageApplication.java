@@ -1,9 +1,14 @@
 package com.microservicesbank.message;
 
+import com.microservicesbank.message.config.DedupProperties;
+import com.microservicesbank.message.config.DispatchProperties;
+import com.microservicesbank.message.config.SimulationProperties;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 
 @SpringBootApplication
+@EnableConfigurationProperties({DispatchProperties.class, DedupProperties.class, SimulationProperties.class})
 public class MessageApplication {
 
 	public static void main(String[] args) {
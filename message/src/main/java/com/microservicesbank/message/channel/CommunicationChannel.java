@@ -0,0 +1,21 @@
+package com.microservicesbank.message.channel;
+
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+
+/**
+ * One way of notifying a customer (email, SMS). A message is acknowledged only when every channel succeeded.
+ */
+public interface CommunicationChannel {
+
+    /**
+     * @return channel name, used as the metrics tag
+     */
+    String name();
+
+    /**
+     * Sends the message, throws if it could not be delivered
+     *
+     * @param accountsMessageDTO message to send
+     */
+    void send(AccountsMessageDTO accountsMessageDTO);
+}
@@ -0,0 +1,32 @@
+package com.microservicesbank.message.channel;
+
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+import com.microservicesbank.message.sender.EmailSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class EmailChannel implements CommunicationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailChannel.class);
+
+    private final EmailSender emailSender;
+
+    public EmailChannel(EmailSender emailSender) {
+        this.emailSender = emailSender;
+    }
+
+    @Override
+    public String name() {
+        return "email";
+    }
+
+    @Override
+    public void send(AccountsMessageDTO accountsMessageDTO) {
+        log.debug("Sending email to " + accountsMessageDTO.toString());
+        emailSender.send(accountsMessageDTO.email(), "Your account " + accountsMessageDTO.accountNumber() + " is ready",
+                         "Dear " + accountsMessageDTO.name() + ", your account " + accountsMessageDTO.accountNumber()
+                         + " has been created.");
+    }
+}
@@ -0,0 +1,31 @@
+package com.microservicesbank.message.channel;
+
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+import com.microservicesbank.message.sender.SmsSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SmsChannel implements CommunicationChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(SmsChannel.class);
+
+    private final SmsSender smsSender;
+
+    public SmsChannel(SmsSender smsSender) {
+        this.smsSender = smsSender;
+    }
+
+    @Override
+    public String name() {
+        return "sms";
+    }
+
+    @Override
+    public void send(AccountsMessageDTO accountsMessageDTO) {
+        log.debug("Sending SMS to " + accountsMessageDTO.toString());
+        smsSender.send(accountsMessageDTO.mobileNumber(),
+                       "Your account " + accountsMessageDTO.accountNumber() + " has been created.");
+    }
+}
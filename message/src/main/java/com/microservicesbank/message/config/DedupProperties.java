@@ -0,0 +1,48 @@
+package com.microservicesbank.message.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "message.dedup")
+public class DedupProperties {
+
+    /**
+     * Maximum number of deliveries remembered, one per message and channel, the oldest ones are forgotten first
+     */
+    private int maxEntries = 100_000;
+
+    /**
+     * How long a delivered message is remembered, redeliveries after that are sent again
+     */
+    private Duration retention = Duration.ofHours(24);
+
+    /**
+     * Target false positive rate of the Bloom filter in front of the LRU
+     */
+    private double bloomFalsePositiveRate = 0.01;
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    public void setBloomFalsePositiveRate(double bloomFalsePositiveRate) {
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+    }
+}
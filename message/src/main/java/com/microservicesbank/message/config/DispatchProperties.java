@@ -0,0 +1,33 @@
+package com.microservicesbank.message.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "message.dispatch")
+public class DispatchProperties {
+
+    /**
+     * Threads sending messages through the channels, shared by all channels
+     */
+    private int poolSize = 8;
+
+    /**
+     * Channel sends waiting for a thread, when the queue is full the consumer thread sends by itself
+     */
+    private int queueCapacity = 1000;
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -0,0 +1,28 @@
+package com.microservicesbank.message.config;
+
+import com.microservicesbank.message.sender.EmailSender;
+import com.microservicesbank.message.sender.LocalEmailSender;
+import com.microservicesbank.message.sender.LocalSmsSender;
+import com.microservicesbank.message.sender.SmsSender;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Falls back to the local stand-ins when no real email or SMS provider bean is registered
+ */
+@Configuration
+public class SenderConfig {
+
+    @Bean
+    @ConditionalOnMissingBean(EmailSender.class)
+    public EmailSender localEmailSender(SimulationProperties simulationProperties) {
+        return new LocalEmailSender(simulationProperties);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(SmsSender.class)
+    public SmsSender localSmsSender(SimulationProperties simulationProperties) {
+        return new LocalSmsSender(simulationProperties);
+    }
+}
@@ -0,0 +1,61 @@
+package com.microservicesbank.message.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Behaviour of the local email and SMS stand-ins, used when no real provider is configured
+ */
+@ConfigurationProperties(prefix = "message.simulation")
+public class SimulationProperties {
+
+    private Provider email = new Provider();
+
+    private Provider sms = new Provider();
+
+    public Provider getEmail() {
+        return email;
+    }
+
+    public void setEmail(Provider email) {
+        this.email = email;
+    }
+
+    public Provider getSms() {
+        return sms;
+    }
+
+    public void setSms(Provider sms) {
+        this.sms = sms;
+    }
+
+    public static class Provider {
+
+        /**
+         * Time every send blocks for, as a call to the provider would
+         */
+        private Duration latency = Duration.ZERO;
+
+        /**
+         * Share of sends that fail, between 0 and 1
+         */
+        private double failureRate = 0;
+
+        public Duration getLatency() {
+            return latency;
+        }
+
+        public void setLatency(Duration latency) {
+            this.latency = latency;
+        }
+
+        public double getFailureRate() {
+            return failureRate;
+        }
+
+        public void setFailureRate(double failureRate) {
+            this.failureRate = failureRate;
+        }
+    }
+}
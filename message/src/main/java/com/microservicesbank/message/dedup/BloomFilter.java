@@ -0,0 +1,72 @@
+package com.microservicesbank.message.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Minimal Bloom filter over strings. Answers "definitely not seen" without touching the LRU,
+ * a positive answer still has to be confirmed there. Not thread safe, guarded by DeduplicationStore.
+ */
+class BloomFilter {
+
+    private final long[] bits;
+
+    private final int bitCount;
+
+    private final int hashCount;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int optimalBits = (int) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.bitCount = Math.max(64, optimalBits);
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+        this.bits = new long[(bitCount + 63) / 64];
+    }
+
+    void put(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    long sizeInBytes() {
+        return bits.length * 8L;
+    }
+
+    /**
+     * 64-bit FNV-1a followed by the murmur3 finalizer, the two halves feed double hashing
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,139 @@
+package com.microservicesbank.message.dedup;
+
+import com.microservicesbank.message.config.DedupProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers which messages were already delivered, keyed by account number plus message id and channel.
+ * A Bloom filter answers most lookups for new messages without touching the LRU; the LRU is bounded
+ * by max-entries and entries older than the retention window count as not delivered.
+ * The Bloom filter cannot forget, it is sized for twice max-entries insertions and rebuilt from the LRU
+ * once it has taken that many, so at least max-entries deliveries pass between two rebuilds.
+ */
+@Component
+public class DeduplicationStore {
+
+    // LinkedHashMap entry, boxed timestamp and key string of an account number plus message id and channel
+    private static final long ESTIMATED_BYTES_PER_ENTRY = 200;
+
+    private final long retentionMillis;
+
+    private final int maxEntries;
+
+    private final Clock clock;
+
+    private final BloomFilter bloomFilter;
+
+    private final LinkedHashMap<String, Long> deliveredAt;
+
+    private final int bloomCapacity;
+
+    private int bloomInsertions;
+
+    private final Counter bloomRebuilds;
+
+    private final Counter bloomNegatives;
+
+    private final Counter lruMisses;
+
+    private final Counter duplicates;
+
+    @Autowired
+    public DeduplicationStore(DedupProperties dedupProperties, MeterRegistry meterRegistry) {
+        this(dedupProperties, meterRegistry, Clock.systemUTC());
+    }
+
+    DeduplicationStore(DedupProperties dedupProperties, MeterRegistry meterRegistry, Clock clock) {
+        this.retentionMillis = dedupProperties.getRetention().toMillis();
+        this.maxEntries = dedupProperties.getMaxEntries();
+        this.clock = clock;
+        this.bloomCapacity = 2 * maxEntries;
+        this.bloomFilter = new BloomFilter(bloomCapacity, dedupProperties.getBloomFalsePositiveRate());
+        this.deliveredAt = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.bloomRebuilds = meterRegistry.counter("message.dedup.bloom.rebuilds");
+        this.bloomNegatives = meterRegistry.counter("message.dedup.checks", "result", "bloom_negative");
+        this.lruMisses = meterRegistry.counter("message.dedup.checks", "result", "lru_miss");
+        this.duplicates = meterRegistry.counter("message.dedup.checks", "result", "duplicate");
+        Gauge.builder("message.dedup.entries", this, DeduplicationStore::size)
+             .description("Delivered messages currently remembered")
+             .register(meterRegistry);
+        Gauge.builder("message.dedup.memory", this, DeduplicationStore::estimatedSizeInBytes)
+             .description("Estimated heap used by the LRU and the Bloom filter")
+             .baseUnit("bytes")
+             .register(meterRegistry);
+    }
+
+    /**
+     * @return null without a message id, the account number alone cannot tell a redelivery from a new communication
+     */
+    public static String key(Long accountNumber, String messageId) {
+        return messageId == null ? null : accountNumber + ":" + messageId;
+    }
+
+    /**
+     * @return null without a message id, otherwise the key of the message's delivery on one channel
+     */
+    public static String key(Long accountNumber, String messageId, String channel) {
+        String key = key(accountNumber, messageId);
+        return key == null ? null : key + ":" + channel;
+    }
+
+    public synchronized boolean isDuplicate(String key) {
+
+        if (!bloomFilter.mightContain(key)) {
+            bloomNegatives.increment();
+            return false;
+        }
+        Long timestamp = deliveredAt.get(key);
+        if (timestamp == null || clock.millis() - timestamp > retentionMillis) {
+            if (timestamp != null) {
+                deliveredAt.remove(key);
+            }
+            lruMisses.increment();
+            return false;
+        }
+        duplicates.increment();
+        return true;
+    }
+
+    public synchronized void markDelivered(String key) {
+
+        deliveredAt.put(key, clock.millis());
+        if (++bloomInsertions > bloomCapacity) {
+            rebuildBloomFilter();
+        }
+        bloomFilter.put(key);
+    }
+
+    synchronized int size() {
+        return deliveredAt.size();
+    }
+
+    synchronized long estimatedSizeInBytes() {
+        return deliveredAt.size() * ESTIMATED_BYTES_PER_ENTRY + bloomFilter.sizeInBytes();
+    }
+
+    private void rebuildBloomFilter() {
+
+        long oldest = clock.millis() - retentionMillis;
+        deliveredAt.values().removeIf(timestamp -> timestamp < oldest);
+        bloomFilter.clear();
+        deliveredAt.keySet().forEach(bloomFilter::put);
+        // at most max-entries, the other half of the capacity is left for new deliveries
+        bloomInsertions = deliveredAt.size();
+        bloomRebuilds.increment();
+    }
+}
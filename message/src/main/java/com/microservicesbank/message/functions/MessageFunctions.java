@@ -1,12 +1,19 @@
 package com.microservicesbank.message.functions;
 
 import com.microservicesbank.message.dto.AccountsMessageDTO;
+import com.microservicesbank.message.service.CommunicationDispatcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.integration.amqp.inbound.AmqpInboundChannelAdapter;
+import org.springframework.messaging.Message;
 
-import java.util.function.Function;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 
 @Configuration
@@ -18,21 +25,28 @@ public class MessageFunctions {
     //Supplier when I need only output
     //Consumer when I need only input
     @Bean
-    public Function<AccountsMessageDTO, AccountsMessageDTO> email() {
+    public Consumer<Message<List<AccountsMessageDTO>>> sendCommunication(CommunicationDispatcher communicationDispatcher) {
 
-        return accountsMessageDTO -> {
-            log.info("Sending email to " + accountsMessageDTO.toString());
-            return accountsMessageDTO;
+        return message -> {
+            List<AccountsMessageDTO> accountsMessages = message.getPayload();
+            log.info("Dispatching batch of {} communications", accountsMessages.size());
+            communicationDispatcher.dispatch(accountsMessages, messageIds(message));
         };
     }
 
-    @Bean
-    public Function<AccountsMessageDTO, Long> sms() {
-
-        return accountsMessageDTO -> {
-            log.info("Sending SMS to " + accountsMessageDTO.toString());
-            return accountsMessageDTO.accountNumber();
-        };
+    /**
+     * In batch mode the rabbit binder keeps the headers of every message in amqp_batchedHeaders
+     */
+    @SuppressWarnings("unchecked")
+    private static List<String> messageIds(Message<List<AccountsMessageDTO>> message) {
+
+        List<Map<String, Object>> batchedHeaders = message.getHeaders().get(AmqpInboundChannelAdapter.CONSOLIDATED_HEADERS, List.class);
+        if (batchedHeaders == null || batchedHeaders.size() != message.getPayload().size()) {
+            return Collections.nCopies(message.getPayload().size(), null);
+        }
+        return batchedHeaders.stream()
+                             .map(headers -> (String) headers.get(AmqpHeaders.MESSAGE_ID))
+                             .toList();
     }
 
-}
\ No newline at end of file
+}
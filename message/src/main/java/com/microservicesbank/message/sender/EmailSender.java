@@ -0,0 +1,16 @@
+package com.microservicesbank.message.sender;
+
+/**
+ * Email provider used by the email channel. Register a bean of this type to replace the local stand-in.
+ */
+public interface EmailSender {
+
+    /**
+     * Hands the email over to the provider, throws if the provider rejected it
+     *
+     * @param to      recipient address
+     * @param subject email subject
+     * @param body    plain text body
+     */
+    void send(String to, String subject, String body);
+}
@@ -0,0 +1,25 @@
+package com.microservicesbank.message.sender;
+
+import com.microservicesbank.message.config.SimulationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stand-in for a real email provider, logs the email after the simulated latency
+ */
+public class LocalEmailSender implements EmailSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalEmailSender.class);
+
+    private final SimulatedProvider simulatedProvider;
+
+    public LocalEmailSender(SimulationProperties simulationProperties) {
+        this.simulatedProvider = new SimulatedProvider("email", simulationProperties.getEmail());
+    }
+
+    @Override
+    public void send(String to, String subject, String body) {
+        simulatedProvider.call();
+        log.debug("Sent email to {}: {}", to, subject);
+    }
+}
@@ -0,0 +1,25 @@
+package com.microservicesbank.message.sender;
+
+import com.microservicesbank.message.config.SimulationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stand-in for a real SMS provider, logs the SMS after the simulated latency
+ */
+public class LocalSmsSender implements SmsSender {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalSmsSender.class);
+
+    private final SimulatedProvider simulatedProvider;
+
+    public LocalSmsSender(SimulationProperties simulationProperties) {
+        this.simulatedProvider = new SimulatedProvider("sms", simulationProperties.getSms());
+    }
+
+    @Override
+    public void send(String mobileNumber, String text) {
+        simulatedProvider.call();
+        log.debug("Sent SMS to {}: {}", mobileNumber, text);
+    }
+}
@@ -0,0 +1,36 @@
+package com.microservicesbank.message.sender;
+
+import com.microservicesbank.message.config.SimulationProperties;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Behaves like a remote provider call: blocks for the configured latency and fails at the configured rate
+ */
+class SimulatedProvider {
+
+    private final String name;
+
+    private final SimulationProperties.Provider provider;
+
+    SimulatedProvider(String name, SimulationProperties.Provider provider) {
+        this.name = name;
+        this.provider = provider;
+    }
+
+    void call() {
+
+        long latencyMillis = provider.getLatency().toMillis();
+        if (latencyMillis > 0) {
+            try {
+                Thread.sleep(latencyMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(name + " call was interrupted", e);
+            }
+        }
+        if (ThreadLocalRandom.current().nextDouble() < provider.getFailureRate()) {
+            throw new IllegalStateException(name + " provider rejected the message (simulated failure)");
+        }
+    }
+}
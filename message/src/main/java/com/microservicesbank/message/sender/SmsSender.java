@@ -0,0 +1,15 @@
+package com.microservicesbank.message.sender;
+
+/**
+ * SMS provider used by the SMS channel. Register a bean of this type to replace the local stand-in.
+ */
+public interface SmsSender {
+
+    /**
+     * Hands the SMS over to the provider, throws if the provider rejected it
+     *
+     * @param mobileNumber recipient mobile number
+     * @param text         message text
+     */
+    void send(String mobileNumber, String text);
+}
@@ -0,0 +1,14 @@
+package com.microservicesbank.message.service;
+
+import java.util.List;
+
+/**
+ * Thrown after a batch was dispatched if some messages failed on at least one channel,
+ * so the binder redelivers the batch
+ */
+public class CommunicationDispatchException extends RuntimeException {
+
+    public CommunicationDispatchException(List<Long> failedAccountNumbers) {
+        super("Communication could not be sent for account numbers " + failedAccountNumbers);
+    }
+}
@@ -0,0 +1,158 @@
+package com.microservicesbank.message.service;
+
+import com.microservicesbank.message.channel.CommunicationChannel;
+import com.microservicesbank.message.config.DispatchProperties;
+import com.microservicesbank.message.dedup.DeduplicationStore;
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.function.StreamBridge;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends every message of a batch through every channel concurrently on a bounded pool,
+ * then acknowledges each account number on communication-sent once all of its channels succeeded.
+ * Delivery is remembered per message id and channel: a redelivered batch skips the channels that already sent
+ * the message, so a message whose SMS failed is not emailed twice. Messages without an id cannot be told apart from
+ * new ones, they are always sent and counted.
+ */
+@Service
+public class CommunicationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(CommunicationDispatcher.class);
+
+    private final List<CommunicationChannel> channels;
+
+    private final StreamBridge streamBridge;
+
+    private final DeduplicationStore deduplicationStore;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter messagesWithoutId;
+
+    public CommunicationDispatcher(List<CommunicationChannel> channels, StreamBridge streamBridge,
+                                   DeduplicationStore deduplicationStore, MeterRegistry meterRegistry,
+                                   DispatchProperties dispatchProperties) {
+        this.channels = channels;
+        this.streamBridge = streamBridge;
+        this.deduplicationStore = deduplicationStore;
+        this.meterRegistry = meterRegistry;
+        this.executor = new ThreadPoolExecutor(dispatchProperties.getPoolSize(), dispatchProperties.getPoolSize(),
+                                               0L, TimeUnit.MILLISECONDS,
+                                               new LinkedBlockingQueue<>(dispatchProperties.getQueueCapacity()),
+                                               new ThreadPoolExecutor.CallerRunsPolicy());
+        this.batchSize = DistributionSummary.builder("message.dispatch.batch.size")
+                                            .description("Messages received in one send-communication batch")
+                                            .register(meterRegistry);
+        this.messagesWithoutId = meterRegistry.counter("message.dedup.checks", "result", "no_message_id");
+    }
+
+    public void dispatch(List<AccountsMessageDTO> batch) {
+        dispatch(batch, Collections.nCopies(batch.size(), null));
+    }
+
+    /**
+     * @param messageIds broker message id of each message in the batch, null when the publisher did not set one,
+     *                   such messages are always sent on every channel
+     */
+    public void dispatch(List<AccountsMessageDTO> batch, List<String> messageIds) {
+
+        batchSize.record(batch.size());
+        List<Delivery> deliveries = new ArrayList<>(batch.size());
+        Set<String> batchKeys = new HashSet<>();
+        int withoutId = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            AccountsMessageDTO accountsMessageDTO = batch.get(i);
+            String messageId = messageIds.get(i);
+            String key = DeduplicationStore.key(accountsMessageDTO.accountNumber(), messageId);
+            if (key == null) {
+                withoutId++;
+            } else if (!batchKeys.add(key)) {
+                continue;
+            }
+
+            List<CompletableFuture<Void>> channelSends = new ArrayList<>(channels.size());
+            for (CommunicationChannel channel : channels) {
+                String channelKey = DeduplicationStore.key(accountsMessageDTO.accountNumber(), messageId, channel.name());
+                if (channelKey != null && deduplicationStore.isDuplicate(channelKey)) {
+                    continue;
+                }
+                // remembered as soon as this channel sent it, a failure of another channel must not resend it
+                channelSends.add(CompletableFuture.runAsync(() -> {
+                    send(channel, accountsMessageDTO);
+                    if (channelKey != null) {
+                        deduplicationStore.markDelivered(channelKey);
+                    }
+                }, executor));
+            }
+            if (channelSends.isEmpty()) {
+                log.info("Skipping already delivered communication for account number {}", accountsMessageDTO.accountNumber());
+                continue;
+            }
+            deliveries.add(new Delivery(accountsMessageDTO.accountNumber(),
+                                        CompletableFuture.allOf(channelSends.toArray(CompletableFuture[]::new))
+                                                         .handle((ignored, throwable) -> throwable == null)));
+        }
+        if (withoutId > 0) {
+            messagesWithoutId.increment(withoutId);
+            log.warn("{} communications without message id are sent without deduplication", withoutId);
+        }
+
+        List<Long> failedAccountNumbers = new ArrayList<>();
+        for (Delivery delivery : deliveries) {
+            if (delivery.sent().join()) {
+                streamBridge.send("communicationSent-out-0", delivery.accountNumber());
+            } else {
+                failedAccountNumbers.add(delivery.accountNumber());
+            }
+        }
+        if (!failedAccountNumbers.isEmpty()) {
+            throw new CommunicationDispatchException(failedAccountNumbers);
+        }
+    }
+
+    private void send(CommunicationChannel channel, AccountsMessageDTO accountsMessageDTO) {
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        try {
+            channel.send(accountsMessageDTO);
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            log.warn("Sending {} for account number {} failed: {}", channel.name(), accountsMessageDTO.accountNumber(),
+                     e.getMessage());
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer("message.channel.latency", "channel", channel.name(), "outcome", outcome));
+        }
+    }
+
+    private record Delivery(Long accountNumber, CompletableFuture<Boolean> sent) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
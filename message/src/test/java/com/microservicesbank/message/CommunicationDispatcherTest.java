@@ -0,0 +1,183 @@
+package com.microservicesbank.message;
+
+import com.microservicesbank.message.channel.CommunicationChannel;
+import com.microservicesbank.message.config.DedupProperties;
+import com.microservicesbank.message.config.DispatchProperties;
+import com.microservicesbank.message.dedup.DeduplicationStore;
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+import com.microservicesbank.message.service.CommunicationDispatchException;
+import com.microservicesbank.message.service.CommunicationDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.stream.function.StreamBridge;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CommunicationDispatcherTest {
+
+	private static final long EMAIL_DELAY_MS = 50;
+	private static final long SMS_DELAY_MS = 100;
+	private static final int BATCH_SIZE = 16;
+
+	private final StreamBridge streamBridge = mock(StreamBridge.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private CommunicationDispatcher communicationDispatcher;
+
+	@AfterEach
+	void tearDown() {
+		communicationDispatcher.shutdown();
+	}
+
+	@Test
+	void dispatchSendsChannelsConcurrentlyAndAcknowledgesEachAccountOnce() {
+		communicationDispatcher = dispatcher(new DelayedChannel("email", EMAIL_DELAY_MS, -1),
+											 new DelayedChannel("sms", SMS_DELAY_MS, -1));
+		List<AccountsMessageDTO> batch = batch();
+
+		long start = System.nanoTime();
+		communicationDispatcher.dispatch(batch);
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		System.out.printf("dispatch: batch=%d email=%dms sms=%dms -> %dms (one at a time would be %dms)%n",
+						  BATCH_SIZE, EMAIL_DELAY_MS, SMS_DELAY_MS, elapsedMs, BATCH_SIZE * (EMAIL_DELAY_MS + SMS_DELAY_MS));
+		assertTrue(elapsedMs < BATCH_SIZE * (EMAIL_DELAY_MS + SMS_DELAY_MS) / 4);
+		for (AccountsMessageDTO accountsMessageDTO : batch) {
+			verify(streamBridge, times(1)).send("communicationSent-out-0", accountsMessageDTO.accountNumber());
+		}
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.dispatch.batch.size").summary().totalAmount());
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.channel.latency").tag("channel", "sms").timer().count());
+	}
+
+	@Test
+	void dispatchDoesNotAcknowledgeAccountWhenAnyChannelFails() {
+		long failingAccountNumber = 1000000003L;
+		communicationDispatcher = dispatcher(new DelayedChannel("email", 0, -1),
+											 new DelayedChannel("sms", 0, failingAccountNumber));
+
+		CommunicationDispatchException exception = assertThrows(CommunicationDispatchException.class,
+																 () -> communicationDispatcher.dispatch(batch()));
+
+		assertTrue(exception.getMessage().contains(Long.toString(failingAccountNumber)));
+		verify(streamBridge, never()).send(anyString(), eq(failingAccountNumber));
+		verify(streamBridge, times(BATCH_SIZE - 1)).send(eq("communicationSent-out-0"), anyLong());
+		assertEquals(1, meterRegistry.get("message.channel.latency").tag("outcome", "failure").timer().count());
+	}
+
+	@Test
+	void redeliveredBatchIsNotSentOrAcknowledgedAgain() {
+		DelayedChannel email = new DelayedChannel("email", 0, -1);
+		communicationDispatcher = dispatcher(email);
+		List<AccountsMessageDTO> batch = batch();
+		List<String> messageIds = LongStream.range(0, BATCH_SIZE).mapToObj(i -> "outbox-" + i).toList();
+
+		communicationDispatcher.dispatch(batch, messageIds);
+		communicationDispatcher.dispatch(batch, messageIds);
+
+		verify(streamBridge, times(BATCH_SIZE)).send(eq("communicationSent-out-0"), anyLong());
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.channel.latency").tag("channel", "email").timer().count());
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.dedup.checks").tag("result", "duplicate").counter().count());
+	}
+
+	@Test
+	void redeliveryOnlyRetriesTheChannelThatFailed() {
+		long failingAccountNumber = 1000000003L;
+		DelayedChannel email = new DelayedChannel("email", 0, -1);
+		FlakyChannel sms = new FlakyChannel("sms", failingAccountNumber);
+		communicationDispatcher = dispatcher(email, sms);
+		List<AccountsMessageDTO> batch = batch();
+		List<String> messageIds = LongStream.range(0, BATCH_SIZE).mapToObj(i -> "outbox-" + i).toList();
+		assertThrows(CommunicationDispatchException.class, () -> communicationDispatcher.dispatch(batch, messageIds));
+
+		sms.failingAccountNumber = -1;
+		communicationDispatcher.dispatch(batch, messageIds);
+
+		// every message emailed once, the SMS that failed is the only one sent again
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.channel.latency").tag("channel", "email").timer().count());
+		assertEquals(BATCH_SIZE, meterRegistry.get("message.channel.latency").tags("channel", "sms", "outcome", "success")
+											  .timer().count());
+		verify(streamBridge, times(BATCH_SIZE)).send(eq("communicationSent-out-0"), anyLong());
+	}
+
+	@Test
+	void messagesWithoutIdAreNeverTakenForDuplicates() {
+		communicationDispatcher = dispatcher(new DelayedChannel("email", 0, -1));
+		List<AccountsMessageDTO> batch = batch();
+
+		communicationDispatcher.dispatch(batch);
+		communicationDispatcher.dispatch(batch);
+
+		verify(streamBridge, times(2 * BATCH_SIZE)).send(eq("communicationSent-out-0"), anyLong());
+		assertEquals(0, meterRegistry.get("message.dedup.entries").gauge().value());
+		assertEquals(2 * BATCH_SIZE, meterRegistry.get("message.dedup.checks").tag("result", "no_message_id").counter().count());
+	}
+
+	@Test
+	void failedMessageIsSentAgainOnRedelivery() {
+		long failingAccountNumber = 1000000003L;
+		communicationDispatcher = dispatcher(new DelayedChannel("email", 0, failingAccountNumber));
+		List<AccountsMessageDTO> batch = batch();
+		List<String> messageIds = LongStream.range(0, BATCH_SIZE).mapToObj(i -> "outbox-" + i).toList();
+		assertThrows(CommunicationDispatchException.class, () -> communicationDispatcher.dispatch(batch, messageIds));
+
+		assertThrows(CommunicationDispatchException.class, () -> communicationDispatcher.dispatch(batch, messageIds));
+
+		assertEquals(BATCH_SIZE + 1, meterRegistry.get("message.channel.latency").tag("channel", "email").timers()
+												.stream().mapToLong(timer -> timer.count()).sum());
+	}
+
+	private CommunicationDispatcher dispatcher(CommunicationChannel... channels) {
+		return new CommunicationDispatcher(List.of(channels), streamBridge,
+										   new DeduplicationStore(new DedupProperties(), meterRegistry), meterRegistry,
+										   new DispatchProperties());
+	}
+
+	private static List<AccountsMessageDTO> batch() {
+		return LongStream.range(0, BATCH_SIZE)
+						 .mapToObj(i -> new AccountsMessageDTO(1000000000L + i, "John Doe", "john@doe.com", "0666992283"))
+						 .toList();
+	}
+
+	private static class FlakyChannel implements CommunicationChannel {
+
+		private final String name;
+		private volatile long failingAccountNumber;
+
+		FlakyChannel(String name, long failingAccountNumber) {
+			this.name = name;
+			this.failingAccountNumber = failingAccountNumber;
+		}
+
+		@Override
+		public String name() {
+			return name;
+		}
+
+		@Override
+		public void send(AccountsMessageDTO accountsMessageDTO) {
+			if (accountsMessageDTO.accountNumber() == failingAccountNumber) {
+				throw new IllegalStateException(name + " gateway rejected the message");
+			}
+		}
+	}
+
+	private record DelayedChannel(String name, long delayMs, long failingAccountNumber) implements CommunicationChannel {
+
+		@Override
+		public void send(AccountsMessageDTO accountsMessageDTO) {
+			try {
+				Thread.sleep(delayMs);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (accountsMessageDTO.accountNumber() == failingAccountNumber) {
+				throw new IllegalStateException(name + " gateway rejected the message");
+			}
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.microservicesbank.message;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.microservicesbank.message.dto.AccountsMessageDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cloud.stream.binder.test.InputDestination;
+import org.springframework.cloud.stream.binder.test.OutputDestination;
+import org.springframework.cloud.stream.binder.test.TestChannelBinderConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pushes messages through send-communication on the test binder, with the local email and SMS stand-ins
+ * simulating provider latency, and reports throughput and end-to-end latency (batch published until account acknowledged).
+ */
+@SpringBootTest(properties = {
+		"message.simulation.email.latency=10ms",
+		"message.simulation.sms.latency=20ms"
+})
+@Import(TestChannelBinderConfiguration.class)
+class MessageThroughputTest {
+
+	private static final int MESSAGES = 1_000;
+	private static final int BATCH_SIZE = 50;
+	private static final long EMAIL_LATENCY_MS = 10;
+	private static final long SMS_LATENCY_MS = 20;
+
+	@Autowired
+	private InputDestination input;
+
+	@Autowired
+	private OutputDestination output;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void everyMessageIsAcknowledgedAndThroughputIsReported() throws Exception {
+		Map<Long, Long> publishedAt = new ConcurrentHashMap<>();
+		long start = System.nanoTime();
+		CompletableFuture<Void> publisher = CompletableFuture.runAsync(() -> {
+			for (long first = 0; first < MESSAGES; first += BATCH_SIZE) {
+				List<AccountsMessageDTO> batch = LongStream.range(first, Math.min(first + BATCH_SIZE, MESSAGES))
+						.mapToObj(i -> new AccountsMessageDTO(1000000000L + i, "John Doe", "john@doe.com", "0666992283"))
+						.toList();
+				long now = System.nanoTime();
+				batch.forEach(accountsMessageDTO -> publishedAt.put(accountsMessageDTO.accountNumber(), now));
+				input.send(toMessage(batch), "send-communication");
+			}
+		});
+
+		long[] latenciesMicros = new long[MESSAGES];
+		for (int received = 0; received < MESSAGES; received++) {
+			Message<byte[]> ack = output.receive(10_000, "communication-sent");
+			assertNotNull(ack, "only " + received + " of " + MESSAGES + " messages were acknowledged");
+			long accountNumber = Long.parseLong(new String(ack.getPayload(), StandardCharsets.UTF_8));
+			latenciesMicros[received] = (System.nanoTime() - publishedAt.get(accountNumber)) / 1_000;
+		}
+		long elapsedNanos = System.nanoTime() - start;
+		publisher.join();
+
+		Arrays.sort(latenciesMicros);
+		double messagesPerSecond = MESSAGES * 1_000_000_000.0 / elapsedNanos;
+		System.out.printf("throughput: %d messages in batches of %d, email=%dms sms=%dms -> %.0f msg/s, "
+						  + "latency p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms%n",
+						  MESSAGES, BATCH_SIZE, EMAIL_LATENCY_MS, SMS_LATENCY_MS, messagesPerSecond,
+						  percentile(latenciesMicros, 0.50), percentile(latenciesMicros, 0.95),
+						  percentile(latenciesMicros, 0.99), latenciesMicros[MESSAGES - 1] / 1_000.0);
+		assertNull(output.receive(100, "communication-sent"), "a message was acknowledged twice");
+		// one message at a time through both channels would take email + sms per message
+		assertTrue(messagesPerSecond > 1_000.0 / (EMAIL_LATENCY_MS + SMS_LATENCY_MS) * 4);
+	}
+
+	private Message<byte[]> toMessage(List<AccountsMessageDTO> batch) {
+		try {
+			return MessageBuilder.withPayload(objectMapper.writeValueAsBytes(batch)).build();
+		} catch (Exception e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static double percentile(long[] sortedMicros, double percentile) {
+		return sortedMicros[(int) Math.ceil(percentile * sortedMicros.length) - 1] / 1_000.0;
+	}
+}
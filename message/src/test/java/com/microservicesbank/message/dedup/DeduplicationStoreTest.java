@@ -0,0 +1,118 @@
+package com.microservicesbank.message.dedup;
+
+import com.microservicesbank.message.config.DedupProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeduplicationStoreTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicReference<Instant> now = new AtomicReference<>(Instant.parse("2026-01-01T00:00:00Z"));
+
+	@Test
+	void deliveredKeyIsDuplicateWithinRetentionOnly() {
+		DeduplicationStore store = store(1_000, Duration.ofMinutes(10));
+		String key = DeduplicationStore.key(1000000001L, "outbox-1");
+
+		assertFalse(store.isDuplicate(key));
+		store.markDelivered(key);
+		assertTrue(store.isDuplicate(key));
+		assertFalse(store.isDuplicate(DeduplicationStore.key(1000000001L, "outbox-2")));
+
+		now.set(now.get().plus(Duration.ofMinutes(11)));
+		assertFalse(store.isDuplicate(key));
+	}
+
+	@Test
+	void oldestKeysAreEvictedOnceMaxEntriesIsReached() {
+		int maxEntries = 100;
+		DeduplicationStore store = store(maxEntries, Duration.ofHours(1));
+		for (long i = 0; i < maxEntries * 3; i++) {
+			store.markDelivered(DeduplicationStore.key(1000000000L + i, "outbox-" + i));
+		}
+
+		assertFalse(store.isDuplicate(DeduplicationStore.key(1000000000L, "outbox-0")));
+		assertTrue(store.isDuplicate(DeduplicationStore.key(1000000299L, "outbox-299")));
+		assertEquals(maxEntries, meterRegistry.get("message.dedup.entries").gauge().value());
+		assertTrue(meterRegistry.get("message.dedup.memory").gauge().value() > 0);
+	}
+
+	@Test
+	void bloomFilterIsRebuiltOncePerMaxEntriesDeliveriesWhenAllAreRetained() {
+		int maxEntries = 1_000;
+		DeduplicationStore store = store(maxEntries, Duration.ofHours(24));
+		for (long i = 0; i < maxEntries * 3; i++) {
+			store.markDelivered(DeduplicationStore.key(1000000000L + i, "outbox-" + i));
+		}
+
+		assertEquals(1, meterRegistry.get("message.dedup.bloom.rebuilds").counter().count());
+		assertTrue(store.isDuplicate(DeduplicationStore.key(1000002999L, "outbox-2999")));
+		assertFalse(store.isDuplicate(DeduplicationStore.key(1000000000L, "outbox-0")));
+	}
+
+	@Test
+	void recentlyCheckedKeyIsEvictedLast() {
+		int maxEntries = 3;
+		DeduplicationStore store = store(maxEntries, Duration.ofHours(1));
+		for (long i = 0; i < maxEntries; i++) {
+			store.markDelivered(DeduplicationStore.key(1000000000L + i, "outbox-" + i));
+		}
+
+		assertTrue(store.isDuplicate(DeduplicationStore.key(1000000000L, "outbox-0")));
+		store.markDelivered(DeduplicationStore.key(1000000003L, "outbox-3"));
+
+		assertTrue(store.isDuplicate(DeduplicationStore.key(1000000000L, "outbox-0")));
+		assertFalse(store.isDuplicate(DeduplicationStore.key(1000000001L, "outbox-1")));
+	}
+
+	@Test
+	void bloomFilterAnswersMostLookupsForNewKeys() {
+		int maxEntries = 10_000;
+		DeduplicationStore store = store(maxEntries, Duration.ofHours(1));
+		for (long i = 0; i < maxEntries; i++) {
+			store.markDelivered(DeduplicationStore.key(1000000000L + i, "outbox-" + i));
+		}
+
+		for (long i = maxEntries; i < maxEntries * 2; i++) {
+			assertFalse(store.isDuplicate(DeduplicationStore.key(1000000000L + i, "outbox-" + i)));
+		}
+
+		double bloomNegatives = meterRegistry.get("message.dedup.checks").tag("result", "bloom_negative").counter().count();
+		double memory = meterRegistry.get("message.dedup.memory").gauge().value();
+		assertTrue(bloomNegatives > maxEntries * 0.95, bloomNegatives + " of " + maxEntries + " rejected by the Bloom filter");
+		// 200 bytes estimated per LRU entry, the Bloom filter adds less than 3 bytes per remembered message
+		assertTrue(memory < maxEntries * 203, memory + " bytes");
+	}
+
+	private DeduplicationStore store(int maxEntries, Duration retention) {
+		DedupProperties dedupProperties = new DedupProperties();
+		dedupProperties.setMaxEntries(maxEntries);
+		dedupProperties.setRetention(retention);
+		Clock clock = new Clock() {
+			@Override
+			public ZoneOffset getZone() {
+				return ZoneOffset.UTC;
+			}
+
+			@Override
+			public Clock withZone(ZoneId zone) {
+				return this;
+			}
+
+			@Override
+			public Instant instant() {
+				return now.get();
+			}
+		};
+		return new DeduplicationStore(dedupProperties, meterRegistry, clock);
+	}
+}